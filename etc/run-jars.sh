@@ -12,6 +12,9 @@ rm $LIB/hadoop*
 rm $LIB/jetty*
 rm $LIB/jasper*
 rm $LIB/jersey*
+# relocated into the hedera jar
+rm $LIB/commons-compress*
+rm $LIB/xz*
 
 # path to your jar file here. Default is the maven artifact in your local repo
 export JAR_PATH="target/hedera-0.1-SNAPSHOT.jar"
@@ -62,7 +62,7 @@ public class RevisionConcatText extends Revision {
 	public String toString() {
 		// heuristics to optimize the memory consumption: Each patch word
 		// has in average 5 characters
-		StringBuilder sb = new StringBuilder(getLength() + patches.size() * 10);
+		StringBuilder sb = new StringBuilder(getTextLength() + patches.size() * 10);
 		String origText = new String(getText(), StandardCharsets.UTF_8);
 		sb.append(origText);
 		for (String s : patches) {
@@ -160,8 +160,7 @@ WikiRevisionInputFormat<LongWritable, RevisionBOW> {
 			}
 		
 			// remove mark-ups			
-			String rawText = new String(content.getData(), 0, content.getLength()
-					- END_TEXT.length);
+			String rawText = new String(content.getData(), 0, content.getLength());
 			String plainText = processor.getContent(rawText);
 			List<String> thisRevWords = Arrays.asList(plainText.split("\\s+"));
 			
@@ -149,14 +149,14 @@ public class RevisionConcatInputFormat extends
 				value.setParentId(meta.getParentId());
 				value.setRevisionId(meta.getRevisionId());
 				value.setTimestamp(meta.getTimestamp());
+				value.setLength(meta.getLength());
 				
-				value.loadText(content.getData(), 0, content.getLength() 
-						- END_TEXT.length);
+				value.loadText(content.getData(), 0, content.getLength());
 			}
 			else {
 				// instantiate big objects
-				String curRev = new String(content.getData(), 0, content.getLength() 
-						- END_TEXT.length, StandardCharsets.UTF_8);
+				String curRev = new String(content.getData(), 0, content.getLength(), 
+						StandardCharsets.UTF_8);
 				
 				String[] tokens = curRev.split("\\s+");
 				List<String> curText = Arrays.asList(tokens);
@@ -178,6 +178,7 @@ public class WikiFullRevisionJsonInputFormat
 				
 				byte[] text = obj.get("text").getAsString()
 						.getBytes(StandardCharsets.UTF_8);
+				value.setLength(text.length);
 				value.loadText(text, 0, text.length);
 										
 				return true;
@@ -2,9 +2,7 @@ package org.hedera.io.input;
 
 import gnu.trove.set.TLongSet;
 import java.io.IOException;
-import java.io.InputStream;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.LongWritable;
@@ -14,9 +12,7 @@ import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.log4j.Logger;
 import org.hedera.io.RevisionHeader;
-
-import com.twitter.elephantbird.util.TaskHeartbeatThread;
-
+import org.hedera.util.ByteParser;
 
 /** This is probably the simplest inputformat: It reads the
  * chunks of dump files and extracts only the headers for
@@ -93,8 +89,6 @@ WikiRevisionInputFormat<LongWritable, RevisionHeader> {
 
 		private boolean revisionSkipped = false;
 
-		private TaskAttemptContext context;
-
 		// big array of seed entities (around 200 MB in memory)
 		private TLongSet entities = null;
 
@@ -103,7 +97,6 @@ WikiRevisionInputFormat<LongWritable, RevisionHeader> {
 				throws IOException, InterruptedException {
 			super.initialize(input, tac);
 			value = new RevisionHeader(); 
-			this.context = tac;
 			Configuration conf = tac.getConfiguration();
 
 
@@ -159,18 +152,16 @@ WikiRevisionInputFormat<LongWritable, RevisionHeader> {
 			}			
 			else if (flag == 15) {
 				if (!skipped || !revisionSkipped) {
-					String parIdStr = new String(parBuf.getData(), 0, parBuf.getLength() 
-							- END_PARENT_ID.length);
-					long parId = Long.parseLong(parIdStr);
+					long parId = ByteParser.parseLong(parBuf.getData(), 0,
+							parBuf.getLength() - END_PARENT_ID.length);
 					value.setParentId(parId);
 				}
 				parBuf.reset();
 			}
 			else if (flag == 13) {
 				if (!skipped || !revisionSkipped) {
-					String ts = new String(timestampBuf.getData(), 0, timestampBuf.getLength() 
-							- END_TIMESTAMP.length);
-					long timestamp = TIME_FORMAT.parseMillis(ts);
+					long timestamp = timeParser.parse(timestampBuf.getData(), 0,
+							timestampBuf.getLength() - END_TIMESTAMP.length);
 					revisionSkipped = (timestamp < minTime || timestamp >= maxTime);
 					value.setTimestamp(timestamp);
 				}
@@ -178,18 +169,16 @@ WikiRevisionInputFormat<LongWritable, RevisionHeader> {
 			}
 			else if (flag == 11) {
 				if (!skipped || !revisionSkipped) {
-					String idStr = new String(revBuf.getData(), 0, revBuf.getLength()
-							- END_ID.length);
-					long revId = Long.parseLong(idStr);
+					long revId = ByteParser.parseLong(revBuf.getData(), 0,
+							revBuf.getLength() - END_ID.length);
 					value.setRevisionId(revId);
 				}
 				revBuf.reset();
 			}
 			else if (flag == 8) {
 				if (!skipped || !revisionSkipped) {
-					String idStr = new String(keyBuf.getData(), 0, keyBuf.getLength()
-							- END_ID.length);
-					long pageId = Long.parseLong(idStr);
+					long pageId = ByteParser.parseLong(keyBuf.getData(), 0,
+							keyBuf.getLength() - END_ID.length);
 					if (entities != null && !entities.contains(pageId)) {
 						skipped = true;
 						keyBuf.reset();
@@ -202,9 +191,8 @@ WikiRevisionInputFormat<LongWritable, RevisionHeader> {
 				keyBuf.reset();
 			}
 			else if (flag == 6) {
-				String nsStr = new String(nsBuf.getData(), 0, nsBuf.getLength()
-						- END_NAMESPACE.length);
-				int namespace = Integer.parseInt(nsStr);
+				int namespace = ByteParser.parseInt(nsBuf.getData(), 0,
+						nsBuf.getLength() - END_NAMESPACE.length);
 				if (namespace != 0) {
 					skipped = skipNonArticles;					
 				}
@@ -233,27 +221,7 @@ WikiRevisionInputFormat<LongWritable, RevisionHeader> {
 			while (true) {
 				if (pos[0] == pos[1]) {				
 
-					// We use a thread that pings back to the cluster every 5 minutes
-					// to avoid getting killed for slow read
-					TaskHeartbeatThread heartbeat = new TaskHeartbeatThread(context, 60 * 5000) {
-						@Override
-						protected void progress() {
-							LOG.info("Task " + context.getTaskAttemptID() 
-									+ " pings back...");
-						}
-					};
-
-					try {
-						heartbeat.start();
-						pos[1] = (compressed) ? ((InputStream)fsin).read(buf) :
-							((FSDataInputStream)fsin).read(buf);
-						pos[0] = 0;
-					} finally {
-						heartbeat.stop();
-					}
-
-					if (pos[1] == -1) {
-						flag = -1;
+					if (!fill()) {
 						return false;
 					}
 				} 
@@ -266,6 +234,10 @@ WikiRevisionInputFormat<LongWritable, RevisionHeader> {
 						if (b == START_PAGE[i]) {
 							i++;
 							if (i >= START_PAGE.length) {
+								if (!pageInSplit()) {
+									flag = -1;
+									return false;
+								}
 								flag = 2;
 								return true;
 							}
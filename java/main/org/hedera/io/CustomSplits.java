@@ -100,7 +100,7 @@ public class CustomSplits implements Writable {
 		for (long l : starts) out.writeLong(l);
 		for (long l : lengths) out.writeLong(l);
 		for (String[] h : hosts) {
-			out.write(h.length);
+			out.writeInt(h.length);
 			for (String s : h) out.writeUTF(s);
 		}
 	}	
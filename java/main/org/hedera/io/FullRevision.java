@@ -19,17 +19,19 @@ public class FullRevision extends Revision {
 	@Override
 	public void readFields(DataInput in) throws IOException {
 		super.readFields(in);	
-		user = in.readUTF();
+		user = in.readBoolean() ? in.readUTF() : null;
 		userId = in.readLong();
-		comment = in.readUTF();
+		comment = in.readBoolean() ? in.readUTF() : null;
 	}
 
 	@Override
 	public void write(DataOutput out) throws IOException {
 		super.write(out);
-		out.writeUTF(user);
+		// anonymous contributors have no name, and revisions may have no
+		// comment
+		writeString(out, user);
 		out.writeLong(userId);
-		out.writeUTF(comment);
+		writeString(out, comment);
 	}
 	
 	public String getUser() {
@@ -6,6 +6,7 @@ package org.hedera.io;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Provide a data model for one Wikipedia revision that is exchangable within Hadoop settings
@@ -16,33 +17,99 @@ import java.io.IOException;
 public class Revision extends RevisionHeader {
 
 	private byte[] text;
-		
+
+	// the text is a view of textLength bytes at text[textOffset], in a buffer
+	// of the reader that is overwritten by the next record. The bytes are
+	// those read, escaped in the dumps, and their count is not the length of
+	// the revision (see RevisionHeader#getLength())
+	private int textOffset;
+	private int textLength;
+	private boolean view;
+
+	/** The text, copied out of the reader's buffer on the first call if
+	 * it is a view (see {@link #viewText}) */
 	public byte[] getText() {
+		if (view) {
+			text = copyText();
+			textOffset = 0;
+			view = false;
+		}
 		return text;
 	}
-	
+
+	/** The buffer holding the text from {@link #getTextOffset()}, for
+	 * {@link #getTextLength()} bytes, without a copy. It is only valid until the
+	 * next record is read */
+	public byte[] getTextBuffer() {
+		return text;
+	}
+
+	public int getTextOffset() {
+		return textOffset;
+	}
+
+	public int getTextLength() {
+		return textLength;
+	}
+
+	/** A copy of the text that the caller owns, e.g. to keep it after the
+	 * next record is read */
+	public byte[] copyText() {
+		if (text == null) {
+			return null;
+		}
+		return Arrays.copyOfRange(text, textOffset, textOffset + textLength);
+	}
+
 	public void loadText(byte[] buffer, int offset, int len) {
-		setLength(len);
 		text = new byte[len];
 		System.arraycopy(buffer, offset, text, 0, len);
+		textOffset = 0;
+		textLength = len;
+		view = false;
+	}
+
+	/** Use len bytes of the buffer at offset as the text, without a copy.
+	 * The buffer must not change until the next record is read */
+	public void viewText(byte[] buffer, int offset, int len) {
+		text = buffer;
+		textOffset = offset;
+		textLength = len;
+		view = true;
 	}
 
 	@Override
 	public void clear() {
 		super.clear();
 		this.text = null;
+		this.textOffset = 0;
+		this.textLength = 0;
+		this.view = false;
 	}
 	
 	@Override
 	public void readFields(DataInput in) throws IOException {
 		super.readFields(in);	
-		text = new byte[getLength()];
-		in.readFully(text, 0, getLength());
+		if (in.readBoolean()) {
+			textLength = in.readInt();
+			text = new byte[textLength];
+			in.readFully(text, 0, textLength);
+		} else {
+			text = null;
+			textLength = 0;
+		}
+		textOffset = 0;
+		view = false;
 	}
 
 	@Override
 	public void write(DataOutput out) throws IOException {
 		super.write(out);	
-		out.write(text, 0, getLength());		
+		// the text is null when it is not read (see RevisionFields)
+		out.writeBoolean(text != null);
+		if (text != null) {
+			out.writeInt(textLength);
+			out.write(text, textOffset, textLength);
+		}
 	}
 }
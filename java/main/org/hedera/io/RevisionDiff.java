@@ -46,7 +46,9 @@ public class RevisionDiff extends RevisionHeader {
 	@Override
 	public void clear() {
 		super.clear();
-		this.diffs.clear();
+		if (diffs != null) {
+			diffs.clear();
+		}
 	}
 	
 	public static TYPE byte2opt(byte sig) {
@@ -73,6 +73,7 @@ public class RevisionHeader implements Writable,
 				= this.timestamp = this.length = 0;
 		this.namespace = 0;
 		this.pageTitle = null;
+		this.minor = false;
 	}
 	
 	@Override
@@ -84,6 +85,7 @@ public class RevisionHeader implements Writable,
 		this.parentId = obj.parentId;
 		this.revisionId = obj.revisionId;
 		this.timestamp = obj.timestamp;
+		this.minor = obj.minor;
 	}
 	
 	@Override
@@ -101,7 +103,8 @@ public class RevisionHeader implements Writable,
 		timestamp = in.readLong();
 		namespace = in.readInt();
 		length = in.readInt();
-		pageTitle = in.readUTF();
+		pageTitle = in.readBoolean() ? in.readUTF() : null;
+		minor = in.readBoolean();
 	}
 	@Override
 	public void write(DataOutput out) throws IOException {
@@ -111,7 +114,17 @@ public class RevisionHeader implements Writable,
 		out.writeLong(timestamp);
 		out.writeInt(namespace);
 		out.writeInt(length);
-		out.writeUTF(pageTitle);		
+		writeString(out, pageTitle);
+		out.writeBoolean(minor);
+	}
+
+	// the fields not read (see RevisionFields) are null
+	protected static void writeString(DataOutput out, String s)
+			throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null) {
+			out.writeUTF(s);
+		}
 	}
 	
 	@Override
@@ -0,0 +1,324 @@
+package org.hedera.io.binary;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.hedera.io.FullRevision;
+import org.hedera.io.Revision;
+import org.hedera.io.RevisionHeader;
+
+/**
+ * The decoded columns of a block of a binary revision file (see
+ * {@link BinaryRevisionFile}). Each section is decoded on its own, so that
+ * a reader decodes only the sections its values hold. The texts stored as
+ * deltas are reconstructed on demand, in order, and the delta consumers can
+ * read the deltas themselves. The arrays are reused from one block to the
+ * next.
+ *
+ * @author tuan
+ */
+public class BinaryRevisionBlock {
+
+	private final DataInputBuffer in = new DataInputBuffer();
+
+	private int count;
+	private boolean continued;
+	private int keyframes;
+	private long pageId;
+	private int namespace;
+	private String title;
+
+	private long[] revisionIds = new long[0];
+	private long[] parentIds = new long[0];
+	private long[] timestamps = new long[0];
+	private int[] lengths = new int[0];
+	private int[] textLengths = new int[0];
+	private byte[] minors = new byte[0];
+
+	private String[] users = new String[0];
+	private long[] userIds = new long[0];
+	private int[] userRefs = new int[0];
+
+	// the stored texts one after the other, then the comments
+	private byte[] body = new byte[0];
+	private int[] storedOffsets = new int[0];
+	private int[] storedSizes = new int[0];
+	private String[] comments = new String[0];
+
+	// the texts, reconstructed till the given index when stored as deltas
+	private byte[] texts;
+	private byte[] reconstructedTexts = new byte[0];
+	private int[] textOffsets = new int[0];
+	private int reconstructed;
+
+	private boolean hasContributors;
+	private boolean hasBody;
+	private boolean hasComments;
+
+	public int size() {
+		return count;
+	}
+
+	public long getPageId() {
+		return pageId;
+	}
+
+	public int getNamespace() {
+		return namespace;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public long getTimestamp(int i) {
+		return timestamps[i];
+	}
+
+	public boolean isMinor(int i) {
+		return (minors[i >>> 3] & (1 << (i & 7))) != 0;
+	}
+
+	/** The contributor of the i-th revision, null if anonymous or if the
+	 * contributors were not read */
+	public String getUser(int i) {
+		return hasContributors ? users[userRefs[i]] : null;
+	}
+
+	/** Whether the first revision follows the last one of the previous
+	 * block, of the same page */
+	public boolean isContinued() {
+		return continued;
+	}
+
+	/**
+	 * Decode the header columns, from the bytes of the header section
+	 *
+	 * @param version the version of the file
+	 */
+	public void readHeader(byte[] b, int len, int version) throws IOException {
+		in.reset(b, len);
+		pageId = WritableUtils.readVLong(in);
+		namespace = WritableUtils.readVInt(in);
+		title = readString(in);
+		count = WritableUtils.readVInt(in);
+		if (version >= 2) {
+			continued = in.readBoolean();
+			keyframes = WritableUtils.readVInt(in);
+		} else {
+			continued = false;
+			keyframes = 0;
+		}
+		if (revisionIds.length < count) {
+			int n = Math.max(count, revisionIds.length * 2);
+			revisionIds = new long[n];
+			parentIds = new long[n];
+			timestamps = new long[n];
+			lengths = new int[n];
+			textLengths = new int[n];
+			storedOffsets = new int[n];
+			storedSizes = new int[n];
+			textOffsets = new int[n];
+			userRefs = new int[n];
+			comments = new String[n];
+		}
+		long last = 0;
+		for (int i = 0; i < count; i++) {
+			last = revisionIds[i] = last + WritableUtils.readVLong(in);
+		}
+		for (int i = 0; i < count; i++) {
+			parentIds[i] = revisionIds[i] - WritableUtils.readVLong(in);
+		}
+		last = 0;
+		for (int i = 0; i < count; i++) {
+			last = timestamps[i] = last + WritableUtils.readVLong(in);
+		}
+		for (int i = 0; i < count; i++) {
+			lengths[i] = WritableUtils.readVInt(in);
+		}
+		for (int i = 0; i < count; i++) {
+			textLengths[i] = (version >= 3) ? WritableUtils.readVInt(in)
+					: lengths[i];
+		}
+		int bytes = (count + 7) >>> 3;
+		if (minors.length < bytes) {
+			minors = new byte[bytes * 2];
+		}
+		in.readFully(minors, 0, bytes);
+		hasContributors = hasBody = hasComments = false;
+	}
+
+	/** Decode the contributor columns, from the bytes of their section */
+	public void readContributors(byte[] b, int len) throws IOException {
+		in.reset(b, len);
+		int distinct = WritableUtils.readVInt(in);
+		if (users.length < distinct) {
+			users = new String[Math.max(distinct, users.length * 2)];
+			userIds = new long[users.length];
+		}
+		for (int i = 0; i < distinct; i++) {
+			userIds[i] = WritableUtils.readVLong(in);
+			users[i] = readString(in);
+		}
+		for (int i = 0; i < count; i++) {
+			userRefs[i] = WritableUtils.readVInt(in);
+		}
+		hasContributors = true;
+	}
+
+	/**
+	 * Decompress the body section, and decode its comments if asked to. The
+	 * texts are not reconstructed yet.
+	 *
+	 * @param codec the codec of the file, or null if the body is raw
+	 */
+	public void readBody(InputStream section, int rawSize,
+			CompressionCodec codec, Decompressor decompressor,
+			boolean withComments) throws IOException {
+		if (body.length < rawSize) {
+			body = new byte[Math.max(rawSize, body.length * 2)];
+		}
+		if (codec == null) {
+			IOUtils.readFully(section, body, 0, rawSize);
+		} else {
+			if (decompressor != null) {
+				decompressor.reset();
+			}
+			InputStream cin = codec.createInputStream(section, decompressor);
+			IOUtils.readFully(cin, body, 0, rawSize);
+		}
+		int offset = 0;
+		for (int i = 0; i < count; i++) {
+			textOffsets[i] = offset;
+			offset += textLengths[i];
+		}
+		if (keyframes == 0) {
+			// the texts are stored whole
+			texts = body;
+			reconstructed = count;
+			System.arraycopy(textOffsets, 0, storedOffsets, 0, count);
+			System.arraycopy(textLengths, 0, storedSizes, 0, count);
+		} else {
+			in.reset(body, rawSize);
+			for (int i = 0; i < count; i++) {
+				storedSizes[i] = WritableUtils.readVInt(in);
+			}
+			offset = in.getPosition();
+			for (int i = 0; i < count; i++) {
+				storedOffsets[i] = offset;
+				offset += storedSizes[i];
+			}
+			int size = (count == 0) ? 0
+					: textOffsets[count - 1] + textLengths[count - 1];
+			if (reconstructedTexts.length < size) {
+				reconstructedTexts = new byte[Math.max(size,
+						reconstructedTexts.length * 2)];
+			}
+			texts = reconstructedTexts;
+			reconstructed = 0;
+		}
+		if (withComments) {
+			in.reset(body, offset, rawSize - offset);
+			for (int i = 0; i < count; i++) {
+				comments[i] = readString(in);
+			}
+		}
+		hasBody = true;
+		hasComments = withComments;
+	}
+
+	/** Whether the i-th text is stored as its delta against the previous */
+	public boolean isDelta(int i) {
+		return keyframes > 0 && i % keyframes != 0;
+	}
+
+	/** The stored delta of the i-th text, see {@link TextDelta} */
+	public DataInput getDelta(int i) {
+		in.reset(body, storedOffsets[i], storedSizes[i]);
+		return in;
+	}
+
+	/** The length of the unescaped text of the i-th revision */
+	public int getLength(int i) {
+		return lengths[i];
+	}
+
+	/** The size of the i-th text, as stored */
+	public int getTextLength(int i) {
+		return textLengths[i];
+	}
+
+	/** The buffer of the texts, see {@link #getTextOffset(int)} */
+	public byte[] getTexts() {
+		return texts;
+	}
+
+	/** The offset of the i-th text in the buffer of the texts, once the
+	 * texts till the i-th are reconstructed */
+	public int getTextOffset(int i) throws IOException {
+		for (; reconstructed <= i; reconstructed++) {
+			int j = reconstructed;
+			if (isDelta(j)) {
+				TextDelta.apply(texts, textOffsets[j - 1], getDelta(j), texts,
+						textOffsets[j], textLengths[j]);
+			} else {
+				System.arraycopy(body, storedOffsets[j], texts, textOffsets[j],
+						textLengths[j]);
+			}
+		}
+		return textOffsets[i];
+	}
+
+	/**
+	 * Fill a value with the i-th revision of the block: the header columns,
+	 * then the text and the contributor if the value holds them and their
+	 * sections were decoded
+	 */
+	public void fill(int i, RevisionHeader value) throws IOException {
+		fill(i, value, false);
+	}
+
+	/** Fill a value with the i-th revision of the block, its text being a
+	 * view of the texts of the block if textView is set (see
+	 * {@link Revision#viewText}) */
+	public void fill(int i, RevisionHeader value, boolean textView)
+			throws IOException {
+		value.clear();
+		value.setPageId(pageId);
+		value.setNamespace(namespace);
+		value.setPageTitle(title);
+		value.setRevisionId(revisionIds[i]);
+		value.setParentId(parentIds[i]);
+		value.setTimestamp(timestamps[i]);
+		value.setLength(lengths[i]);
+		value.setMinor(isMinor(i));
+		if (hasBody && value instanceof Revision) {
+			int offset = getTextOffset(i);
+			if (textView) {
+				((Revision) value).viewText(texts, offset, textLengths[i]);
+			} else {
+				((Revision) value).loadText(texts, offset, textLengths[i]);
+			}
+		}
+		if (value instanceof FullRevision) {
+			FullRevision full = (FullRevision) value;
+			if (hasContributors) {
+				full.setUser(users[userRefs[i]]);
+				full.setUserId(userIds[userRefs[i]]);
+			}
+			full.setComment(hasComments ? comments[i] : null);
+		}
+	}
+
+	/** Read a string written by {@link BinaryRevisionWriter}, that may be null */
+	static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? Text.readString(in) : null;
+	}
+}
@@ -0,0 +1,227 @@
+package org.hedera.io.binary;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.hedera.io.RevisionDiff;
+import org.hedera.io.input.RevisionFields;
+
+import difflib.ChangeDelta;
+import difflib.Chunk;
+import difflib.DeleteDelta;
+import difflib.Delta;
+import difflib.InsertDelta;
+
+/**
+ * Reads the diffs of consecutive revisions from binary revision files, as
+ * {@link org.hedera.io.input.WikiRevisionDiffInputFormat} does from dumps,
+ * but without a diff algorithm: the edits are those of the stored deltas,
+ * widened to whole lines. Only the keyframes are compared to the previous
+ * text, by encoding their delta on the fly.
+ *
+ * The chunks of a diff hold the changed lines, and their position is the
+ * offset in bytes of the first one in the text, not its line number as in
+ * the chunks of {@link org.hedera.io.input.WikiRevisionDiffInputFormat}. The
+ * first revision of a page is a diff against an empty text. Only the
+ * revisions that pass the filters are emitted, each one diffed against the
+ * revision right before it, whether that one was emitted or not.
+ *
+ * @author tuan
+ */
+public class BinaryRevisionDiffInputFormat
+		extends BinaryRevisionInputFormat<RevisionDiff> {
+
+	@Override
+	public RecordReader<LongWritable, RevisionDiff> createRecordReader(
+			InputSplit split, TaskAttemptContext context) throws IOException,
+			InterruptedException {
+		return new DiffReader();
+	}
+
+	@Override
+	protected RevisionDiff newValue() {
+		return new RevisionDiff();
+	}
+
+	@Override
+	protected boolean readsText() {
+		return true;
+	}
+
+	@Override
+	protected boolean readsContributors() {
+		return false;
+	}
+
+	public static class DiffReader extends BinaryRevisionReader<RevisionDiff>
+			implements TextDelta.EditHandler {
+
+		private final TextDelta encoder = new TextDelta();
+		private final DataOutputBuffer keyframeDelta = new DataOutputBuffer();
+		private final DataInputBuffer keyframeIn = new DataInputBuffer();
+
+		// the last text of the previous block, that a continuing block
+		// starts from
+		private final DataOutputBuffer previous = new DataOutputBuffer();
+
+		// the edits of the revision being read: base from, base to, from, to
+		private final List<int[]> edits = new ArrayList<>();
+
+		public DiffReader() {
+			super(new RevisionDiff(), true, false);
+		}
+
+		// the diffs are computed from the texts
+		@Override
+		protected int getFields(Configuration conf) {
+			return super.getFields(conf) | RevisionFields.TEXT;
+		}
+
+		// the last text of a block is the base of the next one, even if its
+		// diff is not emitted
+		@Override
+		protected boolean accept(BinaryRevisionBlock block, int i)
+			throws IOException {
+			if (super.accept(block, i)) {
+				return true;
+			}
+			if (i == block.size() - 1) {
+				keepLast(block, i);
+			}
+			return false;
+		}
+
+		@Override
+		protected void fill(BinaryRevisionBlock block, int i,
+				RevisionDiff value) throws IOException {
+			block.fill(i, value);
+			int offset = block.getTextOffset(i);
+			int len = block.getTextLength(i);
+			byte[] texts = block.getTexts();
+
+			byte[] base;
+			int baseOff;
+			int baseLen;
+			if (i > 0) {
+				base = texts;
+				baseOff = block.getTextOffset(i - 1);
+				baseLen = block.getTextLength(i - 1);
+			} else {
+				base = previous.getData();
+				baseOff = 0;
+				baseLen = block.isContinued() ? previous.getLength() : 0;
+			}
+
+			edits.clear();
+			if (block.isDelta(i)) {
+				TextDelta.edits(block.getDelta(i), baseLen, len, this);
+			} else {
+				keyframeDelta.reset();
+				encoder.encode(base, baseOff, baseLen, texts, offset, len,
+						keyframeDelta);
+				keyframeIn.reset(keyframeDelta.getData(),
+						keyframeDelta.getLength());
+				TextDelta.edits(keyframeIn, baseLen, len, this);
+			}
+			addDiffs(value, base, baseOff, baseLen, texts, offset, len);
+
+			if (i == block.size() - 1) {
+				keepLast(block, i);
+			}
+		}
+
+		private void keepLast(BinaryRevisionBlock block, int i)
+				throws IOException {
+			previous.reset();
+			previous.write(block.getTexts(), block.getTextOffset(i),
+					block.getTextLength(i));
+		}
+
+		@Override
+		public void edit(int baseFrom, int baseTo, int from, int to) {
+			edits.add(new int[] {baseFrom, baseTo, from, to});
+		}
+
+		/** Widen the edits to whole lines, merge those that overlap then, and
+		 * add them to the diff */
+		private void addDiffs(RevisionDiff value, byte[] base, int baseOff,
+				int baseLen, byte[] text, int off, int len) {
+			int[] last = null;
+			for (int[] e : edits) {
+				e[0] = lineStart(base, baseOff, e[0]);
+				e[1] = lineEnd(base, baseOff, baseLen, e[0], Math.max(e[0], e[1]));
+				e[2] = lineStart(text, off, e[2]);
+				e[3] = lineEnd(text, off, len, e[2], Math.max(e[2], e[3]));
+				if (last != null && (e[0] < last[1] || e[2] < last[3])) {
+					last[1] = Math.max(last[1], e[1]);
+					last[3] = Math.max(last[3], e[3]);
+					continue;
+				}
+				if (last != null) {
+					value.add(delta(last, base, baseOff, text, off));
+				}
+				last = e;
+			}
+			if (last != null) {
+				value.add(delta(last, base, baseOff, text, off));
+			}
+		}
+
+		private static Delta delta(int[] e, byte[] base, int baseOff,
+				byte[] text, int off) {
+			Chunk original = new Chunk(e[0], lines(base, baseOff + e[0],
+					baseOff + e[1]));
+			Chunk revised = new Chunk(e[2], lines(text, off + e[2], off + e[3]));
+			if (e[0] == e[1]) {
+				return new InsertDelta(original, revised);
+			} else if (e[2] == e[3]) {
+				return new DeleteDelta(original, revised);
+			}
+			return new ChangeDelta(original, revised);
+		}
+
+		private static int lineStart(byte[] b, int off, int p) {
+			while (p > 0 && b[off + p - 1] != '\n') {
+				p--;
+			}
+			return p;
+		}
+
+		// an empty range at the start of a line stays empty
+		private static int lineEnd(byte[] b, int off, int len, int from,
+				int p) {
+			if (p == from) {
+				return p;
+			}
+			while (p < len && b[off + p - 1] != '\n') {
+				p++;
+			}
+			return p;
+		}
+
+		private static List<String> lines(byte[] b, int from, int to) {
+			List<String> lines = new ArrayList<>();
+			int start = from;
+			for (int i = from; i < to; i++) {
+				if (b[i] == '\n') {
+					lines.add(new String(b, start, i - start,
+							StandardCharsets.UTF_8));
+					start = i + 1;
+				}
+			}
+			if (start < to) {
+				lines.add(new String(b, start, to - start, StandardCharsets.UTF_8));
+			}
+			return lines;
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package org.hedera.io.binary;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.apache.hadoop.io.Text;
+
+/**
+ * Layout of the binary revision files (.hrev), the compact copies of the
+ * dumps written once by {@link org.hedera.mapreduce.TranscodeRevisions}:
+ *
+ * <pre>
+ * file   := "HREV" version codec sync block*
+ * block  := sync headerSize contributorsSize bodySize rawBodySize
+ *           header contributors body
+ * </pre>
+ *
+ * The codec is the class name of the codec compressing the bodies (empty
+ * when they are stored raw), and the sync is a random marker of
+ * {@link #SYNC_SIZE} bytes written before each block, so that a reader can
+ * start at any offset, as in a SequenceFile.
+ * The four sizes are big-endian ints. A block holds consecutive revisions
+ * of one page, stored by column (see {@link BinaryRevisionBlock}):
+ * <ul>
+ * <li>the header holds the page id, namespace and title, once per block,
+ * whether the block continues the page of the previous block, and the
+ * keyframe interval of the texts, then the revision ids, parent ids,
+ * timestamps, lengths (of the unescaped texts) and sizes of the stored
+ * texts as varints (the ids and timestamps as deltas), and the minor flags
+ * as a bitmap</li>
+ * <li>the contributors hold the distinct users of the block (name and id),
+ * then the index of the user of each revision</li>
+ * <li>the compressed body holds the texts, then the comments. With a
+ * keyframe interval k, one text out of k is stored whole (the first of the
+ * block among them), the others as their {@link TextDelta} against the
+ * previous text, and the body starts with the stored size of each text</li>
+ * </ul>
+ * A reader of the headers only skips the two other sections without
+ * reading nor decompressing them. As a page of the dumps, a page belongs to
+ * the split in which its first block starts: the blocks that continue it
+ * are read on past the end of the split.
+ *
+ * The files of version 1 have neither the continuation flag nor deltas.
+ * Before version 3, the lengths are the sizes of the stored texts, which
+ * have no column of their own.
+ *
+ * @author tuan
+ */
+public final class BinaryRevisionFile {
+
+	public static final String EXTENSION = ".hrev";
+
+	public static final byte[] MAGIC = {'H', 'R', 'E', 'V'};
+	public static final byte VERSION = 3;
+
+	public static final int SYNC_SIZE = 16;
+
+	// size of the sync and the section sizes starting each block
+	public static final int BLOCK_PREFIX_SIZE = SYNC_SIZE + 16;
+
+	private final byte version;
+	private final String codec;
+	private final byte[] sync;
+
+	public BinaryRevisionFile(String codec, byte[] sync) {
+		this(VERSION, codec, sync);
+	}
+
+	private BinaryRevisionFile(byte version, String codec, byte[] sync) {
+		this.version = version;
+		this.codec = codec;
+		this.sync = sync;
+	}
+
+	public byte getVersion() {
+		return version;
+	}
+
+	/** The codec class name of the bodies */
+	public String getCodec() {
+		return codec;
+	}
+
+	public byte[] getSync() {
+		return sync;
+	}
+
+	public static byte[] newSync() {
+		UUID id = UUID.randomUUID();
+		return ByteBuffer.allocate(SYNC_SIZE)
+				.putLong(id.getMostSignificantBits())
+				.putLong(id.getLeastSignificantBits()).array();
+	}
+
+	public void write(DataOutput out) throws IOException {
+		out.write(MAGIC);
+		out.writeByte(version);
+		Text.writeString(out, codec);
+		out.write(sync);
+	}
+
+	public static BinaryRevisionFile read(DataInput in) throws IOException {
+		byte[] magic = new byte[MAGIC.length];
+		in.readFully(magic);
+		if (!Arrays.equals(magic, MAGIC)) {
+			throw new IOException("Not a binary revision file");
+		}
+		byte version = in.readByte();
+		if (version < 1 || version > VERSION) {
+			throw new IOException("Unsupported version of binary revision file: "
+					+ version);
+		}
+		String codec = Text.readString(in);
+		byte[] sync = new byte[SYNC_SIZE];
+		in.readFully(sync);
+		return new BinaryRevisionFile(version, codec, sync);
+	}
+}
@@ -0,0 +1,28 @@
+package org.hedera.io.binary;
+
+import org.hedera.io.FullRevision;
+
+/**
+ * Reads the full revisions from binary revision files, as
+ * {@link org.hedera.io.input.WikiRevisionFullInputFormat} does from dumps.
+ *
+ * @author tuan
+ */
+public class BinaryRevisionFullInputFormat
+		extends BinaryRevisionInputFormat<FullRevision> {
+
+	@Override
+	protected FullRevision newValue() {
+		return new FullRevision();
+	}
+
+	@Override
+	protected boolean readsText() {
+		return true;
+	}
+
+	@Override
+	protected boolean readsContributors() {
+		return true;
+	}
+}
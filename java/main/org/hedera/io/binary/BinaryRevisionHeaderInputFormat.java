@@ -0,0 +1,28 @@
+package org.hedera.io.binary;
+
+import org.hedera.io.RevisionHeader;
+
+/**
+ * Reads the headers of the revisions from binary revision files: only the
+ * header columns of the blocks are read, the texts are skipped over.
+ *
+ * @author tuan
+ */
+public class BinaryRevisionHeaderInputFormat
+		extends BinaryRevisionInputFormat<RevisionHeader> {
+
+	@Override
+	protected RevisionHeader newValue() {
+		return new RevisionHeader();
+	}
+
+	@Override
+	protected boolean readsText() {
+		return false;
+	}
+
+	@Override
+	protected boolean readsContributors() {
+		return false;
+	}
+}
@@ -0,0 +1,49 @@
+package org.hedera.io.binary;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.hedera.io.RevisionHeader;
+
+/**
+ * Input format of the binary revision files written by
+ * {@link org.hedera.mapreduce.TranscodeRevisions}, in place of the XML
+ * dumps: the values are the same as those of the XML input formats, decoded
+ * from the columns of the blocks instead of parsed. The files are split
+ * anywhere, a split reads the blocks whose sync starts in it.
+ *
+ * The subclasses tell which sections of the blocks their values need, so
+ * that a job over the headers only reads a small part of the files.
+ *
+ * @author tuan
+ */
+public abstract class BinaryRevisionInputFormat<VALUE extends RevisionHeader>
+		extends FileInputFormat<LongWritable, VALUE> {
+
+	@Override
+	protected boolean isSplitable(JobContext context, Path file) {
+		return true;
+	}
+
+	@Override
+	public RecordReader<LongWritable, VALUE> createRecordReader(
+			InputSplit split, TaskAttemptContext context) throws IOException,
+			InterruptedException {
+		return new BinaryRevisionReader<VALUE>(newValue(), readsText(),
+				readsContributors());
+	}
+
+	protected abstract VALUE newValue();
+
+	/** Whether the values hold the texts */
+	protected abstract boolean readsText();
+
+	/** Whether the values hold the users and the comments */
+	protected abstract boolean readsContributors();
+}
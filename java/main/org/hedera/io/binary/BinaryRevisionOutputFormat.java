@@ -0,0 +1,79 @@
+package org.hedera.io.binary;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.hedera.io.FullRevision;
+
+/**
+ * Writes the revisions to binary revision files (see
+ * {@link BinaryRevisionFile}), one per task. The revisions of a page must
+ * come one after the other, as from the input formats of the dumps.
+ *
+ * @author tuan
+ */
+public class BinaryRevisionOutputFormat
+		extends FileOutputFormat<LongWritable, FullRevision> {
+
+	// Class of the codec compressing the texts and comments of the blocks,
+	// or empty to store them raw
+	public static final String BINARY_CODEC = "org.hedera.output.binary.codec";
+
+	// Size in bytes of the texts of a block, beyond which the revisions of a
+	// page go to the next block
+	public static final String BINARY_BLOCK_SIZE =
+			"org.hedera.output.binary.blocksize";
+	public static final int DEFAULT_BINARY_BLOCK_SIZE = 4 << 20;
+
+	// Interval of the texts stored whole, the others are stored as deltas
+	// against the previous text; 0 stores all the texts whole
+	public static final String BINARY_KEYFRAMES =
+			"org.hedera.output.binary.keyframes";
+	public static final int DEFAULT_BINARY_KEYFRAMES = 32;
+
+	@Override
+	public RecordWriter<LongWritable, FullRevision> getRecordWriter(
+			TaskAttemptContext context) throws IOException,
+			InterruptedException {
+		Configuration conf = context.getConfiguration();
+		CompressionCodec codec = null;
+		String codecName = conf.get(BINARY_CODEC, DefaultCodec.class.getName());
+		if (!codecName.isEmpty()) {
+			try {
+				codec = (CompressionCodec) ReflectionUtils.newInstance(
+						conf.getClassByName(codecName), conf);
+			} catch (ClassNotFoundException e) {
+				throw new IOException("Unknown codec " + codecName, e);
+			}
+		}
+		Path file = getDefaultWorkFile(context, BinaryRevisionFile.EXTENSION);
+		FileSystem fs = file.getFileSystem(conf);
+		final BinaryRevisionWriter writer = new BinaryRevisionWriter(
+				fs.create(file, false), codec,
+				conf.getInt(BINARY_BLOCK_SIZE, DEFAULT_BINARY_BLOCK_SIZE),
+				conf.getInt(BINARY_KEYFRAMES, DEFAULT_BINARY_KEYFRAMES));
+
+		return new RecordWriter<LongWritable, FullRevision>() {
+
+			@Override
+			public void write(LongWritable key, FullRevision value)
+					throws IOException {
+				writer.append(value);
+			}
+
+			@Override
+			public void close(TaskAttemptContext context) throws IOException {
+				writer.close();
+			}
+		};
+	}
+}
@@ -0,0 +1,335 @@
+package org.hedera.io.binary;
+
+import static org.hedera.io.input.WikiRevisionInputFormat.TEXT_VIEW;
+import static org.hedera.io.input.WikiRevisionInputFormat.openFile;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.hedera.io.RevisionHeader;
+import org.hedera.io.input.RevisionFields;
+import org.hedera.io.input.RevisionFilter;
+import org.hedera.util.BoundedInputStream;
+import org.hedera.util.TagScanner;
+
+/**
+ * Reads the revisions of the pages of a binary revision file whose first
+ * block starts in the split. The key is the page id. Only the sections of
+ * the blocks that the values hold are read: the header columns always, the
+ * contributors and the body on demand. The other sections are skipped over.
+ * The subclasses may fill the values from the stored deltas of the texts.
+ *
+ * @author tuan
+ */
+public class BinaryRevisionReader<VALUE extends RevisionHeader>
+		extends RecordReader<LongWritable, VALUE> {
+
+	private static final int SCAN_BUFFER_SIZE = 64 << 10;
+
+	private final VALUE value;
+	private final boolean withText;
+
+	// the texts are views of the block (see WikiRevisionInputFormat.TEXT_VIEW)
+	private boolean textView;
+	private final boolean withContributors;
+
+	// the sections read, as the values and the fields of the job ask (see
+	// WikiRevisionInputFormat.FIELDS)
+	private boolean readsBody;
+	private boolean readsContributors;
+	private boolean readsComments;
+
+	// the pages and revisions to read, see RevisionFilter. The pages are
+	// filtered on the header of their first block, the id of the last page
+	// skipped is kept to skip the blocks continuing it
+	private RevisionFilter filter;
+	private long skippedPage;
+	private TaskAttemptContext context;
+
+	private final LongWritable key = new LongWritable();
+
+	private FSDataInputStream in;
+	private long start;
+	private long end;
+
+	private int version;
+	private byte[] sync;
+	private CompressionCodec codec;
+	private Decompressor decompressor;
+
+	private final BinaryRevisionBlock block = new BinaryRevisionBlock();
+	private int next;
+
+	// whether a page starting in the split has been met: the blocks before
+	// continue a page of the previous split
+	private boolean owning;
+
+	private final byte[] prefix =
+			new byte[BinaryRevisionFile.BLOCK_PREFIX_SIZE];
+	private byte[] section = new byte[4096];
+
+	/**
+	 * @param withText whether the texts (and comments) are read
+	 * @param withContributors whether the users (and comments) are read
+	 */
+	public BinaryRevisionReader(VALUE value, boolean withText,
+			boolean withContributors) {
+		this.value = value;
+		this.withText = withText;
+		this.withContributors = withContributors;
+	}
+
+	@Override
+	public void initialize(InputSplit input, TaskAttemptContext tac)
+			throws IOException, InterruptedException {
+		Configuration conf = tac.getConfiguration();
+		FileSplit split = (FileSplit) input;
+		context = tac;
+		Path file = split.getPath();
+		FileSystem fs = file.getFileSystem(conf);
+		initialize(conf, openFile(conf, fs, file), split.getStart(),
+				split.getStart() + split.getLength());
+	}
+
+	/** Read the blocks starting in [start, end) of an opened file */
+	public void initialize(Configuration conf, FSDataInputStream file,
+			long start, long end) throws IOException {
+		this.in = file;
+		this.start = start;
+		this.end = end;
+		textView = conf.getBoolean(TEXT_VIEW, false);
+		// the transcoded files only hold the pages selected then, all of
+		// them are read unless asked otherwise
+		filter = new RevisionFilter(conf, false);
+		skippedPage = -1;
+		int fields = getFields(conf);
+		readsContributors = filter.filtersUser() || (withContributors && (fields
+				& (RevisionFields.USER | RevisionFields.USER_ID)) != 0);
+		readsComments = withText && withContributors
+				&& (fields & RevisionFields.COMMENT) != 0;
+		readsBody = withText
+				&& ((fields & RevisionFields.TEXT) != 0 || readsComments);
+
+		in.seek(0);
+		BinaryRevisionFile header = BinaryRevisionFile.read(in);
+		version = header.getVersion();
+		sync = header.getSync();
+		if (!header.getCodec().isEmpty()) {
+			try {
+				codec = (CompressionCodec) ReflectionUtils.newInstance(
+						conf.getClassByName(header.getCodec()), conf);
+			} catch (ClassNotFoundException e) {
+				throw new IOException("Unknown codec " + header.getCodec(), e);
+			}
+			if (readsBody) {
+				decompressor = CodecPool.getDecompressor(codec);
+			}
+		}
+
+		// the blocks begin with the sync, the file header holds one too
+		owning = false;
+		next = block.size();
+		if (start > in.getPos()) {
+			seekSync(start);
+		}
+	}
+
+	/** The fields to read (see {@link RevisionFields}), those set in the
+	 * configuration by default */
+	protected int getFields(Configuration conf) {
+		return RevisionFields.get(conf);
+	}
+
+	/** Move to the first sync at or after the position, or past the end of
+	 * the split if none starts in it */
+	private void seekSync(long from) throws IOException {
+		in.seek(from);
+		TagScanner scanner = new TagScanner(sync);
+		byte[] buf = new byte[SCAN_BUFFER_SIZE];
+		long offset = from;
+		int matched = 0;
+		int n;
+		// a sync matched in part may start before the end
+		while (offset - matched < end
+				&& (n = in.read(buf, 0, buf.length)) > 0) {
+			int i = scanner.scan(buf, 0, n, matched);
+			if (i >= 0) {
+				in.seek(offset + i - sync.length);
+				return;
+			}
+			matched = -i - 1;
+			offset += n;
+		}
+	}
+
+	@Override
+	public boolean nextKeyValue() throws IOException, InterruptedException {
+		while (true) {
+			while (next >= block.size()) {
+				if (!readBlock()) {
+					return false;
+				}
+			}
+			int i = next++;
+			if (accept(block, i)) {
+				fill(block, i, value);
+				key.set(value.getPageId());
+				return true;
+			}
+		}
+	}
+
+	/** Whether the i-th revision of the block passes the filter, before it
+	 * is filled */
+	protected boolean accept(BinaryRevisionBlock block, int i)
+			throws IOException {
+		return filter.acceptTime(block.getTimestamp(i))
+				&& filter.acceptMinor(block.isMinor(i))
+				&& (!filter.filtersUser() || filter.acceptUser(block.getUser(i)));
+	}
+
+	// the page of the block passes the filter
+	private boolean acceptPage() {
+		long pageId = block.getPageId();
+		if (pageId == skippedPage) {
+			return false;
+		}
+		if (filter.acceptPageId(pageId) 
+				&& filter.acceptNamespace(block.getNamespace())
+				&& filter.acceptTitle(block.getTitle())) {
+			return true;
+		}
+		skippedPage = pageId;
+		return false;
+	}
+
+	/** Fill the value with the i-th revision of the block */
+	protected void fill(BinaryRevisionBlock block, int i, VALUE value)
+			throws IOException {
+		block.fill(i, value, textView);
+	}
+
+	private boolean readBlock() throws IOException {
+		long blockStart = in.getPos();
+		if (blockStart >= end && !owning) {
+			return false;
+		}
+		int n = 0;
+		int r;
+		while (n < prefix.length
+				&& (r = in.read(prefix, n, prefix.length - n)) > 0) {
+			n += r;
+		}
+		if (n == 0) {
+			return false;
+		}
+		if (n < prefix.length || !isSync(prefix)) {
+			throw new IOException("Corrupted block at " + blockStart);
+		}
+		int headerSize = readInt(prefix, sync.length);
+		int contributorsSize = readInt(prefix, sync.length + 4);
+		int bodySize = readInt(prefix, sync.length + 8);
+		int rawBodySize = readInt(prefix, sync.length + 12);
+		long blockEnd = blockStart + prefix.length + headerSize
+				+ contributorsSize + bodySize;
+
+		block.readHeader(readSection(headerSize), headerSize, version);
+		if (block.isContinued() ? !owning : blockStart >= end) {
+			// the block continues a page of the previous split, or starts
+			// a page of the next one
+			in.seek(blockEnd);
+			next = block.size();
+			return blockStart < end;
+		}
+		owning = true;
+		if (!acceptPage()) {
+			in.seek(blockEnd);
+			next = block.size();
+			return true;
+		}
+		if (readsContributors) {
+			block.readContributors(readSection(contributorsSize),
+					contributorsSize);
+		} else {
+			in.seek(in.getPos() + contributorsSize);
+		}
+		if (readsBody) {
+			block.readBody(new BoundedInputStream(in, bodySize), rawBodySize,
+					codec, decompressor, readsComments);
+		}
+		in.seek(blockEnd);
+		next = 0;
+		return true;
+	}
+
+	private boolean isSync(byte[] b) {
+		for (int i = 0; i < sync.length; i++) {
+			if (b[i] != sync[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private byte[] readSection(int size) throws IOException {
+		if (section.length < size) {
+			section = new byte[Math.max(size, section.length * 2)];
+		}
+		in.readFully(section, 0, size);
+		return section;
+	}
+
+	private static int readInt(byte[] b, int off) {
+		return ((b[off] & 0xff) << 24) | ((b[off + 1] & 0xff) << 16)
+				| ((b[off + 2] & 0xff) << 8) | (b[off + 3] & 0xff);
+	}
+
+	@Override
+	public LongWritable getCurrentKey() throws IOException,
+			InterruptedException {
+		return key;
+	}
+
+	@Override
+	public VALUE getCurrentValue() throws IOException, InterruptedException {
+		return value;
+	}
+
+	@Override
+	public float getProgress() throws IOException, InterruptedException {
+		if (end == start) {
+			return 0f;
+		}
+		float progress = (in.getPos() - start) / (float) (end - start);
+		return Math.max(0f, Math.min(1f, progress));
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			if (context != null) {
+				filter.report(context);
+			}
+			if (in != null) {
+				in.close();
+			}
+		} finally {
+			if (decompressor != null) {
+				CodecPool.returnDecompressor(decompressor);
+				decompressor = null;
+			}
+		}
+	}
+}
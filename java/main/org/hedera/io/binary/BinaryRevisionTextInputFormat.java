@@ -0,0 +1,29 @@
+package org.hedera.io.binary;
+
+import org.hedera.io.Revision;
+
+/**
+ * Reads the revisions and their texts from binary revision files, as
+ * {@link org.hedera.io.input.WikiRevisionPageInputFormat} does from dumps.
+ * The contributors are skipped over.
+ *
+ * @author tuan
+ */
+public class BinaryRevisionTextInputFormat
+		extends BinaryRevisionInputFormat<Revision> {
+
+	@Override
+	protected Revision newValue() {
+		return new Revision();
+	}
+
+	@Override
+	protected boolean readsText() {
+		return true;
+	}
+
+	@Override
+	protected boolean readsContributors() {
+		return false;
+	}
+}
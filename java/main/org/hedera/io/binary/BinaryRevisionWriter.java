@@ -0,0 +1,243 @@
+package org.hedera.io.binary;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+import org.apache.hadoop.io.compress.Compressor;
+import org.hedera.io.FullRevision;
+
+/**
+ * Writes revisions to a binary revision file (see {@link BinaryRevisionFile}).
+ * The revisions of a page must come one after the other, as in the dumps: a
+ * block is written when the page changes, or when the texts of the block
+ * reach the block size, so that the history of a large page spans several
+ * blocks. With a keyframe interval, the texts between two keyframes are
+ * stored as their deltas against the previous text.
+ *
+ * @author tuan
+ */
+public class BinaryRevisionWriter implements Closeable {
+
+	private static final byte[] NO_TEXT = new byte[0];
+
+	private final DataOutputStream out;
+	private final byte[] sync;
+	private final int blockSize;
+	private final int keyframes;
+
+	// null when the bodies are stored raw
+	private final CompressionCodec codec;
+	private Compressor compressor;
+
+	// the page of the block being filled, and its columns
+	private int count;
+	private boolean continued;
+	private long pageId;
+	private int namespace;
+	private String title;
+	private long lastRevisionId;
+	private long lastTimestamp;
+	private int minorBits;
+
+	private final DataOutputBuffer revisionIds = new DataOutputBuffer();
+	private final DataOutputBuffer parentIds = new DataOutputBuffer();
+	private final DataOutputBuffer timestamps = new DataOutputBuffer();
+	private final DataOutputBuffer lengths = new DataOutputBuffer();
+	private final DataOutputBuffer textLengths = new DataOutputBuffer();
+	private final DataOutputBuffer minors = new DataOutputBuffer();
+
+	private final Map<String, Integer> userIndex = new HashMap<>();
+	private final DataOutputBuffer users = new DataOutputBuffer();
+	private final DataOutputBuffer userRefs = new DataOutputBuffer();
+
+	private final DataOutputBuffer storedSizes = new DataOutputBuffer();
+	private final DataOutputBuffer texts = new DataOutputBuffer();
+	private final DataOutputBuffer previous = new DataOutputBuffer();
+	private final TextDelta delta = new TextDelta();
+	private final DataOutputBuffer comments = new DataOutputBuffer();
+
+	// the sections of the block being written
+	private final DataOutputBuffer header = new DataOutputBuffer();
+	private final DataOutputBuffer contributors = new DataOutputBuffer();
+	private final DataOutputBuffer body = new DataOutputBuffer();
+
+	/**
+	 * @param keyframes the interval of the texts stored whole, or 0 to store
+	 * all the texts whole
+	 */
+	public BinaryRevisionWriter(OutputStream out, CompressionCodec codec,
+			int blockSize, int keyframes) throws IOException {
+		this.out = new DataOutputStream(out);
+		this.codec = codec;
+		this.blockSize = blockSize;
+		this.keyframes = keyframes;
+		this.sync = BinaryRevisionFile.newSync();
+		if (codec != null) {
+			compressor = CodecPool.getCompressor(codec);
+		}
+		new BinaryRevisionFile(codec == null ? "" : codec.getClass().getName(),
+				sync).write(this.out);
+	}
+
+	public void append(FullRevision rev) throws IOException {
+		if (count > 0 && rev.getPageId() != pageId) {
+			flush();
+			continued = false;
+		} else if (count > 0 && texts.getLength() >= blockSize) {
+			flush();
+			continued = true;
+		}
+		if (count == 0) {
+			pageId = rev.getPageId();
+			namespace = rev.getNamespace();
+			title = rev.getPageTitle();
+			lastRevisionId = lastTimestamp = 0;
+		}
+
+		WritableUtils.writeVLong(revisionIds, rev.getRevisionId() - lastRevisionId);
+		WritableUtils.writeVLong(parentIds, rev.getRevisionId() - rev.getParentId());
+		WritableUtils.writeVLong(timestamps, rev.getTimestamp() - lastTimestamp);
+		lastRevisionId = rev.getRevisionId();
+		lastTimestamp = rev.getTimestamp();
+
+		byte[] text = (rev.getTextBuffer() == null) ? NO_TEXT
+				: rev.getTextBuffer();
+		int offset = rev.getTextOffset();
+		int length = (rev.getTextBuffer() == null) ? 0 : rev.getTextLength();
+		WritableUtils.writeVInt(lengths, rev.getLength());
+		WritableUtils.writeVInt(textLengths, length);
+		if (keyframes == 0) {
+			texts.write(text, offset, length);
+		} else {
+			int stored = texts.getLength();
+			if (count % keyframes == 0) {
+				texts.write(text, offset, length);
+			} else {
+				delta.encode(previous.getData(), 0, previous.getLength(), text,
+						offset, length, texts);
+			}
+			WritableUtils.writeVInt(storedSizes, texts.getLength() - stored);
+			previous.reset();
+			previous.write(text, offset, length);
+		}
+
+		if (rev.isMinor()) {
+			minorBits |= 1 << (count & 7);
+		}
+		if ((count & 7) == 7) {
+			minors.writeByte(minorBits);
+			minorBits = 0;
+		}
+
+		// the names have no tab, the anonymous users no name
+		String user = (rev.getUser() == null) ? String.valueOf(rev.getUserId())
+				: rev.getUserId() + "\t" + rev.getUser();
+		Integer ref = userIndex.get(user);
+		if (ref == null) {
+			ref = userIndex.size();
+			userIndex.put(user, ref);
+			WritableUtils.writeVLong(users, rev.getUserId());
+			writeString(users, rev.getUser());
+		}
+		WritableUtils.writeVInt(userRefs, ref);
+		writeString(comments, rev.getComment());
+		count++;
+	}
+
+	/** Write a string that may be null */
+	static void writeString(DataOutputBuffer out, String s) throws IOException {
+		if (s == null) {
+			out.writeBoolean(false);
+		} else {
+			out.writeBoolean(true);
+			Text.writeString(out, s);
+		}
+	}
+
+	private void flush() throws IOException {
+		if ((count & 7) != 0) {
+			minors.writeByte(minorBits);
+		}
+
+		header.reset();
+		WritableUtils.writeVLong(header, pageId);
+		WritableUtils.writeVInt(header, namespace);
+		writeString(header, title);
+		WritableUtils.writeVInt(header, count);
+		header.writeBoolean(continued);
+		WritableUtils.writeVInt(header, keyframes);
+		for (DataOutputBuffer column : new DataOutputBuffer[] {revisionIds,
+				parentIds, timestamps, lengths, textLengths, minors}) {
+			header.write(column.getData(), 0, column.getLength());
+		}
+
+		contributors.reset();
+		WritableUtils.writeVInt(contributors, userIndex.size());
+		contributors.write(users.getData(), 0, users.getLength());
+		contributors.write(userRefs.getData(), 0, userRefs.getLength());
+
+		body.reset();
+		int rawBodySize = storedSizes.getLength() + texts.getLength()
+				+ comments.getLength();
+		if (codec == null) {
+			writeBody(body);
+		} else {
+			if (compressor != null) {
+				compressor.reset();
+			}
+			CompressionOutputStream cout = codec.createOutputStream(body,
+					compressor);
+			writeBody(cout);
+			cout.finish();
+		}
+
+		out.write(sync);
+		out.writeInt(header.getLength());
+		out.writeInt(contributors.getLength());
+		out.writeInt(body.getLength());
+		out.writeInt(rawBodySize);
+		out.write(header.getData(), 0, header.getLength());
+		out.write(contributors.getData(), 0, contributors.getLength());
+		out.write(body.getData(), 0, body.getLength());
+
+		count = 0;
+		minorBits = 0;
+		for (DataOutputBuffer column : new DataOutputBuffer[] {revisionIds,
+				parentIds, timestamps, lengths, textLengths, minors, users, userRefs,
+				storedSizes, texts, comments}) {
+			column.reset();
+		}
+		userIndex.clear();
+	}
+
+	private void writeBody(OutputStream s) throws IOException {
+		s.write(storedSizes.getData(), 0, storedSizes.getLength());
+		s.write(texts.getData(), 0, texts.getLength());
+		s.write(comments.getData(), 0, comments.getLength());
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			if (count > 0) {
+				flush();
+			}
+			out.close();
+		} finally {
+			if (compressor != null) {
+				CodecPool.returnCompressor(compressor);
+				compressor = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package org.hedera.io.binary;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Binary delta of a revision text against the previous one, as a sequence
+ * of operations producing the text: copy a range of the previous text, or
+ * add new bytes. Each operation starts with a varint holding its length and
+ * type, followed by the offset of the copied range, or the added bytes.
+ * The length of the text is known to the reader, there is no end marker.
+ *
+ * The encoder copies the common prefix and suffix, then finds the copies
+ * in the rest by hashing the previous text in blocks of {@link #BLOCK}
+ * bytes (as rsync and xdelta do), and extends each match both ways. An
+ * edit in the middle of a page thus costs a few bytes beyond the new text.
+ * The encoder reuses its hash table, it is not thread-safe.
+ *
+ * @author tuan
+ */
+public final class TextDelta {
+
+	public static final int BLOCK = 16;
+
+	private static final int COPY = 0;
+	private static final int ADD = 1;
+
+	// multiplier of the rolling hash, and its power BLOCK
+	private static final int P = 0x01000193;
+	private static final int P_BLOCK;
+	static {
+		int p = 1;
+		for (int i = 0; i < BLOCK; i++) {
+			p *= P;
+		}
+		P_BLOCK = p;
+	}
+
+	// offset + 1 of a block of the previous text by hash, 0 if none
+	private int[] table = new int[1024];
+
+	/** Receives the edits of a delta, see {@link TextDelta#edits} */
+	public interface EditHandler {
+
+		/** The range [baseFrom, baseTo) of the previous text is replaced by
+		 * the range [from, to) of the new one. Either may be empty */
+		void edit(int baseFrom, int baseTo, int from, int to) throws IOException;
+	}
+
+	/** Write the delta of target[off, off + len) against the previous text
+	 * base[baseOff, baseOff + baseLen) */
+	public void encode(byte[] base, int baseOff, int baseLen, byte[] target,
+			int off, int len, DataOutput out) throws IOException {
+		int max = Math.min(baseLen, len);
+		int prefix = 0;
+		while (prefix < max && base[baseOff + prefix] == target[off + prefix]) {
+			prefix++;
+		}
+		int suffix = 0;
+		while (suffix < max - prefix && base[baseOff + baseLen - suffix - 1]
+				== target[off + len - suffix - 1]) {
+			suffix++;
+		}
+		copy(out, 0, prefix);
+		encodeMiddle(base, baseOff, baseOff + prefix,
+				baseOff + baseLen - suffix, target, off + prefix,
+				off + len - suffix, out);
+		copy(out, baseLen - suffix, suffix);
+	}
+
+	private void encodeMiddle(byte[] base, int baseOff, int baseFrom,
+			int baseTo, byte[] target, int from, int to, DataOutput out)
+					throws IOException {
+		if (to - from < BLOCK || baseTo - baseFrom < BLOCK) {
+			add(out, target, from, to - from);
+			return;
+		}
+
+		// index the blocks of the previous text
+		int blocks = (baseTo - baseFrom) / BLOCK;
+		int size = Integer.highestOneBit(Math.max(blocks * 2 - 1, 1)) << 1;
+		if (table.length < size) {
+			table = new int[size];
+		}
+		int mask = size - 1;
+		Arrays.fill(table, 0, size, 0);
+		for (int b = baseFrom; b + BLOCK <= baseTo; b += BLOCK) {
+			table[hash(base, b) & mask] = b + 1;
+		}
+
+		int pending = from;
+		int i = from;
+		int h = hash(target, i);
+		while (i + BLOCK <= to) {
+			int candidate = table[h & mask] - 1;
+			if (candidate >= 0 && matches(base, candidate, target, i)) {
+				int bs = candidate;
+				int ts = i;
+				while (ts > pending && bs > baseFrom
+						&& base[bs - 1] == target[ts - 1]) {
+					bs--;
+					ts--;
+				}
+				int be = candidate + BLOCK;
+				int te = i + BLOCK;
+				while (te < to && be < baseTo && base[be] == target[te]) {
+					be++;
+					te++;
+				}
+				add(out, target, pending, ts - pending);
+				copy(out, bs - baseOff, be - bs);
+				pending = i = te;
+				if (i + BLOCK <= to) {
+					h = hash(target, i);
+				}
+				continue;
+			}
+			if (i + BLOCK < to) {
+				h = h * P + target[i + BLOCK] - target[i] * P_BLOCK;
+			}
+			i++;
+		}
+		add(out, target, pending, to - pending);
+	}
+
+	private static int hash(byte[] b, int off) {
+		int h = 0;
+		for (int i = 0; i < BLOCK; i++) {
+			h = h * P + b[off + i];
+		}
+		return h;
+	}
+
+	private static boolean matches(byte[] base, int b, byte[] target, int t) {
+		for (int i = 0; i < BLOCK; i++) {
+			if (base[b + i] != target[t + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void copy(DataOutput out, int offset, int len)
+			throws IOException {
+		if (len > 0) {
+			WritableUtils.writeVLong(out, ((long) len << 1) | COPY);
+			WritableUtils.writeVInt(out, offset);
+		}
+	}
+
+	private static void add(DataOutput out, byte[] b, int off, int len)
+			throws IOException {
+		if (len > 0) {
+			WritableUtils.writeVLong(out, ((long) len << 1) | ADD);
+			out.write(b, off, len);
+		}
+	}
+
+	/** Write the text of len bytes at out[off] from its delta against the
+	 * previous text, at base[baseOff] */
+	public static void apply(byte[] base, int baseOff, DataInput delta,
+			byte[] out, int off, int len) throws IOException {
+		int p = off;
+		int end = off + len;
+		while (p < end) {
+			long op = WritableUtils.readVLong(delta);
+			int n = (int) (op >>> 1);
+			if ((op & 1) == COPY) {
+				System.arraycopy(base, baseOff + WritableUtils.readVInt(delta),
+						out, p, n);
+			} else {
+				delta.readFully(out, p, n);
+			}
+			p += n;
+		}
+	}
+
+	/**
+	 * Report the edits of a delta, in the order of the new text, without
+	 * applying it: the ranges of the previous text that are not copied in
+	 * order, with the ranges of the new text between the copies. The text
+	 * copied out of order (moved) counts as new.
+	 */
+	public static void edits(DataInput delta, int baseLen, int len,
+			EditHandler handler) throws IOException {
+		int basePos = 0;
+		int p = 0;
+		int editFrom = 0;
+		while (p < len) {
+			long op = WritableUtils.readVLong(delta);
+			int n = (int) (op >>> 1);
+			if ((op & 1) == COPY) {
+				int offset = WritableUtils.readVInt(delta);
+				if (offset >= basePos) {
+					if (offset > basePos || p > editFrom) {
+						handler.edit(basePos, offset, editFrom, p);
+					}
+					basePos = offset + n;
+					editFrom = p + n;
+				}
+			} else {
+				delta.skipBytes(n);
+			}
+			p += n;
+		}
+		if (basePos < baseLen || p > editFrom) {
+			handler.edit(basePos, baseLen, editFrom, p);
+		}
+	}
+}
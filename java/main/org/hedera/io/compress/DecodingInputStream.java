@@ -0,0 +1,66 @@
+package org.hedera.io.compress;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.hadoop.io.compress.CompressionInputStream;
+
+/**
+ * A decoding stream of a third-party library, seen as a Hadoop compression
+ * stream: the position is that of the compressed stream, as with the codecs
+ * of Hadoop. Resetting the stream opens a new decoder on the compressed
+ * stream, from its current position.
+ *
+ * @author tuan
+ */
+class DecodingInputStream extends CompressionInputStream {
+
+	/** Opens the decoding stream of the library on a compressed stream */
+	interface Decoder {
+		InputStream open(InputStream in) throws IOException;
+	}
+
+	private final Decoder decoder;
+
+	// the compressed stream as seen by the decoders, which do not close it
+	private final InputStream shielded;
+	private InputStream decoding;
+
+	/**
+	 * @param in the compressed stream
+	 * @param decoder the decoder of the library
+	 */
+	DecodingInputStream(InputStream in, Decoder decoder) throws IOException {
+		super(in);
+		this.decoder = decoder;
+		this.shielded = new FilterInputStream(in) {
+			@Override
+			public void close() {
+			}
+		};
+		this.decoding = decoder.open(shielded);
+	}
+
+	@Override
+	public int read() throws IOException {
+		return decoding.read();
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		return decoding.read(b, off, len);
+	}
+
+	@Override
+	public void resetState() throws IOException {
+		decoding.close();
+		decoding = decoder.open(shielded);
+	}
+
+	@Override
+	public void close() throws IOException {
+		decoding.close();
+		super.close();
+	}
+}
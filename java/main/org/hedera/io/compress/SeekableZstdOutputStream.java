@@ -0,0 +1,109 @@
+package org.hedera.io.compress;
+
+import static org.hedera.io.compress.ZstdSeekTable.FOOTER_SIZE;
+import static org.hedera.io.compress.ZstdSeekTable.SEEKABLE_MAGIC;
+import static org.hedera.io.compress.ZstdSeekTable.SKIPPABLE_MAGIC;
+import static org.hedera.io.compress.ZstdSeekTable.writeInt;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+
+import com.github.luben.zstd.Zstd;
+
+/**
+ * Writes a seekable zstd file: the data is compressed in independent frames
+ * of a fixed decompressed size, and the seek table listing them is written
+ * when finishing (see {@link ZstdSeekTable}).
+ *
+ * @author tuan
+ */
+class SeekableZstdOutputStream extends CompressionOutputStream {
+
+	private final int level;
+	private final byte[] frame;
+	private int length;
+
+	private final IntArrayList compressedSizes = new IntArrayList();
+	private final IntArrayList sizes = new IntArrayList();
+	private boolean finished;
+
+	SeekableZstdOutputStream(OutputStream out, int level, int frameSize) {
+		super(out);
+		this.level = level;
+		this.frame = new byte[frameSize];
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (length == frame.length) {
+			flushFrame();
+		}
+		frame[length++] = (byte) b;
+		finished = false;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (length == frame.length) {
+				flushFrame();
+			}
+			int n = Math.min(len, frame.length - length);
+			System.arraycopy(b, off, frame, length, n);
+			length += n;
+			off += n;
+			len -= n;
+		}
+		finished = false;
+	}
+
+	private void flushFrame() throws IOException {
+		if (length == 0) {
+			return;
+		}
+		byte[] compressed = Zstd.compress((length == frame.length) ? frame
+				: Arrays.copyOf(frame, length), level);
+		out.write(compressed);
+		compressedSizes.add(compressed.length);
+		sizes.add(length);
+		length = 0;
+	}
+
+	@Override
+	public void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		flushFrame();
+		int frames = sizes.size();
+		byte[] table = new byte[8 + 8 * frames + FOOTER_SIZE];
+		writeInt(table, 0, SKIPPABLE_MAGIC);
+		writeInt(table, 4, table.length - 8);
+		for (int i = 0; i < frames; i++) {
+			writeInt(table, 8 + 8 * i, compressedSizes.getInt(i));
+			writeInt(table, 12 + 8 * i, sizes.getInt(i));
+		}
+		writeInt(table, table.length - FOOTER_SIZE, frames);
+		table[table.length - 5] = 0;
+		writeInt(table, table.length - 4, SEEKABLE_MAGIC);
+		out.write(table);
+		compressedSizes.clear();
+		sizes.clear();
+		finished = true;
+	}
+
+	@Override
+	public void resetState() throws IOException {
+		finish();
+	}
+
+	@Override
+	public void close() throws IOException {
+		finish();
+		out.close();
+	}
+}
@@ -0,0 +1,246 @@
+package org.hedera.io.compress;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+import org.apache.commons.compress.archivers.sevenz.SevenZArchiveEntry;
+import org.apache.commons.compress.archivers.sevenz.SevenZFile;
+import org.apache.hadoop.fs.Seekable;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionInputStream;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.Decompressor;
+
+/**
+ * Codec of the 7z archives (.7z) in which the full-history dumps are
+ * published. The archive is read from the file opened by the reader: its
+ * headers are at its end, so the file must be seekable. The files of the
+ * archive are read one after the other, as one stream (a dump archive holds
+ * one file). An archive is not split, one reader reads it whole.
+ *
+ * Archives cannot be written, use {@link XZCodec} or {@link ZstdCodec}.
+ *
+ * @author tuan
+ */
+public class SevenZipCodec implements CompressionCodec {
+
+	private static final byte[] SIGNATURE = {'7', 'z', (byte) 0xBC, (byte) 0xAF,
+		0x27, 0x1C};
+	private static final int START_HEADER_SIZE = 32;
+
+	@Override
+	public CompressionOutputStream createOutputStream(OutputStream out) {
+		throw new UnsupportedOperationException("Cannot write 7z archives");
+	}
+
+	@Override
+	public CompressionOutputStream createOutputStream(OutputStream out,
+			Compressor compressor) {
+		return createOutputStream(out);
+	}
+
+	@Override
+	public Class<? extends Compressor> getCompressorType() {
+		return null;
+	}
+
+	@Override
+	public Compressor createCompressor() {
+		return null;
+	}
+
+	@Override
+	public CompressionInputStream createInputStream(InputStream in)
+			throws IOException {
+		if (!(in instanceof Seekable)) {
+			throw new IOException("A 7z archive can only be read from a "
+					+ "seekable stream");
+		}
+		final InputStream file = in;
+		return new DecodingInputStream(in, new DecodingInputStream.Decoder() {
+			@Override
+			public InputStream open(InputStream compressed) throws IOException {
+				// the archive seeks the file itself
+				return entries(new SevenZFile(new ArchiveChannel(file)));
+			}
+		});
+	}
+
+	// the files of the archive, one after the other
+	private static InputStream entries(final SevenZFile archive) {
+		return new InputStream() {
+			private SevenZArchiveEntry entry;
+
+			@Override
+			public int read() throws IOException {
+				byte[] b = new byte[1];
+				return (read(b, 0, 1) == -1) ? -1 : b[0] & 0xff;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				if (len == 0) {
+					return 0;
+				}
+				while (true) {
+					if (entry == null) {
+						do {
+							entry = archive.getNextEntry();
+						} while (entry != null && (entry.isDirectory()
+								|| !entry.hasStream()));
+						if (entry == null) {
+							return -1;
+						}
+					}
+					int n = archive.read(b, off, len);
+					if (n > 0) {
+						return n;
+					}
+					entry = null;
+				}
+			}
+
+			@Override
+			public void close() throws IOException {
+				archive.close();
+			}
+		};
+	}
+
+	@Override
+	public CompressionInputStream createInputStream(InputStream in,
+			Decompressor decompressor) throws IOException {
+		return createInputStream(in);
+	}
+
+	@Override
+	public Class<? extends Decompressor> getDecompressorType() {
+		return null;
+	}
+
+	@Override
+	public Decompressor createDecompressor() {
+		return null;
+	}
+
+	@Override
+	public String getDefaultExtension() {
+		return ".7z";
+	}
+
+	/**
+	 * The archive starting at the current position of a seekable stream, as
+	 * a read-only channel. Its size is read from the start header of the
+	 * archive. The stream is moved by the reads, so that its position tells
+	 * how much of the archive was read.
+	 */
+	private static class ArchiveChannel implements SeekableByteChannel {
+		private final InputStream in;
+		private final long base;
+		private final long size;
+		private long position;
+		private boolean open = true;
+
+		ArchiveChannel(InputStream in) throws IOException {
+			this.in = in;
+			this.base = ((Seekable) in).getPos();
+			byte[] header = new byte[START_HEADER_SIZE];
+			int n = 0;
+			while (n < header.length) {
+				int r = in.read(header, n, header.length - n);
+				if (r < 0) {
+					throw new EOFException("Truncated 7z archive");
+				}
+				n += r;
+			}
+			for (int i = 0; i < SIGNATURE.length; i++) {
+				if (header[i] != SIGNATURE[i]) {
+					throw new IOException("Not a 7z archive");
+				}
+			}
+			this.size = START_HEADER_SIZE + littleEndian(header, 12)
+					+ littleEndian(header, 20);
+			this.position = START_HEADER_SIZE;
+		}
+
+		private static long littleEndian(byte[] b, int off) {
+			long value = 0;
+			for (int i = 7; i >= 0; i--) {
+				value = (value << 8) | (b[off + i] & 0xff);
+			}
+			return value;
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			if (position >= size) {
+				return -1;
+			}
+			int len = (int) Math.min(dst.remaining(), size - position);
+			if (len == 0) {
+				return 0;
+			}
+			((Seekable) in).seek(base + position);
+			int n;
+			if (dst.hasArray()) {
+				n = in.read(dst.array(), dst.arrayOffset() + dst.position(), len);
+				if (n > 0) {
+					dst.position(dst.position() + n);
+				}
+			} else {
+				byte[] b = new byte[len];
+				n = in.read(b, 0, len);
+				if (n > 0) {
+					dst.put(b, 0, n);
+				}
+			}
+			if (n > 0) {
+				position += n;
+			}
+			return n;
+		}
+
+		@Override
+		public int write(ByteBuffer src) {
+			throw new NonWritableChannelException();
+		}
+
+		@Override
+		public long position() {
+			return position;
+		}
+
+		@Override
+		public SeekableByteChannel position(long newPosition) {
+			position = newPosition;
+			return this;
+		}
+
+		@Override
+		public long size() {
+			return size;
+		}
+
+		@Override
+		public SeekableByteChannel truncate(long size) {
+			throw new NonWritableChannelException();
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		// the stream is closed by the reader that opened it
+		@Override
+		public void close() {
+			open = false;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package org.hedera.io.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionInputStream;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZInputStream;
+import org.tukaani.xz.XZOutputStream;
+
+/**
+ * Codec of the xz files (.xz), decompressed as a stream: such a file is not
+ * split, one reader reads it whole. There is no compressor nor decompressor
+ * to pool, the streams hold their own state. Resetting a written stream
+ * ends the current xz stream and starts another one, as xz files can be
+ * made of concatenated streams.
+ *
+ * @author tuan
+ */
+public class XZCodec extends Configured implements CompressionCodec {
+
+	// LZMA2 preset of the written files, from 0 (fastest) to 9 (smallest)
+	public static final String XZ_PRESET = "org.hedera.xz.preset";
+	public static final int DEFAULT_XZ_PRESET = 6;
+
+	@Override
+	public CompressionOutputStream createOutputStream(OutputStream out)
+			throws IOException {
+		Configuration conf = getConf();
+		int preset = (conf == null) ? DEFAULT_XZ_PRESET
+				: conf.getInt(XZ_PRESET, DEFAULT_XZ_PRESET);
+		final LZMA2Options options = new LZMA2Options(preset);
+		return new CompressionOutputStream(out) {
+			private XZOutputStream encoder = new XZOutputStream(out, options);
+
+			@Override
+			public void write(int b) throws IOException {
+				encoder.write(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				encoder.write(b, off, len);
+			}
+
+			@Override
+			public void finish() throws IOException {
+				encoder.finish();
+			}
+
+			@Override
+			public void resetState() throws IOException {
+				encoder.finish();
+				encoder = new XZOutputStream(out, options);
+			}
+
+			@Override
+			public void close() throws IOException {
+				encoder.close();
+			}
+		};
+	}
+
+	@Override
+	public CompressionOutputStream createOutputStream(OutputStream out,
+			Compressor compressor) throws IOException {
+		return createOutputStream(out);
+	}
+
+	@Override
+	public Class<? extends Compressor> getCompressorType() {
+		return null;
+	}
+
+	@Override
+	public Compressor createCompressor() {
+		return null;
+	}
+
+	@Override
+	public CompressionInputStream createInputStream(InputStream in)
+			throws IOException {
+		return new DecodingInputStream(in, new DecodingInputStream.Decoder() {
+			@Override
+			public InputStream open(InputStream compressed) throws IOException {
+				return new XZInputStream(compressed);
+			}
+		});
+	}
+
+	@Override
+	public CompressionInputStream createInputStream(InputStream in,
+			Decompressor decompressor) throws IOException {
+		return createInputStream(in);
+	}
+
+	@Override
+	public Class<? extends Decompressor> getDecompressorType() {
+		return null;
+	}
+
+	@Override
+	public Decompressor createDecompressor() {
+		return null;
+	}
+
+	@Override
+	public String getDefaultExtension() {
+		return ".xz";
+	}
+}
@@ -0,0 +1,100 @@
+package org.hedera.io.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionInputStream;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.Decompressor;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+/**
+ * Codec of the zstd files (.zst). Any zstd file is read as a stream, by one
+ * reader. The files written are seekable: they are made of independent
+ * frames listed in a seek table (see {@link ZstdSeekTable}), and the input
+ * formats cut them along their frames (see {@link ZstdFrameInputStream}).
+ * This is the recommended format to recompress the dumps to.
+ *
+ * There is no compressor nor decompressor to pool, the streams hold their
+ * own state.
+ *
+ * @author tuan
+ */
+public class ZstdCodec extends Configured implements CompressionCodec {
+
+	// Compression level of the written files, from 1 to 22
+	public static final String ZSTD_LEVEL = "org.hedera.zstd.level";
+	public static final int DEFAULT_ZSTD_LEVEL = 9;
+
+	// Decompressed size in bytes of the frames of the written files: the
+	// smallest unit a reader can start at
+	public static final String ZSTD_FRAME_SIZE = "org.hedera.zstd.framesize";
+	public static final int DEFAULT_ZSTD_FRAME_SIZE = 4 << 20;
+
+	@Override
+	public CompressionOutputStream createOutputStream(OutputStream out)
+			throws IOException {
+		Configuration conf = getConf();
+		if (conf == null) {
+			return new SeekableZstdOutputStream(out, DEFAULT_ZSTD_LEVEL,
+					DEFAULT_ZSTD_FRAME_SIZE);
+		}
+		return new SeekableZstdOutputStream(out,
+				conf.getInt(ZSTD_LEVEL, DEFAULT_ZSTD_LEVEL),
+				conf.getInt(ZSTD_FRAME_SIZE, DEFAULT_ZSTD_FRAME_SIZE));
+	}
+
+	@Override
+	public CompressionOutputStream createOutputStream(OutputStream out,
+			Compressor compressor) throws IOException {
+		return createOutputStream(out);
+	}
+
+	@Override
+	public Class<? extends Compressor> getCompressorType() {
+		return null;
+	}
+
+	@Override
+	public Compressor createCompressor() {
+		return null;
+	}
+
+	@Override
+	public CompressionInputStream createInputStream(InputStream in)
+			throws IOException {
+		return new DecodingInputStream(in, new DecodingInputStream.Decoder() {
+			@Override
+			public InputStream open(InputStream compressed) throws IOException {
+				return new ZstdInputStream(compressed);
+			}
+		});
+	}
+
+	@Override
+	public CompressionInputStream createInputStream(InputStream in,
+			Decompressor decompressor) throws IOException {
+		return createInputStream(in);
+	}
+
+	@Override
+	public Class<? extends Decompressor> getDecompressorType() {
+		return null;
+	}
+
+	@Override
+	public Decompressor createDecompressor() {
+		return null;
+	}
+
+	@Override
+	public String getDefaultExtension() {
+		return ".zst";
+	}
+}
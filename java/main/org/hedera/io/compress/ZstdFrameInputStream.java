@@ -0,0 +1,113 @@
+package org.hedera.io.compress;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Seekable;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.hedera.util.BoundedInputStream;
+
+/**
+ * Reads a seekable zstd file from the first frame starting at or after an
+ * offset, each frame decompressed on its own (see {@link ZstdSeekTable}).
+ * The frames are read on till the end of the file, or till the reader
+ * stops, so that the page running over the end of a split is read whole.
+ *
+ * A read never spans two frames, and the position is the offset of the
+ * frame holding the bytes last read: as with the blocks of bzip2, a page
+ * belongs to the split in which the frame holding its start tag starts.
+ *
+ * This stream cannot seek.
+ *
+ * @author tuan
+ */
+public class ZstdFrameInputStream extends InputStream implements Seekable {
+
+	private final FSDataInputStream file;
+	private final CompressionCodec codec;
+	private final ZstdSeekTable table;
+
+	// the next frame to decompress
+	private int frame;
+	private InputStream cin;
+	private long pos;
+
+	public ZstdFrameInputStream(FSDataInputStream file, CompressionCodec codec,
+			ZstdSeekTable table, long start) throws IOException {
+		this.file = file;
+		this.codec = codec;
+		this.table = table;
+		this.frame = table.firstFrameFrom(start);
+		this.pos = start;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		while (true) {
+			if (cin == null && !nextFrame()) {
+				return -1;
+			}
+			int n = cin.read(b, off, len);
+			if (n > 0) {
+				return n;
+			}
+			cin.close();
+			cin = null;
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		while (true) {
+			if (cin == null && !nextFrame()) {
+				return -1;
+			}
+			int b = cin.read();
+			if (b >= 0) {
+				return b;
+			}
+			cin.close();
+			cin = null;
+		}
+	}
+
+	private boolean nextFrame() throws IOException {
+		if (frame >= table.getFrameCount()) {
+			return false;
+		}
+		long start = table.getFrameStart(frame);
+		file.seek(start);
+		cin = codec.createInputStream(new BoundedInputStream(file,
+				table.getFrameEnd(frame) - start));
+		pos = start;
+		frame++;
+		return true;
+	}
+
+	@Override
+	public long getPos() {
+		return pos;
+	}
+
+	@Override
+	public void seek(long p) throws IOException {
+		throw new IOException("Cannot seek a zstd split");
+	}
+
+	@Override
+	public boolean seekToNewSource(long p) {
+		return false;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (cin != null) {
+			cin.close();
+		}
+		file.close();
+	}
+}
@@ -0,0 +1,107 @@
+package org.hedera.io.compress;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.fs.PositionedReadable;
+
+/**
+ * The seek table of a seekable zstd file: the file is a sequence of
+ * independent zstd frames, followed by a skippable frame listing their
+ * compressed and decompressed sizes, as in the seekable format of zstd
+ * (contrib/seekable_format). Any zstd decoder reads such a file as a whole,
+ * and a reader can start at any frame.
+ *
+ * The table frame is: magic 0x184D2A5E, size of the rest of the frame, one
+ * entry (compressed size, decompressed size, optional checksum) per frame,
+ * then the footer (number of frames, descriptor, magic 0x8F92EAB1). All
+ * numbers are 4-byte little-endian.
+ *
+ * @author tuan
+ */
+public class ZstdSeekTable {
+
+	public static final int SKIPPABLE_MAGIC = 0x184D2A5E;
+	public static final int SEEKABLE_MAGIC = 0x8F92EAB1;
+	public static final int FOOTER_SIZE = 9;
+
+	// descriptor flag telling that the entries have a checksum
+	public static final int CHECKSUM_FLAG = 0x80;
+
+	// the offsets of the frames, and that of the end of the last one
+	private final long[] offsets;
+
+	ZstdSeekTable(long[] offsets) {
+		this.offsets = offsets;
+	}
+
+	/**
+	 * Read the seek table at the end of a file of the given length. Returns
+	 * null if the file has none, or if the table does not list the frames
+	 * from the start of the file (e.g. concatenated seekable files)
+	 */
+	public static ZstdSeekTable read(PositionedReadable in, long length)
+			throws IOException {
+		if (length < FOOTER_SIZE + 8) {
+			return null;
+		}
+		byte[] footer = new byte[FOOTER_SIZE];
+		in.readFully(length - FOOTER_SIZE, footer, 0, FOOTER_SIZE);
+		int descriptor = footer[4] & 0xff;
+		if (readInt(footer, 5) != SEEKABLE_MAGIC || (descriptor & 0x7C) != 0) {
+			return null;
+		}
+		long frames = readInt(footer, 0) & 0xffffffffL;
+		int entrySize = ((descriptor & CHECKSUM_FLAG) != 0) ? 12 : 8;
+		long tableStart = length - FOOTER_SIZE - frames * entrySize - 8;
+		if (tableStart < 0) {
+			return null;
+		}
+		byte[] table = new byte[(int) (length - tableStart)];
+		in.readFully(tableStart, table, 0, table.length);
+		if (readInt(table, 0) != SKIPPABLE_MAGIC
+				|| readInt(table, 4) != table.length - 8) {
+			return null;
+		}
+		long[] offsets = new long[(int) frames + 1];
+		for (int i = 0; i < frames; i++) {
+			offsets[i + 1] = offsets[i]
+					+ (readInt(table, 8 + i * entrySize) & 0xffffffffL);
+		}
+		if (offsets[(int) frames] != tableStart) {
+			return null;
+		}
+		return new ZstdSeekTable(offsets);
+	}
+
+	static int readInt(byte[] b, int off) {
+		return (b[off] & 0xff) | (b[off + 1] & 0xff) << 8
+				| (b[off + 2] & 0xff) << 16 | (b[off + 3] & 0xff) << 24;
+	}
+
+	static void writeInt(byte[] b, int off, int value) {
+		b[off] = (byte) value;
+		b[off + 1] = (byte) (value >>> 8);
+		b[off + 2] = (byte) (value >>> 16);
+		b[off + 3] = (byte) (value >>> 24);
+	}
+
+	public int getFrameCount() {
+		return offsets.length - 1;
+	}
+
+	public long getFrameStart(int i) {
+		return offsets[i];
+	}
+
+	public long getFrameEnd(int i) {
+		return offsets[i + 1];
+	}
+
+	/** The first frame starting at or after the offset, or the number of
+	 * frames if there is none */
+	public int firstFrameFrom(long offset) {
+		int i = Arrays.binarySearch(offsets, 0, offsets.length - 1, offset);
+		return (i >= 0) ? i : -i - 1;
+	}
+}
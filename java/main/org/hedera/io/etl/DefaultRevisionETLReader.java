@@ -2,27 +2,32 @@ package org.hedera.io.etl;
 
 import static org.hedera.io.input.WikiRevisionInputFormat.SKIP_NON_ARTICLES;
 import static org.hedera.io.input.WikiRevisionInputFormat.SKIP_REDIRECT;
-import static org.hedera.io.input.WikiRevisionInputFormat.START_TITLE;
-import static org.hedera.io.input.WikiRevisionInputFormat.END_TITLE;
-import static org.hedera.io.input.WikiRevisionInputFormat.START_NAMESPACE;
-import static org.hedera.io.input.WikiRevisionInputFormat.END_NAMESPACE;
-import static org.hedera.io.input.WikiRevisionInputFormat.START_ID;
-import static org.hedera.io.input.WikiRevisionInputFormat.END_ID;
-import static org.hedera.io.input.WikiRevisionInputFormat.START_REVISION;
-import static org.hedera.io.input.WikiRevisionInputFormat.START_REDIRECT;
+import static org.hedera.io.input.DumpTags.TITLE_START;
+import static org.hedera.io.input.DumpTags.NS_START;
+import static org.hedera.io.input.DumpTags.ID_START;
+import static org.hedera.io.input.DumpTags.REVISION_START;
+import static org.hedera.io.input.DumpTags.REDIRECT_START;
+import static org.hedera.io.input.DumpTags.CONTRIBUTOR_START;
+import static org.hedera.io.input.DumpTags.MINOR;
+import static org.hedera.io.input.DumpTags.TEXT_START;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.log4j.Logger;
+import org.hedera.io.FullRevision;
 import org.hedera.io.RevisionHeader;
-import org.mortbay.log.Log;
+import org.hedera.io.input.RevisionFilter;
+import org.hedera.io.input.StreamSplit;
+import org.hedera.util.ByteParser;
 
 /**
  * A default WikiRevisionETLReader that extracts title, page id, namespace
- * from the page header
+ * from the page header. The pages and revisions are selected by the options
+ * of the input formats (see {@link RevisionFilter}), as they are read
  */
 public abstract class DefaultRevisionETLReader<KEYIN, VALUEIN> extends
 		RevisionETLReader<KEYIN, VALUEIN, RevisionHeader> {
@@ -34,6 +39,9 @@ public abstract class DefaultRevisionETLReader<KEYIN, VALUEIN> extends
 	protected boolean skipNonArticles = false;
 	protected boolean skipRedirect = false;
 
+	// the predicates on the pages and revisions to read
+	protected RevisionFilter filter;
+
 	@Override
 	public void initialize(InputSplit input, TaskAttemptContext tac)
 			throws IOException, InterruptedException {
@@ -42,206 +50,128 @@ public abstract class DefaultRevisionETLReader<KEYIN, VALUEIN> extends
 				.getBoolean(SKIP_NON_ARTICLES, false);
 		skipRedirect = tac.getConfiguration()
 				.getBoolean(SKIP_REDIRECT, false);
+		filter = new RevisionFilter(tac.getConfiguration(), false);
+		if (input instanceof StreamSplit 
+				&& ((StreamSplit) input).getPageIds() != null) {
+			filter.setPageIds(((StreamSplit) input).getPageIds());
+		}
 
 		LOG.info("Splitting option: [skip non-article: "
 				+ skipNonArticles + ", skip redirect: "
 				+ SKIP_REDIRECT + "]");
 	}
 
+	@Override
+	public void close() throws IOException {
+		try {
+			if (filter != null) {
+				filter.report(getTaskAttemptContext());
+			}
+		} finally {
+			super.close();
+		}
+	}
+
 	@Override
 	protected RevisionHeader initializeMeta() {		
 		return new RevisionHeader();		
 	}
 
+	// buffers of the page header, reused across the pages
+	private final DataOutputBuffer pageTitle = new DataOutputBuffer();
+	private final DataOutputBuffer nsBuf = new DataOutputBuffer();
+	private final DataOutputBuffer keyBuf = new DataOutputBuffer();
+
+	// the contributor, only read to be filtered on
+	private final DataOutputBuffer contribBuf = new DataOutputBuffer();
+	private final FullRevision contributor = new FullRevision();
+
 	@Override
 	// Read the page header 
 	// -1: EOF
 	// 1 - outside the <page> tag
-	// 2 - just passed the <page> tag but outside the <title>
-	// 3 - just passed the <title> tag		
-	// 4 - just passed the </title> tag but outside the <namespace>
-	// 5 - just passed the <namespace>
-	// 6 - just passed the </namespace> but outside the <id>
-	// 7 - just passed the (page's) <id>
-	// 8 - just passed the </id> tag but outside the <revision>	
-	// 9 - (optionally) just passed the <redirect>
-	// 10 - just passed the (next) <revision>
+	// 2 - just passed the <page> tag: read the <title> block
+	// 3 - just passed the </title> tag: read the <namespace> block
+	// 4 - just passed the </namespace> tag: read the (page's) <id> block
+	// 5 - just passed the </id> tag but outside the <revision>	
+	// 6 - (optionally) just passed the <redirect>
+	// 7 - just passed the (next) <revision>
 	protected Ack readToPageHeader(RevisionHeader meta) 
 			throws IOException {
-		int i = 0;
-		int flag = 2;		
-		boolean skipped = false;
-		int revOrRedirect = -1;
-		try (DataOutputBuffer pageTitle = new DataOutputBuffer(); 
-				DataOutputBuffer nsBuf = new DataOutputBuffer(); 
-				DataOutputBuffer keyBuf = new DataOutputBuffer()) {
-
-			while (true) {
-				if (!fetchMore()) return Ack.EOF;
-				while (hasData()) {
-					byte b = nextByte();	
-
-					// when passing the namespace and we realize that 
-					// this is not an article, and that the option of skipping
-					// non-article pages is on, we simply skip everything until
-					// the closing </page>				
-					if (skipped) {
-						if (flag >= 6) {
-							Log.warn("Peculiar read after skipping namespace");
-							/* 
-							if (b == END_PAGE[i]) {
-								i++;
-							} else i = 0;
-							if (i >= END_PAGE.length) {
-								return Ack.SKIPPED;
-							} */
-							return Ack.FAILED;
-						} else return Ack.SKIPPED;
-					}
-
-					if (flag == 2) {
-						if (b == START_TITLE[i]) {
-							i++;
-						} else i = 0;
-						if (i >= START_TITLE.length) {
-							flag = 3;
-							i = 0;
-						}
-					}
-
-					// put everything between <title></title> block into title
-					else if (flag == 3) {
-						if (b == END_TITLE[i]) {
-							i++;
-						} else i = 0;
-						pageTitle.write(b);
-						if (i >= END_TITLE.length) {
-							flag = 4;
-							String title = new String(pageTitle.getData(), 0, 
-									pageTitle.getLength() - END_TITLE.length);
-							meta.setPageTitle(title);
-							pageTitle.reset();
-							i = 0;
-						}
-					}
-
-					else if (flag == 4) {
-						if (b == START_NAMESPACE[i]) {
-							i++;
-						} else i = 0;
-						if (i >= START_NAMESPACE.length) {
-							flag = 5;
-							i = 0;
-						}
-					}
-
-					else if (flag == 5) {
-						if (b == END_NAMESPACE[i]) {
-							i++;
-						} else i = 0;
-						nsBuf.write(b);
-						if (i >= END_NAMESPACE.length) {
-							flag = 6;
-							String nsStr = new String(nsBuf.getData(), 0, 
-									nsBuf.getLength() - END_NAMESPACE.length);
-							int ns = Integer.parseInt(nsStr);
-							nsBuf.reset();
-							if (ns != 0) {
-								if (skipNonArticles) {
-									skipped = true;
-									meta.clear();
-									return Ack.SKIPPED;
-								}
-							}
-							meta.setNamespace(ns);
-							i = 0;
-						}
-					}
-
-					else if (flag == 6) {
-						if (b == START_ID[i]) {
-							i++;
-						} else i = 0;
-						if (i >= START_ID.length) {
-							flag = 7;
-							i = 0;
-						}
-					}
-
-					// put everything in outer <id></id> block into keyBuf
-					else if (flag == 7) {
-						if (b == END_ID[i]) {
-							i++;
-						} else i = 0;
-						keyBuf.write(b);
-						if (i >= END_ID.length) {
-							flag = 8;
-							String idStr = new String(keyBuf.getData(), 0,
-									keyBuf.getLength() - END_ID.length);
-							long pageId = Long.parseLong(idStr);
-							meta.setPageId(pageId);
-							i = 0;
-						}
-					}
-
-					else if (flag == 8) {
-						int curMatch = 0;						
-						if ((i < START_REVISION.length 
-								&& b == START_REVISION[i]) 
-								&& (i < START_REDIRECT.length 
-								&& b == START_REDIRECT[i])
-								
-								// subtle bug here: some tag names can overlap
-								// multiple times
-								&& (revOrRedirect == 3 
-								|| revOrRedirect == -1)){
-							curMatch = 3;
-						} else if (i < START_REVISION.length 
-								&& b == START_REVISION[i]
-								&& revOrRedirect != 2) {
-							curMatch = 1;
-						} else if (i < START_REDIRECT.length 
-								&& b == START_REDIRECT[i]
-								&& revOrRedirect != 1) {
-							curMatch = 2;
-						} else {
-							curMatch = 0;
-						}
-						if (curMatch > 0 && (i == 0 || revOrRedirect == 3 
-								|| curMatch == revOrRedirect)) {					
-							i++;			
-							revOrRedirect = curMatch;
-						} else i = 0;
-						if ((revOrRedirect == 2 || revOrRedirect == 3) 
-								&& i >= START_REDIRECT.length) {
-							if (skipRedirect) {
-								skipped = true;
-								meta.clear();
-								return Ack.SKIPPED;
-							}
-							revOrRedirect = -1;	
-							flag = 9;
-							i = 0;
-						} else if ((revOrRedirect == 1 || revOrRedirect == 3) 
-								&& i >= START_REVISION.length) {
-							flag = 10;
-							revOrRedirect = -1;
-							return Ack.PASSED_TO_NEXT_TAG;
-						}							
-					}
-					
-					else if (flag == 9 && !skipRedirect) {
-						if (b == START_REVISION[i]) {
-							i++;
-						} else i = 0;
-						if (i >= START_REVISION.length) {
-							flag = 10;
-							return Ack.PASSED_TO_NEXT_TAG;
-						}
-					}					
-				}
+		pageTitle.reset();
+		nsBuf.reset();
+		keyBuf.reset();
+
+		if (!readElement(TITLE_START, pageTitle)) return Ack.EOF;
+		String title = new String(pageTitle.getData(), 0, 
+				pageTitle.getLength());
+		meta.setPageTitle(title);
+		if (!filter.acceptTitle(title)) {
+			meta.clear();
+			return Ack.SKIPPED;
+		}
+
+		// when passing the namespace and we realize that 
+		// this is not an article, and that the option of skipping
+		// non-article pages is on, we simply skip everything until
+		// the closing </page>
+		if (!readElement(NS_START, nsBuf)) return Ack.EOF;
+		int ns = ByteParser.parseInt(nsBuf.getData(), 0, nsBuf.getLength());
+		if ((ns != 0 && skipNonArticles) || !filter.acceptNamespace(ns)) {
+			meta.clear();
+			return Ack.SKIPPED;
+		}
+		meta.setNamespace(ns);
+
+		if (!readElement(ID_START, keyBuf)) return Ack.EOF;
+		long pageId = ByteParser.parseLong(keyBuf.getData(), 0,
+				keyBuf.getLength());
+		meta.setPageId(pageId);
+		if (!filter.acceptPageId(pageId)) {
+			meta.clear();
+			return Ack.SKIPPED;
+		}
+
+		int tag = nextOf(REVISION_START, REDIRECT_START);
+		if (tag == REDIRECT_START) {
+			if (skipRedirect) {
+				meta.clear();
+				return Ack.SKIPPED;
 			}
+			tag = readUntil(REVISION_START, null) ? REVISION_START : -1;
 		}
+		return (tag == REVISION_START) ? Ack.PASSED_TO_NEXT_TAG : Ack.EOF;
 	}
-}
 
+	/**
+	 * Read on from the &lt;/timestamp&gt; of a revision to its text, checking
+	 * the revision predicates of the filter on the way. The contributor is
+	 * only read if the revisions are filtered on it
+	 * @return PASSED_TO_NEXT_TAG right after the &lt;text&gt;, SKIPPED if the
+	 * revision fails the filter (the rest of it is then not read), or EOF
+	 */
+	protected final Ack readToText(RevisionHeader meta) throws IOException {
+		if (!filter.acceptTime(meta.getTimestamp())) {
+			return Ack.SKIPPED;
+		}
+		if (filter.filtersUser()) {
+			if (!readElement(CONTRIBUTOR_START, contribBuf)) return Ack.EOF;
+			contributor.setUser(null);
+			contributor.loadContributor(new String(contribBuf.getData(), 0,
+					contribBuf.getLength(), StandardCharsets.UTF_8));
+			if (!filter.acceptUser(contributor.getUser())) {
+				return Ack.SKIPPED;
+			}
+		}
+
+		// after the </timestamp>, check for <minor/>, if they exist
+		int tag = nextOf(MINOR, TEXT_START);
+		if (tag < 0) return Ack.EOF;
+		if (tag == MINOR) {
+			meta.setMinor(true);
+			if (!readUntil(TEXT_START, null)) return Ack.EOF;
+		}
+		return filter.acceptMinor(meta.isMinor()) ? Ack.PASSED_TO_NEXT_TAG
+				: Ack.SKIPPED;
+	}
+}
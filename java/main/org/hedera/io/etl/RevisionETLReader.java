@@ -1,29 +1,25 @@
 package org.hedera.io.etl;
 
+import static org.hedera.io.input.DumpTags.PAGE_END;
+import static org.hedera.io.input.DumpTags.PAGE_START;
+import static org.hedera.io.input.DumpTags.REVISION_START;
+import static org.hedera.io.input.WikiRevisionInputFormat.SKIP_TEXT_BY_LENGTH;
+
 import java.io.IOException;
-import java.io.InputStream;
 
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FSDataInputStream;
-import org.apache.hadoop.fs.FileSystem;
-import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.fs.Seekable;
 import org.apache.hadoop.io.DataOutputBuffer;
-import org.apache.hadoop.io.compress.CompressionCodec;
-import org.apache.hadoop.io.compress.CompressionCodecFactory;
-import org.apache.hadoop.io.compress.CompressionInputStream;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.input.FileSplit;
 import org.apache.log4j.Logger;
 import org.hedera.io.CloneableObject;
-
-import com.twitter.elephantbird.util.TaskHeartbeatThread;
-
-import static org.hedera.io.input.WikiRevisionInputFormat.START_PAGE;
-import static org.hedera.io.input.WikiRevisionInputFormat.END_PAGE;
-import static org.hedera.io.input.WikiRevisionInputFormat.START_REVISION;
+import org.hedera.io.input.DumpStream;
+import org.hedera.io.input.DumpTags;
+import org.hedera.io.input.TagReader;
+import org.hedera.util.Throttle;
+import org.hedera.util.TimestampParser;
 
 public abstract class RevisionETLReader<KEYIN, VALUEIN, 
 META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
@@ -35,13 +31,29 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 	private static final float DEFAULT_LOWER_THRESHOLD = 0.01f;
 	private static final float DEFAULT_UPPER_THRESHOLD = 0.1f;
 	
-	// add a few break after five iterations to give other jobs in the cluster chances
-	// to get executed
-	private int threadCnt;
+	// Optional caps on the rate of bytes read and of records emitted per
+	// second, to give other jobs in a shared cluster chances to get executed.
+	// There is no throttling by default
+	public static final String THROTTLE_BYTES_OPT = "org.hedera.io.etl.throttle.bytes";
+	public static final String THROTTLE_RECORDS_OPT = "org.hedera.io.etl.throttle.records";
+
+	/** Counters reported by the ETL readers */
+	public static enum Counters {
+		THROTTLED_MILLIS
+	}
+
+	private Throttle byteThrottle;
+	private Throttle recordThrottle;
+
+	// bytes of the stream already paid to the throttle
+	private long bytesThrottled;
 	
 	// threshold for checking the revision seriously
 	private static final long GOOD_ENOUGH_REVISION = 10;
 
+	// parses the timestamps of the revisions, caching the last day
+	protected final TimestampParser timeParser = new TimestampParser();
+
 	/** The acknowledgement signal when invoking one internal consuming method.
 	 * There are three states can return:
 	 * - PASSED_TO_NEXT_TAG: the consumer succeeds and now passed the next tag
@@ -58,10 +70,6 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 		FAILED
 	}
 
-	// mark the cursor of the input stream
-	private long start;
-	private long end;
-
 	// A flag that tells in which block the cursor is.
 	// Generic setting:
 	// -1: EOF
@@ -72,14 +80,17 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 	// both worth extracting for information
 	private byte flag;
 
-	// compression mode checking
-	private boolean compressed = false;
+	// the stream of the split, which fills the scan buffer shared with the
+	// tokenizer
+	private DumpStream stream;
 
-	// a direct buffer to improve the local IO performance
-	private byte[] buf = new byte[134217728];
-	private int[] pos = new int[2];
+	// the revision being read is the one carried before the split, and the
+	// previous one too
+	private boolean curCarried;
+	private boolean prevCarried;
 
-	private Seekable fsin;
+	// tokenizer of the scan buffer into the tags of the dump
+	private TagReader tags;
 
 	private KEYIN key;
 	private VALUEIN value;
@@ -118,7 +129,7 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 
 	@Override
 	public float getProgress() throws IOException, InterruptedException {
-		return (fsin.getPos() - start) / (float) (end - start);
+		return stream.getProgress();
 	}
 
 	protected TaskAttemptContext getTaskAttemptContext() {
@@ -136,32 +147,23 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 		Configuration conf = tac.getConfiguration();
 		setBlockSize(conf);
 
-		FileSplit split = (FileSplit) input;
-		start = split.getStart();
-		end = start + split.getLength();
-		Path file = split.getPath();
-
-		CompressionCodecFactory compressionCodecs = new CompressionCodecFactory(conf);
-		CompressionCodec codec = compressionCodecs.getCodec(file);
-
-		FileSystem fs = file.getFileSystem(conf);
-
-		if (codec != null) { // file is compressed
-			compressed = true;
-			// fsin = new FSDataInputStream(codec.createInputStream(fs.open(file)));
-			CompressionInputStream cis = codec.createInputStream(fs.open(file));
-
-			cis.skip(start - 1);
-
-			fsin = cis;
-		} else { // file is uncompressed	
-			compressed = false;
-			fsin = fs.open(file);
-			fsin.seek(start);
+		if (stream != null) {
+			stream.close();
 		}
+		stream = new DumpStream((FileSplit) input, tac);
+		curCarried = prevCarried = false;
 		flag = 1;
-		threadCnt = 0;
-		pos[0] = pos[1] = 0;
+		byteThrottle = throttle(conf, THROTTLE_BYTES_OPT);
+		recordThrottle = throttle(conf, THROTTLE_RECORDS_OPT);
+		bytesThrottled = 0;
+		tags = new TagReader(stream.buffer(), stream.cursor(),
+				new TagReader.Refill() {
+			@Override
+			public boolean fill() throws IOException {
+				return RevisionETLReader.this.fill();
+			}
+		});
+		tags.setSkipText(conf.getBoolean(SKIP_TEXT_BY_LENGTH, false));
 		meta = null;
 		this.context = tac;
 		initializeObjects();
@@ -174,6 +176,21 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 		extractor = initializeExtractor();
 	}	
 
+	private static Throttle throttle(Configuration conf, String opt) {
+		float rate = conf.getFloat(opt, 0f);
+		return (rate > 0) ? new Throttle(rate) : null;
+	}
+
+	/** Wait as needed to keep the given throttle under its rate, and report
+	 * the time waited */
+	private void throttle(Throttle throttle, long units) 
+			throws InterruptedException {
+		long waited = throttle.acquire(units);
+		if (waited > 0) {
+			context.getCounter(Counters.THROTTLED_MILLIS).increment(waited);
+		}
+	}
+
 	protected static void setBlockSize(Configuration conf) {
 		conf.setLong("mapreduce.input.fileinputformat.split.maxsize", 
 				DEFAULT_MAX_BLOCK_SIZE);
@@ -184,6 +201,7 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 			meta = initializeMeta();
 		}
 		meta.clone(curMeta);
+		prevCarried = curCarried;
 		prevBuf.reset();
 
 		// some ETL Reader dont read the content at all !!
@@ -195,6 +213,7 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 
 	protected void clearRevisions() {
 		meta = null;
+		prevCarried = false;
 		prevBuf.reset();
 		curBuf.reset();
 		freeKey(key);
@@ -202,22 +221,31 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 	}
 
 	@Override
+	public boolean nextKeyValue() throws IOException, InterruptedException {
+		boolean res = readNextKeyValue();
+		if (res && recordThrottle != null) {
+			throttle(recordThrottle, 1);
+		}
+		return res;
+	}
+
 	//
 	// Tuan: This is one of the most error-prone, tedious code I've ever written :(
 	// I feel like I have to write the documentation for this method somewhere. Otherwise
 	// I will lose understanding it next few months
 	//
-	public boolean nextKeyValue() throws IOException, InterruptedException {
-		while (fsin.getPos() < end) {
+	//
+	// The split ends at the first page that starts past its end, and not at
+	// its end offset: the last page is read till its end, even past the split
+	//
+	private boolean readNextKeyValue() throws IOException, InterruptedException {
+		while (flag != -1) {
 
 			// take a break for other jobs running in the cluster
-			threadCnt++;
-			if (threadCnt % 10 == 0) {
-				Thread.sleep(500);
-			}
-			
-			if (flag == -1) {
-				return false;
+			long bytesRead = stream.getBytesRead();
+			if (byteThrottle != null && bytesRead > bytesThrottled) {
+				throttle(byteThrottle, bytesRead - bytesThrottled);
+				bytesThrottled = bytesRead;
 			}
 
 			// the rare case: One last revision from last page still needs
@@ -226,18 +254,18 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 				if (meta != null) {
 					freeKey(key);
 					freeValue(value);
-					boolean res = extractor.extract(prevBuf, meta, key, value);
+					boolean res = extractPrevious();
 					flag = 3;
 					if (!res) {
 						throw new RuntimeException("This should not happen: "
-								+ " error in offset " + fsin.getPos());
+								+ " error in offset " + stream.getPos());
 					}
 					return true;
 				}
 
 				// this should never happen !!
 				else throw new RuntimeException("This should not happen: "
-						+ " error in offset " + fsin.getPos());
+						+ " error in offset " + stream.getPos());
 			}
 			else if (flag == 1 || flag == 3) {
 
@@ -262,6 +290,7 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 			}
 			if (flag == 2) {				
 				Ack r = readToNextRevision(curBuf, curMeta);
+				curCarried = stream.inCarriedRevision();
 				if (r == Ack.EOF)
 					return false;
 				else if (r == Ack.FAILED)
@@ -282,7 +311,7 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 							if (meta != null) {
 								freeKey(key);
 								freeValue(value);
-								boolean res = extractor.extract(prevBuf,meta,key,value);
+								boolean res = extractPrevious();
 								
 								// every revsion that is checked is empty
 								if (!res) {
@@ -306,7 +335,7 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 							if (meta != null) {
 								freeKey(key);
 								freeValue(value);
-								boolean res = extractor.extract(prevBuf,meta,key,value);
+								boolean res = extractPrevious();
 								
 								// every revsion that is checked is empty
 								if (!res) {
@@ -340,7 +369,7 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 								if (meta != null) {
 									freeKey(key);
 									freeValue(value);
-									boolean res = extractor.extract(prevBuf,meta,key,value);
+									boolean res = extractPrevious();
 									
 									// every revision that is checked is empty --> skip this page
 									if (!res) {
@@ -355,7 +384,7 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 								freeKey(key);
 								freeValue(value);
 																
-								boolean res = extractor.extract(prevBuf,meta,key,value);
+								boolean res = extractPrevious();
 								
 								// Tricky scenario: The very last revision just has
 								// a big change. 
@@ -377,7 +406,7 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 									flag = 3;
 									freeKey(key);
 									freeValue(value);
-									boolean res = extractor.extract(prevBuf,meta,key,value);
+									boolean res = extractPrevious();
 									
 									if (res)
 										return true;
@@ -394,6 +423,16 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 							}
 						}
 
+						// In between, keep the previous revision and move on. At
+						// the end of the page, extract it and stop
+						else if (!hasNextRevision()) {
+							flag = 3;
+							freeKey(key);
+							freeValue(value);
+							boolean res = extractPrevious();
+							if (res)
+								return true;
+						}
 					}
 				}
 
@@ -411,7 +450,7 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 						if (meta != null) {
 							freeKey(key);
 							freeValue(value);
-							boolean res = extractor.extract(prevBuf,meta,key,value);
+							boolean res = extractPrevious();
 							if (res)
 								return true;
 							else continue;
@@ -423,6 +462,12 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 		return false;
 	}
 
+	/** Extract the previous revision into the key and value, unless it was
+	 * carried over from the previous split */
+	private boolean extractPrevious() throws IOException {
+		return !prevCarried && extractor.extract(prevBuf, meta, key, value);
+	}
+
 	/**
 	 * Consume all the tags from page tag till the first revision tag. Cache
 	 * the values to meta data if needed
@@ -445,19 +490,22 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 	 * @throws IOException 
 	 */
 	private boolean hasNextPage() throws IOException {	
-		int i = 0;
-		while (true) {
-			if (!fetchMore()) return false;
-			while (hasData()) {
-				byte b = nextByte();				
-				if (b == START_PAGE[i]) {
-					i++;
-					if (i >= START_PAGE.length) {
-						return true;
-					}
-				} else i = 0;
-			}
-		}		
+		if (!readUntil(PAGE_START, null)) {
+			return false;
+		}
+		if (!pageInSplit()) {
+			flag = -1;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Whether the page whose start tag was just read starts before the end
+	 * of the split (see {@link DumpStream#pageInSplit()})
+	 */
+	private boolean pageInSplit() {
+		return stream.pageInSplit();
 	}
 
 	/**
@@ -467,86 +515,71 @@ META extends CloneableObject<META>>  extends RecordReader<KEYIN, VALUEIN> {
 	 * @throws IOException 
 	 */
 	private boolean hasNextRevision() throws IOException {
-		int i = 0;
-		int revOrPage = -1;
-		while (true) {
-			if (!fetchMore()) return false;
-			while (hasData()) {
-				byte b = nextByte();
-				int curMatch = 0;				
-				if ((i < END_PAGE.length && b == END_PAGE[i]) 
-						&& (i < START_REVISION.length && b == START_REVISION[i])) {
-					curMatch = 3;
-				} else if (i < END_PAGE.length && b == END_PAGE[i]) {
-					curMatch = 2;
-				} else if (i < START_REVISION.length && b == START_REVISION[i]) {
-					curMatch = 1;
-				}				
-				if (curMatch > 0 && (i == 0 || revOrPage == 3 || curMatch == revOrPage)) {					
-					i++;			
-					revOrPage = curMatch;
-				} else i = 0;
-				if ((revOrPage == 2 || revOrPage == 3) && i >= END_PAGE.length) {
-					return false;							
-				} else if ((revOrPage == 1 || revOrPage == 3) && i >= START_REVISION.length) {
-					return true;
-				}
-			}
-		}
-	}	
+		return nextOf(REVISION_START, PAGE_END) == REVISION_START;
+	}
 
-	/** Read the stream and update the internal buffer if necessary. Always return
-	 * true except when reaching EOF 
-	 * @throws IOException */
-	protected final boolean fetchMore() throws IOException {
-		if (buf == null && pos.length != 2)
-			throw new IOException("Internal buffer corrupted.");
-		if (pos[0] == pos[1]) {	
-
-			// We use a thread that pings back to the cluster every 5 minutes
-			// to avoid getting killed for slow read
-			TaskHeartbeatThread heartbeat = new TaskHeartbeatThread(context, 60 * 5000) {
-				@Override
-				protected void progress() {
-					LOG.info("Task " + context.getTaskAttemptID() 
-							+ " pings back...");
-				}
-			};
-
-			try {
-				heartbeat.start();
-				pos[1] = (compressed) ? ((InputStream)fsin).read(buf) :
-					((FSDataInputStream)fsin).read(buf);
-				pos[0] = 0;
-			} finally {
-				heartbeat.stop();
-			}
+	/**
+	 * Find the next tag of the dump schema, whichever it is
+	 * @return the tag id (see {@link DumpTags}), or -1 if EOF is reached
+	 * @throws IOException
+	 */
+	protected final int nextTag() throws IOException {
+		return tags.next();
+	}
 
-			if (pos[1] == -1) {
-				flag = -1;
-				return false;
-			}
-		} return true; 
+	/**
+	 * Ignore all tags until one of the two given tags comes
+	 * @return the tag found, or -1 if EOF is reached
+	 * @throws IOException
+	 */
+	protected final int nextOf(int tag1, int tag2) throws IOException {
+		int tag;
+		do {
+			tag = tags.next();
+		} while (tag >= 0 && tag != tag1 && tag != tag2);
+		return tag;
+	}
+
+	/**
+	 * Ignore everything until the given tag. The bytes in between are jumped
+	 * over in bulk rather than matched one by one.
+	 * @param sink if not null, the bytes in between go there (but not the tag)
+	 * @return true if the tag has been found, and the cursor then points right
+	 * after it; false if the EOF has been found
+	 * @throws IOException
+	 */
+	protected final boolean readUntil(int tag, DataOutputBuffer sink) 
+			throws IOException {
+		return tags.readUntil(tag, sink);
 	}
 
-	/** Check whether there are still data to read */
-	protected boolean hasData() {
-		return (pos[0] < pos[1]);
+	/**
+	 * Move to the next element of the given opening tag, and put its content
+	 * into the sink (reset beforehand)
+	 * @return false if the EOF has been found
+	 * @throws IOException
+	 */
+	protected final boolean readElement(int tag, DataOutputBuffer sink) 
+			throws IOException {
+		sink.reset();
+		return tags.readUntil(tag, null) 
+				&& tags.readUntil(DumpTags.closing(tag), sink);
 	}
 
-	/** Get the next byte in the stream and move the cursor forward */
-	protected byte nextByte() {
-		byte b = buf[pos[0]];
-		pos[0]++;
-		return b;
+	/** Read the stream into the internal buffer. Always return true except
+	 * when reaching EOF 
+	 * @throws IOException */
+	private boolean fill() throws IOException {
+		if (!stream.fill()) {
+			flag = -1;
+			return false;
+		}
+		tags.setBuffer(stream.buffer());
+		return true;
 	}
 
 	@Override
 	public void close() throws IOException {
-		if (compressed) {
-			((CompressionInputStream)fsin).close();
-		} else {
-			((FSDataInputStream)fsin).close();
-		}
+		stream.close();
 	}
-}
\ No newline at end of file
+}
@@ -1,5 +1,11 @@
 package org.hedera.io.etl;
 
+import static org.hedera.io.input.DumpTags.ID_START;
+import static org.hedera.io.input.DumpTags.REVISION_END;
+import static org.hedera.io.input.DumpTags.TEXT_END;
+import static org.hedera.io.input.DumpTags.TEXT_START;
+import static org.hedera.io.input.DumpTags.TIMESTAMP_START;
+
 import java.io.IOException;
 
 import org.apache.hadoop.fs.Path;
@@ -11,6 +17,7 @@ import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.hedera.io.RevisionHeader;
 import org.hedera.io.input.WikiRevisionInputFormat;
+import org.hedera.util.ByteParser;
 
 import edu.umd.cloud9.io.pair.PairOfLongs;
 
@@ -65,98 +72,48 @@ WikiRevisionInputFormat<LongWritable, PairOfLongs> {
 			value.set(0, 0);
 		}
 
+		// buffers of the revision header, reused across the revisions
+		private final DataOutputBuffer revIdBuf = new DataOutputBuffer();
+		private final DataOutputBuffer timestampBuf = new DataOutputBuffer();
+
 		@Override
 		// -1: EOF
-		// 9 - default
-		// 10 - just passed the inner <id> tag inside <revision>
-		// 11 - just passed the inner </id> tag inside <revision>
-		// 12 - just passed the <timestamp>
-		// 13 - just passed the </timestamp> tag, skip to the </revision>
-		// 14 - just passed the </revision>
+		// 9 - default: read the inner <id> block inside <revision>
+		// 10 - just passed the inner </id> tag: read the <timestamp> block
+		// 11 - just passed the </timestamp> tag, skip to the </revision>,
+		// jumping over the text by its length when the dump gives it
 		protected Ack readToNextRevision(DataOutputBuffer buffer, 
 				RevisionHeader meta) throws IOException {
-			int i = 0;
-			int flag = 9;	
-			try (DataOutputBuffer revIdBuf = new DataOutputBuffer(); 
-					DataOutputBuffer timestampBuf = new DataOutputBuffer(); 
-					DataOutputBuffer parBuf = new DataOutputBuffer()) {
-
-				while (true) {
-					if (!fetchMore()) return Ack.EOF;
-					while (hasData()) {
-						byte b = nextByte();
-						if (flag == 9) {
-							if (b == START_ID[i]) {
-								i++;
-							} else i = 0;
-							if (i >= START_ID.length) {
-								flag = 10;
-								i = 0;
-							}
-						}
-
-						// everything inside the inner <id></id> 
-						// block goes to revision buffer
-						else if (flag == 10) {
-							if (b == END_ID[i]) {
-								i++;
-							} else i = 0;
-							revIdBuf.write(b);
-							if (i >= END_ID.length) {
-								flag = 11;
-								String idStr = new String(revIdBuf.getData(), 0, 
-										revIdBuf.getLength() - END_ID.length);
-								long revId = Long.parseLong(idStr);
-								meta.setRevisionId(revId);
-								revIdBuf.reset();
-								i = 0;
-							}
-						}
-
-						// after the inner <id>, check for <timestamp>
-						else if (flag == 11) {
-							if (b == START_TIMESTAMP[i]) {
-								i++;
-							} else i = 0;
-							if (i >= START_TIMESTAMP.length) {
-								flag = 12;
-								i = 0;
-							}	
-						}
-
-						// inside <timestamp></timestamp> block everything goes to
-						// timestamp buffer
-						else if (flag == 12) {
-							if (b == END_TIMESTAMP[i]) {
-								i++;
-							} else i = 0;
-							timestampBuf.write(b);
-							if (i >= END_TIMESTAMP.length) {
-								flag = 13;
-								String ts = new String(timestampBuf.getData(), 0, 
-										timestampBuf.getLength() 
-										- END_TIMESTAMP.length);
-								long timestamp = TIME_FORMAT.parseMillis(ts);
-								meta.setTimestamp(timestamp);
-								timestampBuf.reset();
-								i = 0;
-							}
-						}				
-
-						// after the </timestamp>, check for <text>
-						else if (flag == 13) {
-							if (b == END_REVISION[i]) {
-								i++;
-							} else i = 0;
-							if (i >= END_REVISION.length) {
-								// the flag is not anymore useful
-								flag = 14;
-								return Ack.PASSED_TO_NEXT_TAG;
-							}
-						}
-					}
-				}
+			revIdBuf.reset();
+			timestampBuf.reset();
+			meta.setMinor(false);
+
+			if (!readElement(ID_START, revIdBuf)) return Ack.EOF;
+			long revId = ByteParser.parseLong(revIdBuf.getData(), 0,
+					revIdBuf.getLength());
+			meta.setRevisionId(revId);
+
+			if (!readElement(TIMESTAMP_START, timestampBuf)) return Ack.EOF;
+			long timestamp = timeParser.parse(timestampBuf.getData(), 0,
+					timestampBuf.getLength());
+			meta.setTimestamp(timestamp);
+
+			// look for the closing </revision>, without looking at the rest
+			// unless the revisions are filtered on it
+			int tag;
+			if (filter.filtersRevisions()) {
+				Ack r = readToText(meta);
+				if (r != Ack.PASSED_TO_NEXT_TAG) return r;
+				tag = TEXT_START;
+			} else {
+				tag = nextOf(TEXT_START, REVISION_END);
+			}
+			if (tag == TEXT_START) {
+				if (!readUntil(TEXT_END, null)) return Ack.EOF;
+				tag = readUntil(REVISION_END, null) ? REVISION_END : -1;
 			}
+			if (tag < 0) return Ack.EOF;
+			return Ack.PASSED_TO_NEXT_TAG;
 		}
 	}
 
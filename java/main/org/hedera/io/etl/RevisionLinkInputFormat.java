@@ -1,5 +1,13 @@
 package org.hedera.io.etl;
 
+import static org.hedera.io.input.DumpTags.ID_START;
+import static org.hedera.io.input.DumpTags.PARENT_ID_END;
+import static org.hedera.io.input.DumpTags.PARENT_ID_START;
+import static org.hedera.io.input.DumpTags.REVISION_END;
+import static org.hedera.io.input.DumpTags.TEXT_END;
+import static org.hedera.io.input.DumpTags.TIMESTAMP_END;
+import static org.hedera.io.input.DumpTags.TIMESTAMP_START;
+
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
@@ -13,6 +21,7 @@ import org.hedera.io.LinkProfile;
 import org.hedera.io.RevisionHeader;
 import org.hedera.io.LinkProfile.Link;
 import org.hedera.io.input.WikiRevisionInputFormat;
+import org.hedera.util.ByteParser;
 
 /**
  * The input format that supports ETL reading and extract link structures from
@@ -57,202 +66,65 @@ public class RevisionLinkInputFormat extends
 			return new LinkExtractor();		
 		}
 
+		// buffers of the revision header, reused across the revisions
+		private final DataOutputBuffer revIdBuf = new DataOutputBuffer();
+		private final DataOutputBuffer timestampBuf = new DataOutputBuffer();
+		private final DataOutputBuffer parBuf = new DataOutputBuffer();
+
 		@Override
 		// -1: EOF
-		// 9 - default
-		// 10 - just passed the inner <id> tag inside <revision>
-		// 11 - just passed the inner </id> tag inside <revision>
-		// 12 - just passed the <timestamp>
-		// 13 - just passed the </timestamp> tag
-		// 14 - just passed the <parentId>
-		// 15 - just passed the </parentId> tag
-		// 16 - just passed the <minor/> (or not)
-		// 17 - just passed the <text> tag
-		// 18 - just passed the </text> tag
-		// 19 - just passed the </revision>
+		// 9 - default: read the inner <id> block inside <revision>
+		// 10 - just passed the inner </id> tag: check for either <timestamp> 
+		// or <parentid>
+		// 11 - just passed the <parentid> tag: read the block and search for 
+		// <timestamp>
+		// 12 - just passed the <timestamp> tag: read the block
+		// 13 - just passed the </timestamp> tag: check for <minor/> or <text>
+		// 14 - just passed the <text> tag: read the block
+		// 15 - just passed the </text> tag: skip to the </revision>
 		protected Ack readToNextRevision(DataOutputBuffer buffer, 
 				RevisionHeader meta) throws IOException {
-			int i = 0;
-			int flag = 9;	
-			int parOrTs = -1;
-			int minorOrText = -1;
-			try (DataOutputBuffer revIdBuf = new DataOutputBuffer(); 
-					DataOutputBuffer timestampBuf = new DataOutputBuffer(); 
-					DataOutputBuffer parBuf = new DataOutputBuffer()) {
-
-				while (true) {
-					if (!fetchMore()) return Ack.EOF;
-					while (hasData()) {
-						byte b = nextByte();
-						if (flag == 9) {
-							if (b == START_ID[i]) {
-								i++;
-							} else i = 0;
-							if (i >= START_ID.length) {
-								flag = 10;
-								i = 0;
-							}
-						}
-
-						// everything inside the inner <id></id> 
-						// block goes to revision buffer
-						else if (flag == 10) {
-							if (b == END_ID[i]) {
-								i++;
-							} else i = 0;
-							revIdBuf.write(b);
-							if (i >= END_ID.length) {
-								flag = 11;
-								String idStr = new String(revIdBuf.getData(), 0, 
-										revIdBuf.getLength() - END_ID.length);
-								long revId = Long.parseLong(idStr);
-								meta.setRevisionId(revId);
-								revIdBuf.reset();
-								i = 0;
-							}
-						}
-
-						// after the inner <id>, check for either <timestamp> or <parentId>
-						else if (flag == 11) {
-							int curMatch = 0;				
-							if ((i < START_PARENT_ID.length && b == START_PARENT_ID[i]) 
-									&& (i < START_TIMESTAMP.length && b == START_TIMESTAMP[i])) {
-								curMatch = 3;
-							} else if (i < START_PARENT_ID.length && b == START_PARENT_ID[i]) {
-								curMatch = 1;
-							} else if (i < START_TIMESTAMP.length && b == START_TIMESTAMP[i]) {
-								curMatch = 2;
-							}				
-							if (curMatch > 0 && (i == 0 || parOrTs == 3 || curMatch == parOrTs)) {					
-								i++;			
-								parOrTs = curMatch;
-							} else i = 0;
-							if ((parOrTs == 2 || parOrTs == 3) && i >= START_TIMESTAMP.length) {
-								flag = 12;
-								parOrTs = -1;		
-								i = 0;
-							} else if ((parOrTs == 1 || parOrTs == 3) && i >= START_PARENT_ID.length) {
-								flag = 14;
-								parOrTs = -1;
-								i = 0;
-							}		
-						}
-
-						// inside <timestamp></timestamp> block everything goes to timestamp buffer
-						else if (flag == 12) {
-							if (b == END_TIMESTAMP[i]) {
-								i++;
-							} else i = 0;
-							timestampBuf.write(b);
-							if (i >= END_TIMESTAMP.length) {
-								flag = 13;
-								String ts = new String(timestampBuf.getData(), 0, 
-										timestampBuf.getLength() 
-										- END_TIMESTAMP.length);
-								long timestamp = TIME_FORMAT.parseMillis(ts);
-								meta.setTimestamp(timestamp);
-								timestampBuf.reset();
-								i = 0;
-							}
-						}
-
-						// inside <parentId></parentId> block everything goes to parentId buffer
-						else if (flag == 14) {
-							if (b == END_PARENT_ID[i]) {
-								i++;
-							} else i = 0;
-							parBuf.write(b);
-							if (i >= END_PARENT_ID.length) {
-								flag = 15;
-								String parIdStr = new String(parBuf.getData(), 0, parBuf.getLength() 
-										- END_PARENT_ID.length);
-								long parId = Long.parseLong(parIdStr);
-								meta.setParentId(parId);
-								parBuf.reset();
-								i = 0;
-							}
-						}
-
-						// after the </parentId>, search for <timestamp>
-						else if (flag == 15) {
-							if (b == START_TIMESTAMP[i]) {
-								i++;
-							} else i = 0;
-							if (i >= START_TIMESTAMP.length) {
-								flag = 12;
-								i = 0;
-							}
-						}
-
-						// After the timestamp, sometimes we can make a quick check to see
-						// whether we should  skip this revision
+			revIdBuf.reset();
+			timestampBuf.reset();
+			parBuf.reset();
+
+			// <parentid> and <minor/> are optional, don't inherit them from
+			// the previous revision
+			meta.setParentId(0);
+			meta.setMinor(false);
+
+			if (!readElement(ID_START, revIdBuf)) return Ack.EOF;
+			long revId = ByteParser.parseLong(revIdBuf.getData(), 0,
+					revIdBuf.getLength());
+			meta.setRevisionId(revId);
+
+			int tag = nextOf(PARENT_ID_START, TIMESTAMP_START);
+			if (tag < 0) return Ack.EOF;
+			if (tag == PARENT_ID_START) {
+				if (!readUntil(PARENT_ID_END, parBuf)) return Ack.EOF;
+				long parId = ByteParser.parseLong(parBuf.getData(), 0,
+						parBuf.getLength());
+				meta.setParentId(parId);
+				if (!readUntil(TIMESTAMP_START, null)) return Ack.EOF;
+			}
 
-						// after the </timestamp>, check for <minor/>, if they exist
-						else if (flag == 13) {
-							int curMatch = 0;				
-							if ((i < START_TEXT.length && b == START_TEXT[i]) 
-									&& (i < MINOR_TAG.length && b == MINOR_TAG[i])) {
-								curMatch = 3;
-							} else if (i < START_TEXT.length && b == START_TEXT[i]) {
-								curMatch = 1;
-							} else if (i < MINOR_TAG.length && b == MINOR_TAG[i]) {
-								curMatch = 2;
-							}				
-							if (curMatch > 0 && (i == 0 || minorOrText == 3 || curMatch == minorOrText)) {					
-								i++;			
-								minorOrText = curMatch;
-							} else i = 0;
-							if ((minorOrText == 2 || minorOrText == 3) && i >= MINOR_TAG.length) {
-								// update the meta
-								meta.setMinor(true);
-								flag = 16;
-								minorOrText = -1;		
-								i = 0;
-							} else if ((minorOrText == 1 || minorOrText == 3) && i >= START_TEXT.length) {
-								flag = 17;
-								minorOrText = -1;
-								i = 0;
-							}	
-						}
+			if (!readUntil(TIMESTAMP_END, timestampBuf)) return Ack.EOF;
+			long timestamp = timeParser.parse(timestampBuf.getData(), 0,
+					timestampBuf.getLength());
+			meta.setTimestamp(timestamp);
 
-						// after the <minor/>, and search for <text>
-						else if (flag == 16) {
-							if (b == START_TEXT[i]) {
-								i++;
-							} else i = 0;
-							if (i >= START_TEXT.length) {
-								flag = 17;
-								i = 0;
-							}
-						}
+			// the contributor and <minor/> on the way to the text, if the
+			// revisions are filtered on them
+			Ack r = readToText(meta);
+			if (r != Ack.PASSED_TO_NEXT_TAG) return r;
 
-						// inside <text></text> block everything goes to content buffer
-						else if (flag == 17) {
-							if (b == END_TEXT[i]) {
-								i++;
-							} else i = 0;
-							buffer.write(b);
-							if (i >= END_TEXT.length) {
-								flag = 18;
-								meta.setLength(buffer.getLength());
-								i = 0;
-							}
-						}
+			// inside <text></text> block everything goes to content buffer
+			if (!readUntil(TEXT_END, buffer)) return Ack.EOF;
+			meta.setLength(buffer.getLength());
 
-						// look for the closing </revision>
-						else if (flag == 18) {
-							if (b == END_REVISION[i]) {
-								i++;
-							} else i = 0;
-							if (i >= END_REVISION.length) {
-								// the flag is not anymore useful
-								flag = 19;
-								return Ack.PASSED_TO_NEXT_TAG;
-							}
-						}
-					}
-				}
-			}
+			// look for the closing </revision>, without looking at the rest
+			if (!readUntil(REVISION_END, null)) return Ack.EOF;
+			return Ack.PASSED_TO_NEXT_TAG;
 		}
 	}
 
@@ -0,0 +1,377 @@
+package org.hedera.io.input;
+
+import static org.hedera.io.input.WikiRevisionInputFormat.BZIP2_THREADS;
+import static org.hedera.io.input.WikiRevisionInputFormat.CARRY_REVISION;
+import static org.hedera.io.input.WikiRevisionInputFormat.END_PAGE;
+import static org.hedera.io.input.WikiRevisionInputFormat.READ_AHEAD;
+import static org.hedera.io.input.WikiRevisionInputFormat.SCAN_BUFFER_SIZE;
+import static org.hedera.io.input.WikiRevisionInputFormat.START_PAGE;
+import static org.hedera.io.input.WikiRevisionInputFormat.ZERO_COPY;
+import static org.hedera.io.input.WikiRevisionInputFormat.ZERO_COPY_SKIP_CHECKSUMS;
+import static org.hedera.io.input.WikiRevisionInputFormat.openFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.Seekable;
+import org.apache.hadoop.io.compress.BZip2Codec;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.io.compress.SplittableCompressionCodec;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.hedera.io.compress.ZstdCodec;
+import org.hedera.io.compress.ZstdFrameInputStream;
+import org.hedera.io.compress.ZstdSeekTable;
+import org.hedera.util.BufferPool;
+import org.hedera.util.ParallelBZip2InputStream;
+import org.hedera.util.ProgressReporter;
+import org.hedera.util.ReadAheadInputStream;
+import org.hedera.util.ZeroCopyInputStream;
+
+/**
+ * The bytes of one split of a dump, read chunk by chunk into the scan buffer
+ * of a record reader ({@link WikiRevisionReader} and the ETL readers).
+ *
+ * The file is opened with the decoder that fits its codec and the split: the
+ * streams of a multistream split, the blocks of a bzip2 split decoded on
+ * several threads, the frames of a seekable zstd file, the blocks starting
+ * in the split for the other splittable codecs, or the whole file. An
+ * uncompressed file is read through the zero-copy interface of HDFS if asked
+ * to, and a compressed one can be decompressed ahead on a background thread.
+ *
+ * A split starting inside a page ({@link PageSplit}) is preceded by the
+ * header of the page, and a split ending inside a page is followed by a
+ * closing &lt;/page&gt;. The buffer (and its cursor: pos[0] is the next byte
+ * to read, pos[1] the end of the valid data) is shared with the reader,
+ * which moves the cursor and calls {@link #fill()} when it is consumed. A
+ * fill can swap the buffer for another one, that the reader then takes
+ * from {@link #buffer()}.
+ *
+ * @author tuan
+ */
+public final class DumpStream {
+
+	private final FileSplit split;
+	private final TaskAttemptContext context;
+	private final long start;
+	private final long end;
+
+	// the raw (possibly compressed) stream of the file, and the stream of
+	// the dump read on top of it
+	private final FSDataInputStream fileIn;
+	private Seekable fsin;
+
+	private boolean compressed;
+
+	// the split covers the whole file, which cannot be split (e.g. gzip)
+	private boolean wholeFile;
+
+	// a split of such a file starting past its start: the file is read by
+	// the split starting at 0, this one reads nothing
+	private boolean empty;
+
+	// the decompressor of the codec, taken from the pool and given back when
+	// the stream is closed. The streams, bzip2 blocks and zstd frames read
+	// on their own do not use it
+	private Decompressor decompressor;
+
+	// a split cut inside a page is read until its end offset, then the page
+	// is closed
+	private boolean cutAtEnd;
+	private boolean pageClosed;
+
+	// the revision before a split starting inside a page is read again, as
+	// the predecessor of the first one
+	private boolean carried;
+
+	// position of the stream before and after the last fill of the buffer
+	private long fillStart;
+	private long fillEnd;
+
+	// where the raw stream started, to count the bytes read locally or not
+	private final long readFrom;
+
+	// bytes read from the stream, and those read while in the blocks starting
+	// in the split
+	private long bytesRead;
+	private long splitBytesRead;
+
+	// taken from the pool, and given back when the stream is closed. When
+	// reading ahead, it is exchanged with the buffers read ahead at each fill
+	private byte[] buf;
+
+	// the stream decompressed ahead on a background thread, if any
+	private ReadAheadInputStream readAhead;
+	private final int[] pos = new int[2];
+
+	// keeps the task alive, and reports the offset reached in the file
+	private final ProgressReporter reporter;
+
+	private boolean closed;
+
+	public DumpStream(FileSplit split, TaskAttemptContext tac)
+			throws IOException {
+		Configuration conf = tac.getConfiguration();
+		this.split = split;
+		this.context = tac;
+		start = split.getStart();
+		end = start + split.getLength();
+		Path file = split.getPath();
+
+		CompressionCodecFactory compressionCodecs =
+				new CompressionCodecFactory(conf);
+		CompressionCodec codec = compressionCodecs.getCodec(file);
+		FileSystem fs = file.getFileSystem(conf);
+		fileIn = openFile(conf, fs, file);
+		wholeFile = false;
+
+		if (codec != null) { // file is compressed
+			compressed = true;
+			int threads = conf.getInt(BZIP2_THREADS, 0);
+			boolean parallel = threads > 0 && codec instanceof BZip2Codec;
+			boolean streams = split instanceof StreamSplit;
+			ZstdSeekTable frames = (codec instanceof ZstdCodec)
+					? ZstdSeekTable.read(fileIn, fs.getFileStatus(file).getLen())
+					: null;
+			if (streams) {
+				// only the streams of the split are read, each one on its own
+				fsin = new MultistreamInputStream(fileIn, codec,
+						(StreamSplit) split);
+			} else if (parallel) {
+				// the blocks of the split are decoded on several threads
+				fsin = new ParallelBZip2InputStream(fileIn, codec, start, end,
+						threads);
+			} else if (frames != null) {
+				// the frames from the start of the split are read, each one on
+				// its own
+				fsin = new ZstdFrameInputStream(fileIn, codec, frames, start);
+			} else if (codec instanceof SplittableCompressionCodec) {
+				// only the blocks starting in the split are decompressed
+				decompressor = CodecPool.getDecompressor(codec);
+				fsin = ((SplittableCompressionCodec) codec).createInputStream(
+						fileIn, decompressor, start, end,
+						SplittableCompressionCodec.READ_MODE.BYBLOCK);
+			} else if (start > 0) {
+				// non-splittable compression input stream, read by another split
+				empty = true;
+				fsin = fileIn;
+			} else {
+				// non-splittable compression input stream, read whole
+				wholeFile = true;
+				decompressor = CodecPool.getDecompressor(codec);
+				fsin = codec.createInputStream(fileIn, decompressor);
+			}
+		} else { // file is uncompressed
+			compressed = false;
+			fsin = conf.getBoolean(ZERO_COPY, false)
+					? new ZeroCopyInputStream(fileIn, conf.getInt(SCAN_BUFFER_SIZE,
+							BufferPool.DEFAULT_SIZE),
+							conf.getBoolean(ZERO_COPY_SKIP_CHECKSUMS, false))
+					: fileIn;
+			fsin.seek(start);
+		}
+
+		// only uncompressed files are cut inside pages
+		PageSplit pageSplit = (!compressed && split instanceof PageSplit)
+				? (PageSplit) split : null;
+		cutAtEnd = (pageSplit != null) && pageSplit.endsInPage();
+		pageClosed = false;
+		carried = false;
+		byte[] header = null;
+		if (pageSplit != null && pageSplit.startsInPage()) {
+			header = pageSplit.header();
+			if (conf.getBoolean(CARRY_REVISION, false)
+					&& pageSplit.getPreviousRevision() >= 0) {
+				fsin.seek(pageSplit.getPreviousRevision());
+				carried = true;
+			}
+		}
+		fillStart = fillEnd = fsin.getPos();
+		readFrom = fileIn.getPos();
+		bytesRead = splitBytesRead = 0;
+		// the buffer holds at least the header of the page continued by the
+		// split (e.g. a long title with a small buffer)
+		int size = conf.getInt(SCAN_BUFFER_SIZE, BufferPool.DEFAULT_SIZE);
+		if (header != null) {
+			size = Math.max(size, header.length);
+		}
+		buf = BufferPool.acquire(size);
+		pos[0] = pos[1] = 0;
+
+		// decompress ahead on a background thread, if asked to. Past the end
+		// of the split, only the last page is read
+		int depth = conf.getInt(READ_AHEAD, 0);
+		if (compressed && !empty && depth > 0) {
+			readAhead = new ReadAheadInputStream((InputStream) fsin, fsin,
+					buf.length, depth, end);
+			fsin = readAhead;
+		}
+
+		// the page continued by the split starts with its header, placed
+		// right before the first byte read
+		if (header != null) {
+			System.arraycopy(header, 0, buf, 0, header.length);
+			pos[1] = header.length;
+			fillStart -= header.length;
+		}
+		reporter = new ProgressReporter(tac);
+		reporter.start();
+	}
+
+	/** The scan buffer, valid until the next fill when reading ahead, or else
+	 * until the stream is closed */
+	public byte[] buffer() {
+		return buf;
+	}
+
+	/** The cursor of the scan buffer, shared with the reader */
+	public int[] cursor() {
+		return pos;
+	}
+
+	/** Read the next chunk of the stream into the buffer and reset the
+	 * cursor. Return false when reaching EOF */
+	public boolean fill() throws IOException {
+		if (empty) {
+			pos[0] = pos[1] = 0;
+			return false;
+		}
+		if (cutAtEnd && fsin.getPos() >= end) {
+			return closePage();
+		}
+
+		// the reporter keeps the task alive if the read is slow
+		fillStart = fsin.getPos();
+		reporter.beginRead();
+		try {
+			int len = (cutAtEnd) ? (int) Math.min(buf.length, end - fillStart)
+					: buf.length;
+			if (readAhead != null) {
+				// take the next buffer read ahead in place of this one
+				byte[] next = readAhead.exchange(buf);
+				if (next != null) {
+					buf = next;
+				}
+				pos[1] = (next != null) ? readAhead.exchangedLength() : -1;
+			} else {
+				pos[1] = (compressed) ? ((InputStream) fsin).read(buf) :
+					((InputStream) fsin).read(buf, 0, len);
+			}
+			pos[0] = 0;
+		} finally {
+			reporter.endRead(fileIn.getPos());
+		}
+		fillEnd = fsin.getPos();
+
+		if (pos[1] == -1) {
+			pos[1] = 0;
+			return false;
+		}
+		bytesRead += pos[1];
+		if (compressed && (wholeFile || fillEnd < end)) {
+			splitBytesRead += pos[1];
+		}
+		return true;
+	}
+
+	// at the end of a split cut inside a page, close the page: the rest of
+	// it belongs to the next split
+	private boolean closePage() {
+		pos[0] = 0;
+		if (pageClosed) {
+			pos[1] = 0;
+			return false;
+		}
+		pageClosed = true;
+		System.arraycopy(END_PAGE, 0, buf, 0, END_PAGE.length);
+		pos[1] = END_PAGE.length;
+		fillStart = fillEnd = end;
+		return true;
+	}
+
+	/**
+	 * Offset in the file of the byte at the given index of the buffer (a
+	 * negative index points in the previous fill). For a compressed file,
+	 * this is the position reported by the decompressing stream, which only
+	 * moves at the boundaries of the compressed blocks
+	 */
+	public long offsetOf(int index) {
+		if (compressed) {
+			return (index < 0) ? fillStart : fillEnd;
+		}
+		return fillStart + index;
+	}
+
+	/**
+	 * Whether the page whose start tag was just read belongs to this split,
+	 * that is whether the tag starts before the end of the split. The splits
+	 * do not need to be aligned with the pages: a reader ignores everything
+	 * until the first page of its split, and reads the last page till its
+	 * end, even past the end of the split
+	 */
+	public boolean pageInSplit() {
+		return wholeFile || offsetOf(pos[0] - START_PAGE.length) < end;
+	}
+
+	/** Whether the cursor is still in the revision read again before the
+	 * start of the split (see {@link WikiRevisionInputFormat#CARRY_REVISION}),
+	 * which is not to be emitted */
+	public boolean inCarriedRevision() {
+		return carried && offsetOf(pos[0]) < start;
+	}
+
+	/** Position of the stream of the dump */
+	public long getPos() throws IOException {
+		return fsin.getPos();
+	}
+
+	/** Bytes read from the stream of the dump so far */
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	/** The progress is measured on the raw file, as the position of a
+	 * decompressing stream does not compare with the split boundaries */
+	public float getProgress() throws IOException {
+		if (end == start) {
+			return 0f;
+		}
+		float progress = (fileIn.getPos() - start) / (float) (end - start);
+		return Math.max(0f, Math.min(1f, progress));
+	}
+
+	/** Report the bytes read, close the streams and give the buffer back.
+	 * Closing twice has no effect */
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			SplitPlanner.countLocality(context, split, fileIn,
+					fileIn.getPos() - readFrom);
+			if (compressed) {
+				context.getCounter(SplitPlanner.Counters.DECOMPRESSED_BYTES)
+				.increment(bytesRead);
+				context.getCounter(SplitPlanner.Counters.DECOMPRESSED_SPLIT_BYTES)
+				.increment(splitBytesRead);
+			}
+			((InputStream) fsin).close();
+		} finally {
+			if (decompressor != null) {
+				CodecPool.returnDecompressor(decompressor);
+				decompressor = null;
+			}
+			BufferPool.release(buf);
+			buf = null;
+			reporter.stop();
+		}
+	}
+}
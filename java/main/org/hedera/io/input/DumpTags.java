@@ -0,0 +1,117 @@
+package org.hedera.io.input;
+
+import java.nio.charset.StandardCharsets;
+
+import org.hedera.util.TagAutomaton;
+import org.hedera.util.TagScanner;
+
+/**
+ * The tags of the Wikipedia XML dump schema that the revision readers care
+ * about, compiled once into a {@link TagAutomaton} (to find whichever of
+ * them comes next) and into one {@link TagScanner} per tag (to jump to one
+ * given tag).
+ *
+ * Some opening tags can carry attributes (e.g. &lt;text bytes="42"
+ * xml:space="preserve"&gt;, or &lt;contributor deleted="deleted" /&gt;).
+ * They are matched by their name only, and the rest of the tag up to the
+ * closing '&gt;' is consumed by the {@link TagReader}.
+ *
+ * To support a new element of the schema, just add its opening and closing
+ * tags at the end of the list below.
+ *
+ * @author tuan
+ */
+public final class DumpTags {
+
+	public static final int PAGE_START = 0;
+	public static final int PAGE_END = 1;
+	public static final int TITLE_START = 2;
+	public static final int TITLE_END = 3;
+	public static final int NS_START = 4;
+	public static final int NS_END = 5;
+	public static final int ID_START = 6;
+	public static final int ID_END = 7;
+	public static final int REDIRECT_START = 8;
+	public static final int REDIRECT_END = 9;
+	public static final int REVISION_START = 10;
+	public static final int REVISION_END = 11;
+	public static final int PARENT_ID_START = 12;
+	public static final int PARENT_ID_END = 13;
+	public static final int TIMESTAMP_START = 14;
+	public static final int TIMESTAMP_END = 15;
+	public static final int CONTRIBUTOR_START = 16;
+	public static final int CONTRIBUTOR_END = 17;
+	public static final int MINOR = 18;
+	public static final int COMMENT_START = 19;
+	public static final int COMMENT_END = 20;
+	public static final int MODEL_START = 21;
+	public static final int MODEL_END = 22;
+	public static final int FORMAT_START = 23;
+	public static final int FORMAT_END = 24;
+	public static final int TEXT_START = 25;
+	public static final int TEXT_END = 26;
+	public static final int SHA1_START = 27;
+	public static final int SHA1_END = 28;
+
+	// tags ending with a blank are opened with attributes. Their name is
+	// matched without the blank, and their closing counterpart follows
+	private static final String[] TAGS = {
+		"<page>", "</page>",
+		"<title>", "</title>",
+		"<ns>", "</ns>",
+		"<id>", "</id>",
+		"<redirect ", "</redirect>",
+		"<revision>", "</revision>",
+		"<parentid>", "</parentid>",
+		"<timestamp>", "</timestamp>",
+		"<contributor ", "</contributor>",
+		"<minor/>",
+		"<comment ", "</comment>",
+		"<model>", "</model>",
+		"<format>", "</format>",
+		"<text ", "</text>",
+		"<sha1>", "</sha1>"
+	};
+
+	public static final int COUNT = TAGS.length;
+
+	private static final byte[][] BYTES = new byte[COUNT][];
+	private static final boolean[] ATTRIBUTED = new boolean[COUNT];
+	private static final TagScanner[] SCANNERS = new TagScanner[COUNT];
+
+	public static final TagAutomaton AUTOMATON;
+
+	static {
+		for (int t = 0; t < COUNT; t++) {
+			String tag = TAGS[t];
+			ATTRIBUTED[t] = tag.endsWith(" ");
+			BYTES[t] = tag.trim().getBytes(StandardCharsets.UTF_8);
+			SCANNERS[t] = new TagScanner(BYTES[t]);
+		}
+		AUTOMATON = new TagAutomaton(BYTES);
+	}
+
+	private DumpTags() {
+	}
+
+	/** The bytes that identify the given tag in the dump */
+	public static byte[] bytes(int tag) {
+		return BYTES[tag];
+	}
+
+	public static TagScanner scanner(int tag) {
+		return SCANNERS[tag];
+	}
+
+	/** Whether the tag is matched by its name only, and has attributes
+	 * until the closing '&gt;' */
+	public static boolean hasAttributes(int tag) {
+		return ATTRIBUTED[tag];
+	}
+
+	/** The closing counterpart of an opening tag, for tags which can be
+	 * closed in place (&lt;tag ... /&gt;) */
+	public static int closing(int tag) {
+		return tag + 1;
+	}
+}
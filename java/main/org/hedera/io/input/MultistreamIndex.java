@@ -0,0 +1,148 @@
+package org.hedera.io.input;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.log4j.Logger;
+
+/**
+ * The index of a Wikimedia multistream dump. Such a dump
+ * (xxx-multistream.xml.bz2) is a concatenation of bzip2 streams of 100
+ * pages each, and its index (xxx-multistream-index.txt.bz2) has one line
+ * "offset:page id:title" per page, giving the offset of the stream holding
+ * the page. The first stream holds the header of the dump, and the last one
+ * its footer: they are not in the index.
+ *
+ * Reading the index gives the offsets of all the streams, and those of the
+ * streams holding some given pages.
+ *
+ * @author tuan
+ */
+public class MultistreamIndex {
+
+	private static final Logger LOG = Logger.getLogger(MultistreamIndex.class);
+
+	public static final String DUMP_SUFFIX = "-multistream.xml.bz2";
+	public static final String INDEX_SUFFIX = "-multistream-index.txt.bz2";
+
+	private final long[] streams;
+
+	// the pages looked for that are found, with the offset of their stream
+	private final long[] pageIds;
+	private final long[] pageStreams;
+
+	private MultistreamIndex(long[] streams, long[] pageIds, long[] pageStreams) {
+		this.streams = streams;
+		this.pageIds = pageIds;
+		this.pageStreams = pageStreams;
+	}
+
+	/**
+	 * The index of a multistream dump, in the given directory or next to the
+	 * dump if the directory is null. Returns null if the file is not a
+	 * multistream dump or if its index does not exist
+	 */
+	public static Path find(Configuration conf, Path dump, String dir)
+			throws IOException {
+		String name = dump.getName();
+		if (!name.endsWith(DUMP_SUFFIX)) {
+			return null;
+		}
+		String indexName = name.substring(0, name.length() - DUMP_SUFFIX.length())
+				+ INDEX_SUFFIX;
+		Path index = (dir == null) ? new Path(dump.getParent(), indexName)
+				: new Path(dir, indexName);
+		return index.getFileSystem(conf).exists(index) ? index : null;
+	}
+
+	/**
+	 * Read the index, and look for the given pages
+	 * @param ids the ids of the pages to look for, or null
+	 * @param titles the titles of the pages to look for, as in the index
+	 * (not escaped), or null
+	 */
+	public static MultistreamIndex read(Configuration conf, Path index,
+			Set<Long> ids, Set<String> titles) throws IOException {
+		FileSystem fs = index.getFileSystem(conf);
+		CompressionCodec codec = new CompressionCodecFactory(conf).getCodec(index);
+		Decompressor decompressor = (codec == null) ? null
+				: CodecPool.getDecompressor(codec);
+		LongArrayList streams = new LongArrayList();
+		LongArrayList pageIds = new LongArrayList();
+		LongArrayList pageStreams = new LongArrayList();
+		try (InputStream raw = fs.open(index)) {
+			InputStream in = (codec == null) ? raw
+					: codec.createInputStream(raw, decompressor);
+			BufferedReader reader = new BufferedReader(new InputStreamReader(in,
+					StandardCharsets.UTF_8));
+			String line;
+			long last = -1;
+			while ((line = reader.readLine()) != null) {
+				int i = line.indexOf(':');
+				int j = line.indexOf(':', i + 1);
+				if (i <= 0 || j < 0) {
+					continue;
+				}
+				long offset = Long.parseLong(line.substring(0, i));
+				if (offset != last) {
+					if (offset < last) {
+						throw new IOException("Unordered index " + index + " at "
+								+ offset);
+					}
+					streams.add(offset);
+					last = offset;
+				}
+				if (ids == null && titles == null) {
+					continue;
+				}
+				long id = Long.parseLong(line.substring(i + 1, j));
+				if ((ids != null && ids.contains(id)) || (titles != null
+						&& titles.contains(line.substring(j + 1)))) {
+					pageIds.add(id);
+					pageStreams.add(offset);
+				}
+			}
+		} finally {
+			if (decompressor != null) {
+				CodecPool.returnDecompressor(decompressor);
+			}
+		}
+		LOG.info("Read " + streams.size() + " streams from " + index.getName()
+				+ ((ids == null && titles == null) ? "" : ", found "
+				+ pageIds.size() + " pages"));
+		return new MultistreamIndex(streams.toLongArray(),
+				pageIds.toLongArray(), pageStreams.toLongArray());
+	}
+
+	/** The offsets of the streams holding pages, in increasing order */
+	public long[] getStreams() {
+		return streams;
+	}
+
+	/** The number of pages looked for that are in the index */
+	public int getPageCount() {
+		return pageIds.length;
+	}
+
+	public long getPageId(int i) {
+		return pageIds[i];
+	}
+
+	/** The offset of the stream holding the i-th page found */
+	public long getPageStream(int i) {
+		return pageStreams[i];
+	}
+}
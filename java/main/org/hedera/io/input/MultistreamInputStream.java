@@ -0,0 +1,167 @@
+package org.hedera.io.input;
+
+import static org.hedera.io.input.DumpTags.ID_START;
+import static org.hedera.io.input.DumpTags.PAGE_END;
+import static org.hedera.io.input.DumpTags.PAGE_START;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Seekable;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.hedera.util.BoundedInputStream;
+import org.hedera.util.TagScanner;
+
+/**
+ * Reads the streams of a {@link StreamSplit}, each one decompressed on its
+ * own from its offset: the streams in between are not read. When the split
+ * lists the pages to read, the other pages of the streams are dropped.
+ *
+ * A read never spans two streams, and the position is the offset of the
+ * stream holding the bytes last read, so that all the pages read belong to
+ * the split. This stream cannot seek.
+ *
+ * @author tuan
+ */
+public class MultistreamInputStream extends InputStream implements Seekable {
+
+	private final FSDataInputStream file;
+	private final CompressionCodec codec;
+	private final Decompressor decompressor;
+	private final StreamSplit split;
+	private final long[] pageIds;
+
+	private int stream = -1;
+	private long pos;
+
+	// the current stream, decompressed
+	private byte[] data = new byte[1 << 20];
+	private int length;
+	private int index;
+
+	public MultistreamInputStream(FSDataInputStream file, CompressionCodec codec,
+			StreamSplit split) throws IOException {
+		this.file = file;
+		this.codec = codec;
+		this.split = split;
+		this.pageIds = split.getPageIds();
+		this.decompressor = CodecPool.getDecompressor(codec);
+		this.pos = split.getStart();
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		while (index == length) {
+			if (!nextStream()) {
+				return -1;
+			}
+		}
+		int n = Math.min(len, length - index);
+		System.arraycopy(data, index, b, off, n);
+		index += n;
+		return n;
+	}
+
+	@Override
+	public int read() throws IOException {
+		while (index == length) {
+			if (!nextStream()) {
+				return -1;
+			}
+		}
+		return data[index++] & 0xff;
+	}
+
+	private boolean nextStream() throws IOException {
+		if (++stream >= split.getStreamCount()) {
+			return false;
+		}
+		long start = split.getStreamStart(stream);
+		file.seek(start);
+		if (decompressor != null) {
+			decompressor.reset();
+		}
+		InputStream cin = codec.createInputStream(new BoundedInputStream(file,
+				split.getStreamEnd(stream) - start), decompressor);
+		length = 0;
+		int n;
+		while ((n = cin.read(data, length, data.length - length)) != -1) {
+			length += n;
+			if (length == data.length) {
+				data = Arrays.copyOf(data, 2 * data.length);
+			}
+		}
+		if (pageIds != null) {
+			length = keepPages();
+		}
+		index = 0;
+		pos = start;
+		return true;
+	}
+
+	/** Move the pages to keep to the head of the data, and return their
+	 * length */
+	private int keepPages() {
+		TagScanner pageStart = DumpTags.scanner(PAGE_START);
+		TagScanner pageEnd = DumpTags.scanner(PAGE_END);
+		TagScanner idStart = DumpTags.scanner(ID_START);
+		int kept = 0;
+		int p = 0;
+		while (true) {
+			int from = pageStart.scan(data, p, length, 0);
+			if (from < 0) {
+				break;
+			}
+			int to = pageEnd.scan(data, from, length, 0);
+			if (to < 0) {
+				break;
+			}
+			from -= DumpTags.bytes(PAGE_START).length;
+			int id = idStart.scan(data, from, to, 0);
+			if (id >= 0 && Arrays.binarySearch(pageIds, parseLong(id, to)) >= 0) {
+				System.arraycopy(data, from, data, kept, to - from);
+				kept += to - from;
+			}
+			p = to;
+		}
+		return kept;
+	}
+
+	private long parseLong(int from, int to) {
+		long value = 0;
+		for (int i = from; i < to && data[i] >= '0' && data[i] <= '9'; i++) {
+			value = 10 * value + (data[i] - '0');
+		}
+		return value;
+	}
+
+	@Override
+	public long getPos() {
+		return pos;
+	}
+
+	@Override
+	public void seek(long p) throws IOException {
+		throw new IOException("Cannot seek a multistream split");
+	}
+
+	@Override
+	public boolean seekToNewSource(long p) {
+		return false;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (decompressor != null) {
+			CodecPool.returnDecompressor(decompressor);
+		}
+		file.close();
+	}
+}
@@ -0,0 +1,167 @@
+package org.hedera.io.input;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+
+/**
+ * A split of an uncompressed dump file that can start and end inside a page,
+ * right before one of its &lt;revision&gt; tags. It is made in the revision
+ * split mode (see {@link WikiRevisionInputFormat#SPLIT_MODE_REVISION}) to cut
+ * the pages whose history is too big for one task.
+ *
+ * A split starting inside a page carries the context of the page (id, title,
+ * namespace and redirect): the reader first reads a page header made out of it (see
+ * {@link #header()}), then the revisions from the start of the split. A split
+ * ending inside a page is read until its end offset, followed by a closing
+ * &lt;/page&gt;. This way, the record readers see a cut page as several pages
+ * with the same header, each holding a run of consecutive revisions.
+ *
+ * The split also records where the revision before its start begins, so
+ * that readers working on pairs of revisions (diffs, ETL) can read it again
+ * as the predecessor of their first revision
+ * (see {@link WikiRevisionInputFormat#CARRY_REVISION}).
+ *
+ * @author tuan
+ */
+public class PageSplit extends FileSplit {
+
+	// context of the page at the start of the split, title is null if the
+	// split does not start inside a page
+	private long pageId;
+	private String title;
+	private int namespace;
+
+	// the <redirect .../> element of the page as in the dump, null if the
+	// page is not a redirect
+	private String redirect;
+	private long previousRevision = -1;
+
+	private boolean endsInPage;
+
+	public PageSplit() {
+		super();
+	}
+
+	/**
+	 * @param context the split that ends where this one starts, whose page
+	 * continues in this split. Null if this split starts between two pages
+	 */
+	public PageSplit(Path file, long start, long length, String[] hosts,
+			PageSplit context, boolean endsInPage) {
+		super(file, start, length, hosts);
+		if (context != null) {
+			this.pageId = context.pageId;
+			this.title = context.title;
+			this.namespace = context.namespace;
+			this.redirect = context.redirect;
+			this.previousRevision = context.previousRevision;
+		}
+		this.endsInPage = endsInPage;
+	}
+
+	/**
+	 * A split of length 0 holding the context of a page, from which the split
+	 * starting inside this page is made
+	 * @param redirect the redirect element of the page, or null
+	 * @param previousRevision offset of the last revision of the page before
+	 * the start, or -1
+	 */
+	public PageSplit(Path file, long start, long pageId, String title,
+			int namespace, String redirect, long previousRevision) {
+		super(file, start, 0, new String[0]);
+		this.pageId = pageId;
+		this.title = title;
+		this.namespace = namespace;
+		this.redirect = redirect;
+		this.previousRevision = previousRevision;
+	}
+
+	public boolean startsInPage() {
+		return title != null;
+	}
+
+	public boolean endsInPage() {
+		return endsInPage;
+	}
+
+	public long getPageId() {
+		return pageId;
+	}
+
+	/** The title of the page, as it appears in the dump (XML-escaped) */
+	public String getTitle() {
+		return title;
+	}
+
+	public int getNamespace() {
+		return namespace;
+	}
+
+	/** The redirect element of the page as it appears in the dump, or null
+	 * if the page is not a redirect */
+	public String getRedirect() {
+		return redirect;
+	}
+
+	/** Offset of the revision of the page right before the start of the split,
+	 * or -1 if unknown */
+	public long getPreviousRevision() {
+		return previousRevision;
+	}
+
+	/** The header of the page continued by this split, in the dump format */
+	public byte[] header() {
+		return ("<page>\n    <title>" + title + "</title>\n    <ns>" + namespace
+				+ "</ns>\n    <id>" + pageId + "</id>\n    "
+				+ ((redirect == null) ? "" : redirect + "\n    "))
+				.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		super.write(out);
+		out.writeBoolean(title != null);
+		if (title != null) {
+			out.writeLong(pageId);
+			Text.writeString(out, title);
+			out.writeInt(namespace);
+			out.writeBoolean(redirect != null);
+			if (redirect != null) {
+				Text.writeString(out, redirect);
+			}
+			out.writeLong(previousRevision);
+		}
+		out.writeBoolean(endsInPage);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		super.readFields(in);
+		if (in.readBoolean()) {
+			pageId = in.readLong();
+			title = Text.readString(in);
+			namespace = in.readInt();
+			redirect = in.readBoolean() ? Text.readString(in) : null;
+			previousRevision = in.readLong();
+		} else {
+			pageId = 0;
+			title = null;
+			namespace = 0;
+			redirect = null;
+			previousRevision = -1;
+		}
+		endsInPage = in.readBoolean();
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() + (startsInPage() ? " from page " + pageId : "")
+				+ (endsInPage ? " (cut)" : "");
+	}
+}
@@ -0,0 +1,94 @@
+package org.hedera.io.input;
+
+import static org.hedera.io.input.WikiRevisionInputFormat.FIELDS;
+import static org.hedera.io.input.WikiRevisionInputFormat.MINOR_ONLY;
+import static org.hedera.io.input.WikiRevisionInputFormat.REVISION_BEGIN_TIME;
+import static org.hedera.io.input.WikiRevisionInputFormat.REVISION_END_TIME;
+import static org.hedera.io.input.WikiRevisionInputFormat.SKIP_USER_PATTERN;
+import static org.hedera.io.input.WikiRevisionInputFormat.TITLE_PATTERN;
+import static org.hedera.io.input.WikiRevisionInputFormat.TITLE_PREFIX;
+import static org.hedera.io.input.WikiRevisionInputFormat.USER_PATTERN;
+
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * The fields of the revisions that a job reads, as a mask of bits. They are
+ * set in {@link WikiRevisionInputFormat#FIELDS} by their names, which are
+ * those of the Parquet columns (see org.hedera.io.parquet.RevisionSchema).
+ * The page id, the key of the records, is always read, and so are the
+ * fields that the revisions are filtered on (see {@link RevisionFilter}).
+ *
+ * @author tuan
+ */
+public final class RevisionFields {
+
+	public static final int PAGE_ID = 1;
+	public static final int REVISION_ID = 1 << 1;
+	public static final int PARENT_ID = 1 << 2;
+	public static final int TIMESTAMP = 1 << 3;
+	public static final int NAMESPACE = 1 << 4;
+	public static final int TITLE = 1 << 5;
+	// the length of the unescaped text, as the dump gives it or as counted
+	// from the text read (which is escaped, see Revision#getTextLength())
+	public static final int LENGTH = 1 << 6;
+	public static final int MINOR = 1 << 7;
+	public static final int USER = 1 << 8;
+	public static final int USER_ID = 1 << 9;
+	public static final int COMMENT = 1 << 10;
+	public static final int TEXT = 1 << 11;
+
+	public static final int ALL = (1 << 12) - 1;
+
+	// the names of the fields, by bit
+	private static final String[] NAMES = {
+		"page_id", "rev_id", "parent_id", "timestamp", "namespace", "title",
+		"length", "minor", "user", "user_id", "comment", "text"
+	};
+
+	private RevisionFields() {
+	}
+
+	/** The mask of a comma-separated list of field names */
+	public static int parse(String fields) {
+		int mask = 0;
+		for (String field : fields.split(",")) {
+			field = field.trim();
+			if (field.isEmpty()) {
+				continue;
+			}
+			int bit = 0;
+			while (bit < NAMES.length && !NAMES[bit].equals(field)) {
+				bit++;
+			}
+			if (bit == NAMES.length) {
+				throw new IllegalArgumentException("Unknown field " + field);
+			}
+			mask |= 1 << bit;
+		}
+		return mask;
+	}
+
+	/** The fields to read in a job, all of them if none is set */
+	public static int get(Configuration conf) {
+		String fields = conf.get(FIELDS);
+		if (fields == null) {
+			return ALL;
+		}
+		int mask = parse(fields) | PAGE_ID;
+		if (conf.get(REVISION_BEGIN_TIME) != null
+				|| conf.get(REVISION_END_TIME) != null) {
+			mask |= TIMESTAMP;
+		}
+		if (conf.get(TITLE_PREFIX) != null || conf.get(TITLE_PATTERN) != null) {
+			mask |= TITLE;
+		}
+		if (conf.get(USER_PATTERN) != null
+				|| conf.get(SKIP_USER_PATTERN) != null) {
+			mask |= USER;
+		}
+		if (conf.get(MINOR_ONLY) != null) {
+			mask |= MINOR;
+		}
+		return mask;
+	}
+}
@@ -0,0 +1,214 @@
+package org.hedera.io.input;
+
+import static org.hedera.io.input.WikiRevisionInputFormat.MINOR_ONLY;
+import static org.hedera.io.input.WikiRevisionInputFormat.NAMESPACES;
+import static org.hedera.io.input.WikiRevisionInputFormat.REVISION_BEGIN_TIME;
+import static org.hedera.io.input.WikiRevisionInputFormat.REVISION_END_TIME;
+import static org.hedera.io.input.WikiRevisionInputFormat.SEED_FILE;
+import static org.hedera.io.input.WikiRevisionInputFormat.SKIP_NON_ARTICLES;
+import static org.hedera.io.input.WikiRevisionInputFormat.SKIP_USER_PATTERN;
+import static org.hedera.io.input.WikiRevisionInputFormat.TITLE_PATTERN;
+import static org.hedera.io.input.WikiRevisionInputFormat.TITLE_PREFIX;
+import static org.hedera.io.input.WikiRevisionInputFormat.USER_PATTERN;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.hedera.util.XmlEntities;
+
+/**
+ * The predicates on the header fields that select the pages and revisions
+ * to read, as set in the configuration of a job. The readers evaluate each
+ * one as soon as its field is parsed, and jump over the rest of a page (or
+ * revision) that fails it without buffering anything. The pages and
+ * revisions skipped by each predicate are counted.
+ *
+ * The page predicates are on the page id (the seed pages), the title and
+ * the namespace; the revision predicates on the timestamp, the contributor
+ * and the minor flag. The titles and user names are given as in the dumps,
+ * XML-escaped, and matched once unescaped.
+ *
+ * @author tuan
+ */
+public class RevisionFilter {
+
+	/** The pages (page predicates) or revisions (revision predicates)
+	 * skipped by each predicate */
+	public static enum Counters {
+		PAGE_ID, TITLE, NAMESPACE, TIME, USER, MINOR
+	}
+
+	// sorted ids of the pages to keep, or null for all
+	private long[] pageIds;
+
+	private final String titlePrefix;
+	private final Pattern titlePattern;
+
+	// sorted namespaces to keep, or null for all
+	private final int[] namespaces;
+
+	private final long minTime;
+	private final long maxTime;
+
+	private final Pattern userPattern;
+	private final Pattern skipUserPattern;
+
+	// 1 to keep the minor revisions only, 0 the other ones, -1 both
+	private final int minor;
+
+	private final long[] skipped = new long[Counters.values().length];
+
+	/**
+	 * @param skipNonArticles whether only the articles are kept, unless
+	 * the configuration says otherwise (see
+	 * {@link WikiRevisionInputFormat#SKIP_NON_ARTICLES})
+	 */
+	public RevisionFilter(Configuration conf, boolean skipNonArticles)
+			throws IOException {
+		Set<String> seeds = WikiRevisionInputFormat.readLines(conf, SEED_FILE);
+		if (seeds != null) {
+			pageIds = new long[seeds.size()];
+			int i = 0;
+			for (String id : seeds) {
+				pageIds[i++] = Long.parseLong(id);
+			}
+			Arrays.sort(pageIds);
+		}
+
+		titlePrefix = conf.get(TITLE_PREFIX);
+		titlePattern = compile(conf.get(TITLE_PATTERN));
+
+		String ns = conf.get(NAMESPACES);
+		if (ns != null) {
+			namespaces = parseInts(ns);
+		} else if (conf.getBoolean(SKIP_NON_ARTICLES, skipNonArticles)) {
+			namespaces = new int[] {0};
+		} else {
+			namespaces = null;
+		}
+
+		minTime = conf.getLong(REVISION_BEGIN_TIME, 0);
+		maxTime = conf.getLong(REVISION_END_TIME, Long.MAX_VALUE);
+
+		userPattern = compile(conf.get(USER_PATTERN));
+		skipUserPattern = compile(conf.get(SKIP_USER_PATTERN));
+
+		String m = conf.get(MINOR_ONLY);
+		minor = (m == null) ? -1 : (Boolean.parseBoolean(m) ? 1 : 0);
+	}
+
+	private static Pattern compile(String regex) {
+		return (regex == null) ? null : Pattern.compile(regex);
+	}
+
+	/** The sorted values of a comma-separated list of ints */
+	public static int[] parseInts(String list) {
+		String[] values = list.split(",");
+		int[] ints = new int[values.length];
+		int n = 0;
+		for (String v : values) {
+			v = v.trim();
+			if (!v.isEmpty()) {
+				ints[n++] = Integer.parseInt(v);
+			}
+		}
+		ints = Arrays.copyOf(ints, n);
+		Arrays.sort(ints);
+		return ints;
+	}
+
+	/** Keep only the given pages, e.g. those that a split is cut for. The
+	 * ids must be sorted */
+	public void setPageIds(long[] pageIds) {
+		this.pageIds = pageIds;
+	}
+
+	public boolean filtersTitle() {
+		return titlePrefix != null || titlePattern != null;
+	}
+
+	public boolean filtersTime() {
+		return minTime > 0 || maxTime < Long.MAX_VALUE;
+	}
+
+	public boolean filtersUser() {
+		return userPattern != null || skipUserPattern != null;
+	}
+
+	public boolean filtersMinor() {
+		return minor >= 0;
+	}
+
+	/** Whether any revision predicate is set, in which case the revisions
+	 * of a page are not all read */
+	public boolean filtersRevisions() {
+		return filtersTime() || filtersUser() || filtersMinor();
+	}
+
+	public boolean acceptPageId(long pageId) {
+		return pageIds == null || Arrays.binarySearch(pageIds, pageId) >= 0
+				|| reject(Counters.PAGE_ID);
+	}
+
+	public boolean acceptTitle(String title) {
+		if (title != null && filtersTitle()) {
+			title = XmlEntities.unescape(title);
+		}
+		return title == null
+				|| ((titlePrefix == null || title.startsWith(titlePrefix))
+						&& (titlePattern == null
+						|| titlePattern.matcher(title).matches()))
+				|| reject(Counters.TITLE);
+	}
+
+	public boolean acceptNamespace(int namespace) {
+		return namespaces == null
+				|| Arrays.binarySearch(namespaces, namespace) >= 0
+				|| reject(Counters.NAMESPACE);
+	}
+
+	public boolean acceptTime(long timestamp) {
+		return (timestamp >= minTime && timestamp < maxTime)
+				|| reject(Counters.TIME);
+	}
+
+	/** An anonymous contributor (null) has no name to match */
+	public boolean acceptUser(String user) {
+		if (user != null && filtersUser()) {
+			user = XmlEntities.unescape(user);
+		}
+		return ((userPattern == null
+				|| (user != null && userPattern.matcher(user).matches()))
+				&& (skipUserPattern == null || user == null
+				|| !skipUserPattern.matcher(user).matches()))
+				|| reject(Counters.USER);
+	}
+
+	public boolean acceptMinor(boolean isMinor) {
+		return minor < 0 || (minor == 1) == isMinor || reject(Counters.MINOR);
+	}
+
+	private boolean reject(Counters predicate) {
+		skipped[predicate.ordinal()]++;
+		return false;
+	}
+
+	/** Number of pages or revisions skipped by a predicate so far */
+	public long getSkipped(Counters predicate) {
+		return skipped[predicate.ordinal()];
+	}
+
+	/** Add the skipped pages and revisions to the counters of the task */
+	public void report(TaskAttemptContext context) {
+		for (Counters c : Counters.values()) {
+			if (skipped[c.ordinal()] > 0) {
+				context.getCounter(c).increment(skipped[c.ordinal()]);
+				skipped[c.ordinal()] = 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package org.hedera.io.input;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.MD5Hash;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.log4j.Logger;
+
+/**
+ * A persistent cache of the split plans computed by scanning the dump files
+ * (see {@link WikiRevisionInputFormat#getSplits(org.apache.hadoop.mapreduce.JobContext,
+ * FileStatus, long)}). The plan of one file is stored in its own small file
+ * of the cache directory, named after the hash of the file path.
+ *
+ * A plan is keyed by the path, length and modification time of the file, and
+ * by the options of the scan: the split size, the skip factor and the tail
+ * fraction under which the last split is merged. When the key does not
+ * match anymore, the plan is stale: it is ignored, and replaced by the newly
+ * computed one.
+ *
+ * Only the offsets and lengths of the splits are stored, as variable-length
+ * longs. The hosts are looked up from the block locations when the plan is
+ * loaded, as the blocks can move in the meantime.
+ *
+ * Failing to read or write the cache is not an error, the plan is simply
+ * computed again.
+ *
+ * @author tuan
+ */
+public class SplitCache {
+
+	private static final Logger LOG = Logger.getLogger(SplitCache.class);
+
+	private static final int MAGIC = 0x48535043;
+	private static final byte VERSION = 2;
+
+	private final FileSystem fs;
+	private final Path dir;
+
+	public SplitCache(FileSystem fs, Path dir) {
+		this.fs = fs;
+		this.dir = dir;
+	}
+
+	private Path entry(Path file) {
+		return new Path(dir, MD5Hash.digest(file.toString()).toString());
+	}
+
+	/**
+	 * The cached plan of the file for the given scan options, as consecutive
+	 * pairs (start, length), or null if there is none or if it is stale
+	 */
+	public long[] get(FileStatus file, long splitSize, float skipFactor,
+			float tail) {
+		Path p = entry(file.getPath());
+		try {
+			if (!fs.exists(p)) {
+				return null;
+			}
+			try (FSDataInputStream in = fs.open(p)) {
+				if (in.readInt() != MAGIC || in.readByte() != VERSION
+						|| !in.readUTF().equals(file.getPath().toString())
+						|| WritableUtils.readVLong(in) != file.getLen()
+						|| WritableUtils.readVLong(in) != file.getModificationTime()
+						|| WritableUtils.readVLong(in) != splitSize
+						|| in.readFloat() != skipFactor
+						|| in.readFloat() != tail) {
+					LOG.info("Stale split plan for " + file.getPath());
+					return null;
+				}
+				int n = WritableUtils.readVInt(in);
+				long[] plan = new long[2 * n];
+				long start = 0;
+				for (int i = 0; i < n; i++) {
+					start += WritableUtils.readVLong(in);
+					plan[2 * i] = start;
+					plan[2 * i + 1] = WritableUtils.readVLong(in);
+				}
+				return plan;
+			}
+		} catch (IOException e) {
+			LOG.warn("Cannot read the split plan of " + file.getPath(), e);
+			return null;
+		}
+	}
+
+	/** Store the plan of the file for the given scan options, replacing the
+	 * former one if any */
+	public void put(FileStatus file, long splitSize, float skipFactor,
+			float tail, List<InputSplit> splits) {
+		Path p = entry(file.getPath());
+
+		// write aside, so that concurrent jobs never read a partial plan
+		Path tmp = new Path(dir, p.getName() + "." + UUID.randomUUID() + ".tmp");
+		try {
+			fs.mkdirs(dir);
+			try (FSDataOutputStream out = fs.create(tmp, true)) {
+				out.writeInt(MAGIC);
+				out.writeByte(VERSION);
+				out.writeUTF(file.getPath().toString());
+				WritableUtils.writeVLong(out, file.getLen());
+				WritableUtils.writeVLong(out, file.getModificationTime());
+				WritableUtils.writeVLong(out, splitSize);
+				out.writeFloat(skipFactor);
+				out.writeFloat(tail);
+				WritableUtils.writeVInt(out, splits.size());
+				long start = 0;
+				for (InputSplit split : splits) {
+					FileSplit fileSplit = (FileSplit) split;
+					WritableUtils.writeVLong(out, fileSplit.getStart() - start);
+					WritableUtils.writeVLong(out, fileSplit.getLength());
+					start = fileSplit.getStart();
+				}
+			}
+			fs.delete(p, false);
+			if (!fs.rename(tmp, p)) {
+				fs.delete(tmp, false);
+				LOG.warn("Cannot cache the split plan of " + file.getPath());
+			}
+		} catch (IOException e) {
+			LOG.warn("Cannot cache the split plan of " + file.getPath(), e);
+		}
+	}
+}
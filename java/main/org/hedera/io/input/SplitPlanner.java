@@ -0,0 +1,177 @@
+package org.hedera.io.input;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.hdfs.DFSInputStream;
+import org.apache.hadoop.hdfs.client.HdfsDataInputStream;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.log4j.Logger;
+
+/**
+ * The parts of the split planning that do not depend on the dump format:
+ * - a split is assigned the hosts that store most of its bytes, not those of
+ * one particular block;
+ * - the split size of a file can be derived from a target number of
+ * uncompressed bytes per task, using the compression ratio observed on a
+ * sample at the head of the file;
+ * - the record readers report how many bytes they read from a local replica
+ * and from a remote one, so that the placement can be checked.
+ *
+ * @author tuan
+ */
+public final class SplitPlanner {
+
+	private static final Logger LOG = Logger.getLogger(SplitPlanner.class);
+
+	// bytes read from the file locally or not, and for compressed files the 
+	// bytes decompressed, of which those of the blocks starting in the split
+	// (the others are read past its end to finish its last page)
+	public static enum Counters {
+		LOCAL_BYTES, REMOTE_BYTES, DECOMPRESSED_BYTES, DECOMPRESSED_SPLIT_BYTES
+	}
+
+	private static String[] localHosts;
+
+	private SplitPlanner() {
+	}
+
+	/**
+	 * The hosts of the split [start, start + length), ordered by the number of
+	 * bytes of the split they store. As many hosts as the replication of the
+	 * blocks are kept
+	 */
+	public static String[] hosts(BlockLocation[] blocks, long start, long length)
+			throws IOException {
+		if (blocks == null) {
+			return new String[0];
+		}
+		final Map<String, Long> covered = new HashMap<>();
+		int replicas = 0;
+		long end = start + length;
+		for (BlockLocation block : blocks) {
+			long overlap = Math.min(end, block.getOffset() + block.getLength())
+					- Math.max(start, block.getOffset());
+			String[] hosts = block.getHosts();
+			if (overlap <= 0 || hosts == null) {
+				continue;
+			}
+			replicas = Math.max(replicas, hosts.length);
+			for (String host : hosts) {
+				Long bytes = covered.get(host);
+				covered.put(host, (bytes == null) ? overlap : bytes + overlap);
+			}
+		}
+		List<String> hosts = new ArrayList<>(covered.keySet());
+		Collections.sort(hosts, new Comparator<String>() {
+			@Override
+			public int compare(String h1, String h2) {
+				return Long.compare(covered.get(h2), covered.get(h1));
+			}
+		});
+		return hosts.subList(0, Math.min(replicas, hosts.size()))
+				.toArray(new String[0]);
+	}
+
+	/**
+	 * The ratio between the uncompressed and the compressed size of the file,
+	 * estimated by decompressing its first bytes. This is 1 for a file that
+	 * is not compressed
+	 * @param sample the number of uncompressed bytes to read
+	 */
+	public static double compressionRatio(FileSystem fs, FileStatus file,
+			CompressionCodec codec, long sample) throws IOException {
+		if (codec == null || file.getLen() == 0) {
+			return 1d;
+		}
+		Decompressor decompressor = CodecPool.getDecompressor(codec);
+		FSDataInputStream raw = fs.open(file.getPath());
+		try {
+			InputStream in = codec.createInputStream(raw, decompressor);
+			byte[] buf = new byte[64 * 1024];
+			long bytes = 0;
+			int n;
+			while (bytes < sample && (n = in.read(buf)) != -1) {
+				bytes += n;
+			}
+			long consumed = raw.getPos();
+			double ratio = (bytes == 0 || consumed == 0) ? 1d
+					: (double) bytes / consumed;
+			LOG.info("Compression ratio of " + file.getPath().getName() + ": "
+					+ ratio);
+			return ratio;
+		} finally {
+			raw.close();
+			CodecPool.returnDecompressor(decompressor);
+		}
+	}
+
+	/**
+	 * Count the bytes read by a record reader as local or remote. The read
+	 * statistics of HDFS are used when available, otherwise all the bytes
+	 * are local if the task runs on one of the hosts of the split
+	 * @param bytes the bytes read from the input stream, used when there are
+	 * no read statistics
+	 */
+	public static void countLocality(TaskAttemptContext context, FileSplit split,
+			FSDataInputStream in, long bytes) {
+		long local;
+		long total;
+		if (in instanceof HdfsDataInputStream) {
+			DFSInputStream.ReadStatistics stats =
+					((HdfsDataInputStream) in).getReadStatistics();
+			local = stats.getTotalLocalBytesRead();
+			total = stats.getTotalBytesRead();
+		} else {
+			total = Math.max(0, bytes);
+			local = isLocal(split) ? total : 0;
+		}
+		context.getCounter(Counters.LOCAL_BYTES).increment(local);
+		context.getCounter(Counters.REMOTE_BYTES).increment(total - local);
+	}
+
+	private static boolean isLocal(FileSplit split) {
+		String[] local = localHosts();
+		try {
+			for (String host : split.getLocations()) {
+				for (String l : local) {
+					if (l.equalsIgnoreCase(host)) {
+						return true;
+					}
+				}
+			}
+		} catch (IOException e) {
+			LOG.warn("Cannot get the hosts of " + split, e);
+		}
+		return false;
+	}
+
+	private static synchronized String[] localHosts() {
+		if (localHosts == null) {
+			try {
+				InetAddress addr = InetAddress.getLocalHost();
+				localHosts = new String[] {"localhost", addr.getHostName(),
+						addr.getCanonicalHostName(), addr.getHostAddress()};
+			} catch (IOException e) {
+				LOG.warn("Cannot resolve the local host", e);
+				localHosts = new String[] {"localhost"};
+			}
+		}
+		return localHosts;
+	}
+}
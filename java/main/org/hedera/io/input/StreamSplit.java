@@ -0,0 +1,112 @@
+package org.hedera.io.input;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+
+/**
+ * A split of a multistream bzip2 dump, made of whole bzip2 streams listed
+ * in the index of the dump (see {@link MultistreamIndex}). The streams are
+ * not necessarily contiguous: when looking for given pages, only the streams
+ * holding them are read, and only these pages are kept (see
+ * {@link MultistreamInputStream}).
+ *
+ * The split covers the bytes from the start of its first stream to the end of
+ * its last one.
+ *
+ * @author tuan
+ */
+public class StreamSplit extends FileSplit {
+
+	private long[] starts;
+	private long[] ends;
+
+	// the pages to keep, sorted, or null to keep all of them
+	private long[] pageIds;
+
+	public StreamSplit() {
+		super();
+	}
+
+	/**
+	 * @param starts the offsets of the streams, in the order of the file
+	 * @param ends the offsets right after the streams
+	 * @param pageIds the sorted ids of the pages to read, or null for all the
+	 * pages of the streams
+	 */
+	public StreamSplit(Path file, long[] starts, long[] ends, long[] pageIds,
+			String[] hosts) {
+		super(file, starts[0], ends[ends.length - 1] - starts[0], hosts);
+		this.starts = starts;
+		this.ends = ends;
+		this.pageIds = pageIds;
+	}
+
+	public int getStreamCount() {
+		return starts.length;
+	}
+
+	public long getStreamStart(int i) {
+		return starts[i];
+	}
+
+	public long getStreamEnd(int i) {
+		return ends[i];
+	}
+
+	/** The sorted ids of the pages to read, or null to read all */
+	public long[] getPageIds() {
+		return pageIds;
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		super.write(out);
+		WritableUtils.writeVInt(out, starts.length);
+		long last = 0;
+		for (int i = 0; i < starts.length; i++) {
+			WritableUtils.writeVLong(out, starts[i] - last);
+			WritableUtils.writeVLong(out, ends[i] - starts[i]);
+			last = ends[i];
+		}
+		WritableUtils.writeVInt(out, (pageIds == null) ? -1 : pageIds.length);
+		if (pageIds != null) {
+			last = 0;
+			for (long id : pageIds) {
+				WritableUtils.writeVLong(out, id - last);
+				last = id;
+			}
+		}
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		super.readFields(in);
+		int n = WritableUtils.readVInt(in);
+		starts = new long[n];
+		ends = new long[n];
+		long last = 0;
+		for (int i = 0; i < n; i++) {
+			starts[i] = last + WritableUtils.readVLong(in);
+			ends[i] = starts[i] + WritableUtils.readVLong(in);
+			last = ends[i];
+		}
+		int m = WritableUtils.readVInt(in);
+		pageIds = (m < 0) ? null : new long[m];
+		last = 0;
+		for (int i = 0; i < m; i++) {
+			pageIds[i] = last + WritableUtils.readVLong(in);
+			last = pageIds[i];
+		}
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() + " (" + starts.length + " streams"
+				+ ((pageIds == null) ? "" : ", " + pageIds.length + " pages") + ")";
+	}
+}
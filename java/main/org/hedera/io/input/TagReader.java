@@ -0,0 +1,273 @@
+package org.hedera.io.input;
+
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.hedera.util.TagAutomaton;
+import org.hedera.util.TagScanner;
+
+/**
+ * Tokenizes the scan buffer of a revision reader into the tags of the dump
+ * schema ({@link DumpTags}). Two kinds of moves are supported:
+ *
+ * - {@link #next()} finds whichever relevant tag comes next, using the
+ * compiled automaton of the schema. This is used when the reader waits for
+ * one of several tags (e.g. either &lt;revision&gt; or &lt;/page&gt;).
+ *
+ * - {@link #readUntil(int, DataOutputBuffer)} jumps to one given tag, and
+ * optionally copies everything in between (the content of an element) into
+ * a buffer. The bytes are copied in bulk, and the closing tag itself is
+ * never copied.
+ *
+ * When the content of a &lt;text&gt; is not copied and the tag gives its
+ * length (&lt;text bytes="N"&gt;), the reader can be told to jump over most
+ * of the N bytes without looking at them (off by default). N is the length
+ * of the unescaped text, the escaped content is at least as long and holds
+ * no raw '&lt;': the first '&lt;' after the jump must open &lt;/text&gt;,
+ * which is checked before going on. The jump stops short of N by a margin,
+ * since the length stored for some old revisions is off, and stays in the
+ * current buffer: whenever the check fails, or the content goes on in the
+ * next buffer, the content is scanned again from its start. A length far
+ * too large could still land in the text of a later revision of the same
+ * buffer, so the jump is only for dumps whose lengths are to be trusted.
+ *
+ * The buffer and its cursor (pos[0] is the next byte to read, pos[1] the end
+ * of the valid data) are shared with the reader, which refills them via a
+ * {@link Refill} callback, and sets the new buffer if the refill swapped it.
+ *
+ * @author tuan
+ */
+public final class TagReader {
+
+	private static final byte[] BYTES_ATTRIBUTE =
+			"bytes=\"".getBytes(StandardCharsets.UTF_8);
+
+	/** Called when the scan buffer is consumed */
+	public interface Refill {
+
+		/** Read the next chunk of the stream into the buffer and reset the
+		 * cursor. Return false when reaching EOF */
+		boolean fill() throws IOException;
+	}
+
+	private byte[] buf;
+	private final int[] pos;
+	private final Refill refill;
+
+	private final TagAutomaton.Matcher matcher = DumpTags.AUTOMATON.matcher();
+
+	// attributes of the last opening tag that had some
+	private final DataOutputBuffer attributes = new DataOutputBuffer();
+
+	// closing tag of an element closed in place (<tag ... />), not consumed yet
+	private int pending = -1;
+
+	// length of the content of the <text> just opened, -1 if unknown or if
+	// the cursor moved since
+	private long textLength = -1;
+	private boolean skipText;
+
+	public TagReader(byte[] buf, int[] pos, Refill refill) {
+		this.buf = buf;
+		this.pos = pos;
+		this.refill = refill;
+	}
+
+	/** Whether the texts not copied are jumped over by their length, when
+	 * the dump gives it (false by default) */
+	public void setSkipText(boolean skipText) {
+		this.skipText = skipText;
+	}
+
+	/** Scan another buffer, e.g. after a refill swapped the buffer of the
+	 * reader */
+	public void setBuffer(byte[] buf) {
+		this.buf = buf;
+	}
+
+	/** Forget about the current tag, for instance after seeking the stream */
+	public void reset() {
+		matcher.reset();
+		pending = -1;
+		textLength = -1;
+	}
+
+	/**
+	 * Find the next tag of the schema.
+	 * @return the tag id (see {@link DumpTags}), or -1 if EOF is reached
+	 */
+	public int next() throws IOException {
+		textLength = -1;
+		if (pending >= 0) {
+			int tag = pending;
+			pending = -1;
+			return tag;
+		}
+		while (true) {
+			if (pos[0] >= pos[1] && !refill.fill()) {
+				return -1;
+			}
+			int end = matcher.find(buf, pos[0], pos[1]);
+			if (end < 0) {
+				pos[0] = pos[1];
+				continue;
+			}
+			pos[0] = end;
+			int tag = matcher.tag();
+			if (DumpTags.hasAttributes(tag) && !readAttributes(tag)) {
+				return -1;
+			}
+			return tag;
+		}
+	}
+
+	/**
+	 * Move the cursor right after the given tag.
+	 * @param sink if not null, everything before the tag goes there
+	 * @return true if the tag was found, false if EOF is reached
+	 */
+	public boolean readUntil(int tag, DataOutputBuffer sink) throws IOException {
+		long skip = textLength;
+		textLength = -1;
+		if (pending >= 0) {
+			int closing = pending;
+			pending = -1;
+			if (closing == tag) {
+				return true;
+			}
+		}
+		if (skip > 0 && sink == null && tag == DumpTags.TEXT_END
+				&& skip(tag, skip)) {
+			return true;
+		}
+		TagScanner scanner = DumpTags.scanner(tag);
+		byte[] t = scanner.getTag();
+
+		// the tag prefix matched at the end of the previous buffer. These
+		// bytes are not copied to the sink until we know they are content
+		int matched = 0;
+		while (true) {
+			if (pos[0] >= pos[1] && !refill.fill()) {
+				return false;
+			}
+			int from = pos[0];
+			int to = pos[1];
+			int r = scanner.scan(buf, from, to, matched);
+			if (r >= 0) {
+				if (sink != null) {
+					copy(sink, t, matched, from, matched + (r - from) - t.length);
+				}
+				pos[0] = r;
+				return !DumpTags.hasAttributes(tag) || readAttributes(tag);
+			}
+			int k = -r - 1;
+			if (sink != null) {
+				copy(sink, t, matched, from, matched + (to - from) - k);
+			}
+			matched = k;
+			pos[0] = to;
+		}
+	}
+
+	// copy the first n bytes of the stream made of the (pending) prefix
+	// t[0..matched) followed by buf[from..]
+	private void copy(DataOutputBuffer sink, byte[] t, int matched, int from,
+			int n) throws IOException {
+		if (n <= 0) {
+			return;
+		}
+		int c = Math.min(matched, n);
+		if (c > 0) {
+			sink.write(t, 0, c);
+		}
+		if (n > c) {
+			sink.write(buf, from, n - c);
+		}
+	}
+
+	// jump over most of the n first bytes of the content, then check that
+	// the first '<' opens the closing tag. The jump does not leave the current
+	// buffer, so that the content can always be scanned again. Return true if
+	// the cursor is then right after the tag, false if it did not move (the
+	// length was wrong, or the tag is not in the buffer)
+	private boolean skip(int tag, long n) {
+		int from = pos[0] + (int) Math.min(n - (n >>> 4), pos[1] - pos[0]);
+		int lt = TagScanner.indexOf(buf, from, pos[1], (byte) '<');
+		byte[] t = DumpTags.bytes(tag);
+		if (lt < 0 || lt + t.length > pos[1]) {
+			return false;
+		}
+		for (int j = 0; j < t.length; j++) {
+			if (buf[lt + j] != t[j]) {
+				return false;
+			}
+		}
+		pos[0] = lt + t.length;
+		return true;
+	}
+
+	// the value of the bytes="..." attribute, or -1 if there is none
+	private static long bytesAttribute(byte[] a, int len) {
+		byte[] b = BYTES_ATTRIBUTE;
+		for (int i = 0; i + b.length <= len; i++) {
+			if (i > 0 && a[i - 1] != ' ') {
+				continue;
+			}
+			int j = 0;
+			while (j < b.length && a[i + j] == b[j]) {
+				j++;
+			}
+			if (j < b.length) {
+				continue;
+			}
+			long n = 0;
+			int k = i + j;
+			for (; k < len && k - i - j < 18 && a[k] >= '0' && a[k] <= '9'; k++) {
+				n = n * 10 + (a[k] - '0');
+			}
+			return (k > i + j && k < len && a[k] == '"') ? n : -1;
+		}
+		return -1;
+	}
+
+	// consume the rest of an opening tag until '>'. If the element is closed
+	// in place, its closing tag becomes the next one to be read
+	private boolean readAttributes(int tag) throws IOException {
+		attributes.reset();
+		while (true) {
+			if (pos[0] >= pos[1] && !refill.fill()) {
+				return false;
+			}
+			int from = pos[0];
+			int gt = TagScanner.indexOf(buf, from, pos[1], (byte) '>');
+			if (gt < 0) {
+				attributes.write(buf, from, pos[1] - from);
+				pos[0] = pos[1];
+				continue;
+			}
+			attributes.write(buf, from, gt - from);
+			pos[0] = gt + 1;
+			int len = attributes.getLength();
+			if (len > 0 && attributes.getData()[len - 1] == '/') {
+				pending = DumpTags.closing(tag);
+			} else if (skipText && tag == DumpTags.TEXT_START) {
+				textLength = bytesAttribute(attributes.getData(), len);
+			}
+			return true;
+		}
+	}
+
+	/** The length of the unescaped text given by the last &lt;text&gt;
+	 * opened (&lt;text bytes="N"&gt;), or -1 if it gives none */
+	public long textBytes() {
+		return bytesAttribute(attributes.getData(), attributes.getLength());
+	}
+
+	/** The raw attributes of the last opening tag that can have some (e.g.
+	 * &lt;text&gt;), valid until the next such tag */
+	public DataOutputBuffer attributes() {
+		return attributes;
+	}
+}
@@ -1,25 +1,39 @@
 package org.hedera.io.input;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.LinkedList;
 import java.util.List;
 
-import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.hedera.io.RevisionDiff;
-
-import com.twitter.elephantbird.util.TaskHeartbeatThread;
+import org.hedera.util.ByteParser;
 
 import difflib.Delta;
 import difflib.DiffUtils;
 import difflib.Patch;
 
+import static org.hedera.io.input.DumpTags.PAGE_START;
+import static org.hedera.io.input.DumpTags.PAGE_END;
+import static org.hedera.io.input.DumpTags.TITLE_START;
+import static org.hedera.io.input.DumpTags.TITLE_END;
+import static org.hedera.io.input.DumpTags.NS_START;
+import static org.hedera.io.input.DumpTags.NS_END;
+import static org.hedera.io.input.DumpTags.ID_START;
+import static org.hedera.io.input.DumpTags.ID_END;
+import static org.hedera.io.input.DumpTags.REVISION_START;
+import static org.hedera.io.input.DumpTags.REVISION_END;
+import static org.hedera.io.input.DumpTags.PARENT_ID_START;
+import static org.hedera.io.input.DumpTags.PARENT_ID_END;
+import static org.hedera.io.input.DumpTags.TIMESTAMP_START;
+import static org.hedera.io.input.DumpTags.TIMESTAMP_END;
+import static org.hedera.io.input.DumpTags.TEXT_START;
+import static org.hedera.io.input.DumpTags.TEXT_END;
+
 public class WikiRevisionDiffInputFormat 
 		extends WikiRevisionInputFormat<LongWritable, RevisionDiff> {
 	
@@ -61,23 +75,8 @@ public class WikiRevisionDiffInputFormat
 	// 19 - just passed the </page>
 	public static class DiffReader extends WikiRevisionReader<RevisionDiff> {
 
-		// Extra flags:
-		//
-		// indicating the flow condition within [flag = 16]
-		// -1 - Unmatched
-		//  1 - Matched <revision> tag partially
-		//  2 - Matched </page> tag partially
-		//  3 - Matched both <revision> and </page> partially
-		private int revOrPage = -1;
-
-		// indicating the flow condition within [flag = 9]
-		// -1 - Unmatched
-		//  1 - Matched <parentId> tag partially
-		//  2 - Matched <timestamp> tag partially
-		//  3 - Matched both <parentId> and <timestamp> partially
-		private int parOrTs = -1;
-		
-		private TaskAttemptContext context;
+		// Extra state: the page is skipped, ignore everything till </page>
+		private static final int SKIP_PAGE = 20;
 
 		// We now convert and cache everything from pageHeader to the followin global variables
 		// NOTE: they all need to be synchronized with pageHeader !!
@@ -99,17 +98,76 @@ public class WikiRevisionDiffInputFormat
 		// END revision buffer variables
 		//////////////////////////////////////////////////////////////
 
+		public DiffReader() {
+			on(1, PAGE_START, 2);
+			on(19, PAGE_START, 2);
+			on(2, TITLE_START, 3);
+
+			// put everything between <title></title> block into title
+			on(3, TITLE_END, 4);
+			capture(3, pageTitle);
+			on(4, NS_START, 5);
+
+			// everything within <ns></ns> block goes into nsBuf
+			on(5, NS_END, 6);
+			capture(5, nsBuf);
+			on(6, ID_START, 7);
+
+			// put everything in outer <id></id> block into keyBuf
+			on(7, ID_END, 8);
+			capture(7, keyBuf);
+			on(8, REVISION_START, 9);
+
+			// inside <revision></revision> block, first check for id
+			on(9, ID_START, 10);
+			on(10, ID_END, 11);
+			capture(10, revIdBuf);
+
+			// after the inner <id>, check for either <timestamp> or <parentid>
+			on(11, PARENT_ID_START, 14);
+			on(11, TIMESTAMP_START, 12);
+			on(12, TIMESTAMP_END, 13);
+			capture(12, timestampBuf);
+			on(14, PARENT_ID_END, 15);
+			capture(14, parBuf);
+			on(15, TIMESTAMP_START, 12);
+
+			// after the </timestamp>, check for <text>
+			on(13, TEXT_START, 16);
+
+			// inside <text></text> block everything goes to content buffer
+			on(16, TEXT_END, 17);
+			capture(16, contentBuf);
+
+			// look for the closing </revision>
+			on(17, REVISION_END, 18);
+
+			// Flag 18 can be the signal of a new record inside one old page
+			on(18, REVISION_START, 9);
+			on(18, PAGE_END, 19);
+
+			// when passing the namespace and we realize that 
+			// this is not an article, and that the option of skipping
+			// non-article pages is on, we simply skip everything till
+			// the closing </page>
+			on(SKIP_PAGE, PAGE_END, 19);
+		}
+
 		@Override
 		public void initialize(InputSplit input, TaskAttemptContext tac)
 				throws IOException, InterruptedException {
 			super.initialize(input, tac);
 			value = new RevisionDiff(); 
-			this.context = tac;
+
+			// the elements of the fields not read are jumped over. The texts
+			// are always read, to compute the diffs
+			capture(3, reads(RevisionFields.TITLE) ? pageTitle : null);
+			capture(10, reads(RevisionFields.REVISION_ID) ? revIdBuf : null);
+			capture(12, reads(RevisionFields.TIMESTAMP) ? timestampBuf : null);
+			capture(14, reads(RevisionFields.PARENT_ID) ? parBuf : null);
 		}
 
 		private void resetEverything() {
-			revOrPage = -1;
-			parOrTs = -1;
 			nsBuf.reset();
 			timestampBuf.reset();
 			revIdBuf.reset();
@@ -122,6 +180,11 @@ public class WikiRevisionDiffInputFormat
 			skipped = false;
 		}
 
+		@Override
+		protected int state() {
+			return (skipped && flag >= 6 && flag < 19) ? SKIP_PAGE : flag;
+		}
+
 		@Override
 		protected STATE doWhenMatch() throws IOException, InterruptedException {
 			if (flag == 19) {
@@ -140,7 +203,7 @@ public class WikiRevisionDiffInputFormat
 				if (!skipped) {
 					// create a mass number of strings
 					List<String> content = extractParagraph(contentBuf.getData(), 0,
-							contentBuf.getLength() - END_TEXT.length);
+							contentBuf.getLength());
 
 					Patch patch = DiffUtils.diff(lastRevText, content);						
 					for (Delta d : patch.getDeltas()) {
@@ -154,30 +217,27 @@ public class WikiRevisionDiffInputFormat
 			}
 
 			else if (flag == 15) {
-				if (!skipped) {
-					String parIdStr = new String(parBuf.getData(), 0, parBuf.getLength() 
-							- END_PARENT_ID.length);
-					long parId = Long.parseLong(parIdStr);
+				if (!skipped && reads(RevisionFields.PARENT_ID)) {
+					long parId = ByteParser.parseLong(parBuf.getData(), 0,
+							parBuf.getLength());
 					value.setParentId(parId);
 				}
 				parBuf.reset();
 			}
 
 			else if (flag == 13) {
-				if (!skipped) {
-					String ts = new String(timestampBuf.getData(), 0, timestampBuf.getLength() 
-							- END_TIMESTAMP.length);
-					long timestamp = TIME_FORMAT.parseMillis(ts);
+				if (!skipped && reads(RevisionFields.TIMESTAMP)) {
+					long timestamp = timeParser.parse(timestampBuf.getData(), 0,
+							timestampBuf.getLength());
 					value.setTimestamp(timestamp);
 				}
 				timestampBuf.reset();
 			}
 
 			else if (flag == 11) {
-				if (!skipped) {
-					String idStr = new String(revIdBuf.getData(), 0, revIdBuf.getLength()
-							- END_ID.length);
-					long revId = Long.parseLong(idStr);
+				if (!skipped && reads(RevisionFields.REVISION_ID)) {
+					long revId = ByteParser.parseLong(revIdBuf.getData(), 0,
+							revIdBuf.getLength());
 					value.setRevisionId(revId);
 				}
 				revIdBuf.reset();
@@ -185,30 +245,32 @@ public class WikiRevisionDiffInputFormat
 
 			else if (flag == 8) {
 				if (!skipped) {
-					String idStr = new String(keyBuf.getData(), 0, keyBuf.getLength()
-							- END_ID.length);
-					long pageId = Long.parseLong(idStr);
+					long pageId = ByteParser.parseLong(keyBuf.getData(), 0,
+							keyBuf.getLength());
 					key.set(pageId);
 					value.setPageId(pageId);
+					skipped = !filter.acceptPageId(pageId);
 				}
 				keyBuf.reset();
 			}
 
 			else if (flag == 6) {
-				String nsStr = new String(nsBuf.getData(), 0, nsBuf.getLength()
-						- END_NAMESPACE.length);
-				int ns = Integer.parseInt(nsStr);
-				if (ns != 0) {
-					skipped = skipNonArticles;					
+				if (!skipped) {
+					int ns = ByteParser.parseInt(nsBuf.getData(), 0,
+							nsBuf.getLength());
+					value.setNamespace(ns);
+					skipped = !filter.acceptNamespace(ns);
 				}
-				value.setNamespace(ns);
 				nsBuf.reset();
 			}
 
 			else if (flag == 4) {
-				String title = new String(pageTitle.getData(), 0, pageTitle.getLength()
-						- END_TITLE.length);
-				value.setPageTitle(title);
+				if (reads(RevisionFields.TITLE)) {
+					String title = new String(pageTitle.getData(), 0, 
+							pageTitle.getLength());
+					value.setPageTitle(title);
+					skipped = !filter.acceptTitle(title);
+				}
 				pageTitle.reset();
 			}
 
@@ -248,287 +310,5 @@ public class WikiRevisionDiffInputFormat
 			}
 			return res;
 		}
-
-		@Override
-		protected boolean readUntilMatch() throws IOException {
-			if (buf == null && pos.length != 2)
-				throw new IOException("Internal buffer corrupted.");
-			int i = 0;
-			while (true) {
-				if (pos[0] == pos[1]) {				
-					// We use a thread that pings back to the cluster every 5 minutes
-					// to avoid getting killed for slow read
-					TaskHeartbeatThread heartbeat = new TaskHeartbeatThread(context, 60 * 5000) {
-						@Override
-						protected void progress() {
-							LOG.info("Task " + context.getTaskAttemptID() 
-									+ " pings back...");
-						}
-					};
-
-					try {
-						heartbeat.start();
-						pos[1] = (compressed) ? ((InputStream)fsin).read(buf) :
-							((FSDataInputStream)fsin).read(buf);
-						pos[0] = 0;
-					} finally {
-						heartbeat.stop();
-					}
-
-					if (pos[1] == -1) {
-						flag = -1;
-						return false;
-					}
-				} 
-				while (pos[0] < pos[1]) {
-					byte b = buf[pos[0]];
-					pos[0]++;
-
-					// ignore every character until reaching a new page
-					if (flag == 1 || flag == 19) {
-						if (b == START_PAGE[i]) {
-							i++;
-							if (i >= START_PAGE.length) {
-								flag = 2;
-								return true;
-							}
-						} else i = 0;
-					}
-
-					else if (flag == 2) {
-						if (b == START_TITLE[i]) {
-							i++;
-						} else i = 0;
-						if (i >= START_TITLE.length) {
-							flag = 3;
-							return true;
-						}
-					}
-
-					// put everything between <title></title> block into title
-					else if (flag == 3) {
-						if (b == END_TITLE[i]) {
-							i++;
-						} else i = 0;
-						pageTitle.write(b);
-						if (i >= END_TITLE.length) {
-							flag = 4;
-							return true;
-						}
-					}
-
-					else if (flag == 4) {
-						if (b == START_NAMESPACE[i]) {
-							i++;
-						} else i = 0;
-						if (i >= START_NAMESPACE.length) {
-							flag = 5;
-							return true;
-						}
-					}
-
-					else if (flag == 5) {
-						if (b == END_NAMESPACE[i]) {
-							i++;
-						} else i = 0;
-						nsBuf.write(b);
-						if (i >= END_NAMESPACE.length) {
-							flag = 6;
-							return true;
-						}
-					}
-					
-					// when passing the namespace and we realize that 
-					// this is not an article, and that the option of skipping
-					// non-article pages is on, we simply skip everything until
-					// the closing </page>
-					else if (skipped && flag >= 6 && flag < 19) {
-						if (b == END_PAGE[i]) {
-							i++;
-						} else i = 0;
-						if (i >= END_PAGE.length) {
-							flag = 19;
-							return true;
-						}
-					}
-
-					else if (flag == 6) {
-						if (b == START_ID[i]) {
-							i++;
-						} else i = 0;
-						if (i >= START_ID.length) {
-							flag = 7;
-							return true;
-						}
-					}
-
-					// put everything in outer <id></id> block into keyBuf
-					else if (flag == 7) {
-						if (b == END_ID[i]) {
-							i++;
-						} else i = 0;
-						keyBuf.write(b);
-						if (i >= END_ID.length) {
-							flag = 8;
-							return true;
-						}
-					}
-
-					else if (flag == 8) {
-						if (b == START_REVISION[i]) {
-							i++;
-						} else i = 0;
-						if (i >= START_REVISION.length) {
-							flag = 9;
-							return true;
-						}
-					}
-
-					// inside <revision></revision> block, first check for id
-					else if (flag == 9) {
-						if (b == START_ID[i]) {
-							i++;
-						} else i = 0;
-						if (i >= START_ID.length) {
-							flag = 10;
-							return true;
-						}
-					}
-
-					// everything inside the inner <id></id> block goes to revision buffer
-					else if (flag == 10) {
-						if (b == END_ID[i]) {
-							i++;
-						} else i = 0;
-						revIdBuf.write(b);
-						if (i >= END_ID.length) {
-							flag = 11;
-							return true;
-						}
-					}
-
-					// after the inner <id>, check for either <timestamp> or <parentId>
-					else if (flag == 11) {
-						int curMatch = 0;				
-						if ((i < START_PARENT_ID.length && b == START_PARENT_ID[i]) 
-								&& (i < START_TIMESTAMP.length && b == START_TIMESTAMP[i])) {
-							curMatch = 3;
-						} else if (i < START_PARENT_ID.length && b == START_PARENT_ID[i]) {
-							curMatch = 1;
-						} else if (i < START_TIMESTAMP.length && b == START_TIMESTAMP[i]) {
-							curMatch = 2;
-						}				
-						if (curMatch > 0 && (i == 0 || parOrTs == 3 || curMatch == parOrTs)) {					
-							i++;			
-							parOrTs = curMatch;
-						} else i = 0;
-						if ((parOrTs == 2 || parOrTs == 3) && i >= START_TIMESTAMP.length) {
-							flag = 12;
-							parOrTs = -1;
-							return true;							
-						} else if ((parOrTs == 1 || parOrTs == 3) && i >= START_PARENT_ID.length) {
-							flag = 14;
-							parOrTs = -1;
-							return true;
-						}		
-					}
-
-					// inside <timestamp></timestamp> block everything goes to timestamp buffer
-					else if (flag == 12) {
-						if (b == END_TIMESTAMP[i]) {
-							i++;
-						} else i = 0;
-						timestampBuf.write(b);
-						if (i >= END_TIMESTAMP.length) {
-							flag = 13;
-							return true;
-						}
-					}
-
-					// inside <parentId></parentId> block everything goes to parentId buffer
-					else if (flag == 14) {
-						if (b == END_PARENT_ID[i]) {
-							i++;
-						} else i = 0;
-						parBuf.write(b);
-						if (i >= END_PARENT_ID.length) {
-							flag = 15;
-							return true;
-						}
-					}
-
-					// after the </parentId>, search for <timestamp>
-					else if (flag == 15) {
-						if (b == START_TIMESTAMP[i]) {
-							i++;
-						} else i = 0;
-						if (i >= START_TIMESTAMP.length) {
-							flag = 12;
-							return true;
-						}
-					}
-
-					// after the </timestamp>, check for <text>
-					else if (flag == 13) {
-						if (b == START_TEXT[i]) {
-							i++;
-						} else i = 0;
-						if (i >= START_TEXT.length) {
-							flag = 16;
-							return true;
-						}
-					}
-
-					// inside <text></text> block everything goes to content buffer
-					else if (flag == 16) {
-						if (b == END_TEXT[i]) {
-							i++;
-						} else i = 0;
-						contentBuf.write(b);
-						if (i >= END_TEXT.length) {
-							flag = 17;
-							return true;
-						}
-					}
-
-					// look for the closing </revision>
-					else if (flag == 17) {
-						if (b == END_REVISION[i]) {
-							i++;
-						} else i = 0;
-						if (i >= END_REVISION.length) {
-							flag = 18;
-							return true;
-						}
-					}
-
-					// Flag 16 can be the signal of a new record inside one old page
-					else if (flag == 18) {
-						int curMatch = 0;				
-						if ((i < END_PAGE.length && b == END_PAGE[i]) 
-								&& (i < START_REVISION.length && b == START_REVISION[i])) {
-							curMatch = 3;
-						} else if (i < END_PAGE.length && b == END_PAGE[i]) {
-							curMatch = 2;
-						} else if (i < START_REVISION.length && b == START_REVISION[i]) {
-							curMatch = 1;
-						}				
-						if (curMatch > 0 && (i == 0 || revOrPage == 3 || curMatch == revOrPage)) {					
-							i++;			
-							revOrPage = curMatch;
-						} else i = 0;
-						if ((revOrPage == 2 || revOrPage == 3) && i >= END_PAGE.length) {
-							flag = 19;
-							revOrPage = -1;
-							return true;							
-						} else if ((revOrPage == 1 || revOrPage == 3) && i >= START_REVISION.length) {
-							flag = 9;
-							revOrPage = -1;
-							return true;
-						}				
-					} 
-				}		
-			}
-		}
 	}
-}
\ No newline at end of file
+}
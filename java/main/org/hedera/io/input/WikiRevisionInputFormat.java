@@ -19,18 +19,33 @@
  */
 package org.hedera.io.input;
 
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.MapFile;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.compress.CompressionCodec;
@@ -45,8 +60,13 @@ import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.input.FileSplit;
 import org.apache.log4j.Logger;
 import org.hedera.io.CustomSplits;
+import org.hedera.io.compress.ZstdCodec;
+import org.hedera.io.compress.ZstdFrameInputStream;
+import org.hedera.io.compress.ZstdSeekTable;
 import org.hedera.util.ByteMatcher;
+import org.hedera.util.MappedFileInputStream;
 import org.hedera.util.SeekableInputStream;
+import org.hedera.util.TagScanner;
 import org.joda.time.format.DateTimeFormatter;
 import org.joda.time.format.ISODateTimeFormat;
 
@@ -72,15 +92,130 @@ extends FileInputFormat<KEYIN, VALUEIN> {
 	public static final String SPLIT_INDEX_OPTION = "index";
 	public static final String SPLIT_MAPFILE_LOC = "org.hedera.split.index";
 
+	// How the files without index are split: "scan" (default) computes splits
+	// aligned with the pages by scanning around every split boundary, "block"
+	// cuts plain splits of the split size without reading the files. In both
+	// modes, a record reader reads the pages starting in its split
+	public static final String SPLIT_MODE = "org.hedera.split.mode";
+	public static final String SPLIT_MODE_SCAN = "scan";
+	public static final String SPLIT_MODE_BLOCK = "block";
+
+	// "revision" works as "scan", except that a page still running one split
+	// size after a split boundary is cut before one of its revisions (see
+	// PageSplit). Only uncompressed files are cut inside pages: the offsets
+	// in a compressed file only move at the boundaries of compressed blocks
+	public static final String SPLIT_MODE_REVISION = "revision";
+
+	// Whether the readers of a split starting inside a page also read the
+	// revision before its start, as the predecessor of their first revision.
+	// This revision is not emitted again
+	public static final String CARRY_REVISION = "org.hedera.input.carryrevision";
+
+	// The plans computed in scan mode are cached in a directory (see
+	// SplitCache), on the default file system unless the path is qualified.
+	// The files whose plan is not cached are scanned by a pool of threads
+	public static final String SPLIT_CACHE = "org.hedera.split.cache";
+	public static final String SPLIT_CACHE_DIR = "org.hedera.split.cache.dir";
+	public static final String DEFAULT_SPLIT_CACHE_DIR = "/tmp/hedera/splits";
+	public static final String SPLIT_THREADS = "org.hedera.split.threads";
+	public static final int DEFAULT_SPLIT_THREADS = 8;
+
+	// Target number of uncompressed bytes read by one task. When set, the
+	// split size of every file is derived from it and from the compression
+	// ratio of the file, estimated by decompressing a sample of its head.
+	// Otherwise the split size is computed from the total size as before
+	public static final String SPLIT_TASK_BYTES = "org.hedera.split.taskbytes";
+	public static final String SPLIT_SAMPLE_BYTES = "org.hedera.split.sample";
+	public static final long DEFAULT_SPLIT_SAMPLE_BYTES = 4 << 20;
+
+	// The last split of a file is merged into the one before when it is
+	// smaller than this fraction of the split size
+	public static final String SPLIT_TAIL = "org.hedera.split.tail";
+	public static final float DEFAULT_SPLIT_TAIL = 0.1f;
+
 	public static final String SKIP_NON_ARTICLES = "org.hedera.input.onlyarticle"; 
 	public static final String SKIP_REDIRECT = "org.hedera.input.noredirects"; 
 
 	public static final String REVISION_BEGIN_TIME = "org.hedera.input.begintime";
 	public static final String REVISION_END_TIME = "org.hedera.input.endtime";
+
+	// Comma-separated namespaces of the pages to read. Overrides
+	// SKIP_NON_ARTICLES
+	public static final String NAMESPACES = "org.hedera.input.namespaces";
+
+	// Prefix of, or regular expression matching, the titles of the pages
+	// to read
+	public static final String TITLE_PREFIX = "org.hedera.input.titleprefix";
+	public static final String TITLE_PATTERN = "org.hedera.input.titlepattern";
+
+	// Regular expression matching the contributors of the revisions to read,
+	// and another one matching those to skip (e.g. bots). Anonymous
+	// contributors only pass the second
+	public static final String USER_PATTERN = "org.hedera.input.userpattern";
+	public static final String SKIP_USER_PATTERN = 
+			"org.hedera.input.skipuserpattern";
+
+	// true to read the minor revisions only, false to skip them. Both are
+	// read if unset
+	public static final String MINOR_ONLY = "org.hedera.input.minor";
+
+	// The revisions hold their text as a view of the reader's buffer (see
+	// Revision.viewText), valid until the next record is read, instead of
+	// a copy per record. Revision.getText() still copies it on demand
+	public static final String TEXT_VIEW = "org.hedera.input.textview";
+
+	// Comma-separated fields of the revisions to read (see RevisionFields),
+	// all by default. The elements of the other fields are jumped over by the
+	// readers instead of being buffered, and the fields are left empty
+	public static final String FIELDS = "org.hedera.input.fields";
+
+	// The texts that are not read are jumped over by the length given in
+	// the dump (<text bytes="N">) rather than scanned for </text> (default
+	// false). Only turn it on for dumps whose lengths are to be trusted
+	public static final String SKIP_TEXT_BY_LENGTH =
+			"org.hedera.input.skiptextbylength";
 	
 	// Seed entity id for extraction
 	public static final String SEED_FILE = "org.hedera.seed.path";
 
+	// Seed titles, one per line as in the index of the multistream dumps. In
+	// an indexed multistream dump, only the streams holding a seed page (by id
+	// or title) are read, and only the seed pages are kept
+	public static final String SEED_TITLE_FILE = "org.hedera.seed.titles";
+
+	// The multistream dumps (xxx-multistream.xml.bz2) are cut along their 
+	// bzip2 streams, as listed by their index (see MultistreamIndex). The 
+	// index is looked for in this directory, or else next to the dump
+	public static final String MULTISTREAM_INDEX_DIR = 
+			"org.hedera.input.multistream.index";
+
+	// Size in bytes of the scan buffer of each record reader. The buffers
+	// are drawn from a JVM-wide pool (see BufferPool)
+	public static final String SCAN_BUFFER_SIZE = "org.hedera.input.buffersize";
+
+	// Number of scan buffers that the record readers of compressed files 
+	// decompress ahead on a background thread (see ReadAheadInputStream). 
+	// 0 (default) decompresses in the thread of the reader
+	public static final String READ_AHEAD = "org.hedera.input.readahead";
+
+	// Number of threads decoding the blocks of a bzip2 split at once (see 
+	// ParallelBZip2InputStream). 0 (default) uses the decoder of the codec
+	public static final String BZIP2_THREADS = "org.hedera.input.bzip2threads";
+
+	// Uncompressed files are read through the zero-copy interface of HDFS
+	// (see ZeroCopyInputStream): the blocks cached by HDFS are memory-mapped,
+	// and the scan buffers filled straight from them. Off by default. When
+	// the checksums are skipped, all the local replicas are mapped
+	public static final String ZERO_COPY = "org.hedera.input.zerocopy";
+	public static final String ZERO_COPY_SKIP_CHECKSUMS = 
+			"org.hedera.input.zerocopy.skipchecksums";
+
+	// The files of the local file system are memory-mapped by the record 
+	// readers, in windows of the given size (see MappedFileInputStream). On
+	// by default. The checksums of the local file system are then not checked
+	public static final String MMAP = "org.hedera.input.mmap";
+	public static final String MMAP_WINDOW = "org.hedera.input.mmap.window";
+
 	protected CompressionCodecFactory compressionCodecs = null;
 
 	public static final String START_PAGE_TAG = "<page>";
@@ -89,7 +224,8 @@ extends FileInputFormat<KEYIN, VALUEIN> {
 	public static final byte[] START_PAGE = START_PAGE_TAG.getBytes(StandardCharsets.UTF_8);
 	public static final byte[] END_PAGE = END_PAGE_TAG.getBytes(StandardCharsets.UTF_8);
 
-	public static final byte[] START_REVISION = "<revision>".getBytes(StandardCharsets.UTF_8);
+	public static final String START_REVISION_TAG = "<revision>";
+	public static final byte[] START_REVISION = START_REVISION_TAG.getBytes(StandardCharsets.UTF_8);
 	public static final byte[] END_REVISION = "</revision>".getBytes(StandardCharsets.UTF_8);
 
 	public static final byte[] START_ID = "<id>".getBytes(StandardCharsets.UTF_8);
@@ -110,15 +246,19 @@ extends FileInputFormat<KEYIN, VALUEIN> {
 			.getBytes(StandardCharsets.UTF_8);
 	public static final byte[] END_TEXT = "</text>".getBytes(StandardCharsets.UTF_8);
 
-	public static final byte[] START_PARENT_ID = "<text xml:space=\"preserve\">"
-			.getBytes(StandardCharsets.UTF_8);
-	public static final byte[] END_PARENT_ID = "</text>".getBytes(StandardCharsets.UTF_8);	
+	public static final byte[] START_PARENT_ID = "<parentid>".getBytes(StandardCharsets.UTF_8);
+	public static final byte[] END_PARENT_ID = "</parentid>".getBytes(StandardCharsets.UTF_8);	
 
 	public static final byte[] MINOR_TAG = "<minor/>".getBytes(StandardCharsets.UTF_8);
 
 	public static final byte[] START_REDIRECT = "<redirect title=".getBytes(StandardCharsets.UTF_8);
 	public static final byte[] END_REDIRECT = "</redirect>".getBytes(StandardCharsets.UTF_8);
 
+	// pre-compiled scanners for the states that ignore everything until one tag
+	public static final TagScanner START_PAGE_SCANNER = DumpTags.scanner(DumpTags.PAGE_START);
+	public static final TagScanner END_PAGE_SCANNER = DumpTags.scanner(DumpTags.PAGE_END);
+	public static final TagScanner END_REVISION_SCANNER = DumpTags.scanner(DumpTags.REVISION_END);
+
 	public static final DateTimeFormatter TIME_FORMAT = ISODateTimeFormat.dateTimeNoMillis();
 
 	protected static long THRESHOLD = 137438953472l;
@@ -139,6 +279,25 @@ extends FileInputFormat<KEYIN, VALUEIN> {
 			compressionCodecs = new CompressionCodecFactory(conf);
 	}
 
+	/**
+	 * Open the file of a split for a record reader: a file of the local file
+	 * system is memory-mapped, unless {@link #MMAP} is off
+	 */
+	public static FSDataInputStream openFile(Configuration conf, FileSystem fs,
+			Path file) throws IOException {
+		if (conf.getBoolean(MMAP, true)) {
+			File local = (fs instanceof LocalFileSystem) 
+					? ((LocalFileSystem) fs).pathToFile(file)
+					: (fs instanceof RawLocalFileSystem) 
+					? ((RawLocalFileSystem) fs).pathToFile(file) : null;
+			if (local != null) {
+				return new FSDataInputStream(new MappedFileInputStream(local,
+						conf.getInt(MMAP_WINDOW, MappedFileInputStream.DEFAULT_WINDOW)));
+			}
+		}
+		return fs.open(file);
+	}
+
 	@Override
 	public boolean isSplitable(JobContext context, Path file) {
 		Configuration conf = context.getConfiguration();
@@ -205,15 +364,9 @@ extends FileInputFormat<KEYIN, VALUEIN> {
 			// 2014-06-06: Tuan _ I have to manually increase the file split size
 			// here to cope with Wikipedia Revision .bz2 file - the decompressor
 			// takes too long to run
+			// (unless a target size per task is set, see getSplitSize())
 			long goalSize = totalSize / 3;
-			
-			for (FileStatus file : remainingFiles) {
-				long blockSize = file.getBlockSize();
-				long splitSize = computeSplitSize(goalSize, minSize, blockSize);
-				
-				for (InputSplit x: getSplits(jc, file, splitSize)) 
-					splits.add(x);
-			}
+			splits.addAll(planSplits(jc, remainingFiles, goalSize, minSize));
 		} finally {
 			if (reader != null) reader.close();
 		}
@@ -303,23 +456,519 @@ extends FileInputFormat<KEYIN, VALUEIN> {
 
 			if (bytesRemaining > 0 && !processedPageEnds.contains(length)) {
 				splits.add(makeSplit(path, length-bytesRemaining, bytesRemaining, 
-						blkLocations[blkLocations.length-1].getHosts()));
+						blkLocations));
 			}
 			if ( in != null )
 				in.close();
+			mergeTail(conf, splits, splitSize, blkLocations);
+		} else if (length != 0) {
+			splits.add(makeSplit(path, 0, length, blkLocations));
+		} else { 
+			//Create empty hosts array for zero length files
+			splits.add(makeSplit(path, 0, length, new String[0]));
+		}
+		return splits;
+	}
+
+	/**
+	 * Compute the splits of the files, in parallel. In scan mode, the plans
+	 * are taken from the cache when possible, the other files are scanned and 
+	 * their plans added to the cache. The splits are returned in the order
+	 * of the files
+	 */
+	private List<InputSplit> planSplits(final JobContext jc, 
+			List<FileStatus> files, final long goalSize, final long minSize)
+					throws IOException {
+		List<InputSplit> splits = new ArrayList<InputSplit>();
+		if (files.isEmpty()) {
+			return splits;
+		}
+		final Configuration conf = jc.getConfiguration();
+		configure(conf);
+		String mode = conf.get(SPLIT_MODE, SPLIT_MODE_SCAN);
+		final boolean byBlock = SPLIT_MODE_BLOCK.equals(mode);
+		final boolean byRevision = SPLIT_MODE_REVISION.equals(mode);
+		
+		SplitCache cache = null;
+		if (!byBlock && conf.getBoolean(SPLIT_CACHE, true)) {
+			Path dir = new Path(conf.get(SPLIT_CACHE_DIR, DEFAULT_SPLIT_CACHE_DIR));
+			cache = new SplitCache(dir.getFileSystem(conf), dir);
+		}
+		final SplitCache splitCache = cache;
+		final float skipFactor = conf.getFloat(KEY_SKIP_FACTOR, 1.2F);
+		final float tail = conf.getFloat(SPLIT_TAIL, DEFAULT_SPLIT_TAIL);
+		final String indexDir = conf.get(MULTISTREAM_INDEX_DIR);
+		Set<String> ids = readLines(conf, SEED_FILE);
+		final Set<String> seedTitles = readLines(conf, SEED_TITLE_FILE);
+		final Set<Long> seedIds = (ids == null) ? null : new HashSet<Long>();
+		if (ids != null) {
+			for (String id : ids) {
+				seedIds.add(Long.parseLong(id));
+			}
+		}
+
+		int threads = Math.min(files.size(), 
+				Math.max(1, conf.getInt(SPLIT_THREADS, DEFAULT_SPLIT_THREADS)));
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<List<InputSplit>>> plans = new ArrayList<>(files.size());
+			for (final FileStatus file : files) {
+				plans.add(pool.submit(new Callable<List<InputSplit>>() {
+					@Override
+					public List<InputSplit> call() throws IOException {
+						long splitSize = getSplitSize(jc, file, goalSize, minSize);
+						Path index = MultistreamIndex.find(conf, file.getPath(), 
+								indexDir);
+						if (index != null) {
+							return getStreamSplits(jc, file, index, splitSize, 
+									seedIds, seedTitles);
+						}
+						CompressionCodec codec = compressionCodecs.getCodec(
+								file.getPath());
+						if (codec instanceof ZstdCodec) {
+							return getFrameSplits(jc, file, splitSize);
+						}
+						if (byBlock) {
+							return getBlockSplits(jc, file, splitSize);
+						}
+						if (byRevision && codec == null) {
+							return getRevisionSplits(jc, file, splitSize);
+						}
+						if (splitCache == null) {
+							return getSplits(jc, file, splitSize);
+						}
+						long[] plan = splitCache.get(file, splitSize, skipFactor,
+								tail);
+						if (plan != null) {
+							return getCachedSplits(jc, file, plan);
+						}
+						List<InputSplit> fileSplits = getSplits(jc, file, splitSize);
+						splitCache.put(file, splitSize, skipFactor, tail,
+								fileSplits);
+						return fileSplits;
+					}
+				}));
+			}
+			for (Future<List<InputSplit>> plan : plans) {
+				splits.addAll(plan.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while splitting the files", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Error when splitting the files", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		return splits;
+	}
+
+	/** The non-empty lines of the file named by the option, or null if the
+	 * option is not set */
+	public static Set<String> readLines(Configuration conf, String option)
+			throws IOException {
+		String file = conf.get(option);
+		if (file == null) {
+			return null;
+		}
+		Path path = new Path(file);
+		Set<String> lines = new HashSet<String>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				path.getFileSystem(conf).open(path), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (!line.isEmpty()) {
+					lines.add(line);
+				}
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Cut a multistream dump along its bzip2 streams, as listed by its index:
+	 * no boundary has to be looked for, and the readers decompress each
+	 * stream on its own (see {@link StreamSplit}). When seed pages are given,
+	 * only the streams holding them are read, and only these pages are kept
+	 */
+	public List<InputSplit> getStreamSplits(JobContext jc, FileStatus file,
+			Path index, long splitSize, Set<Long> seedIds, Set<String> seedTitles)
+					throws IOException {
+		List<InputSplit> splits = new ArrayList<InputSplit>();
+		Path path = file.getPath();
+
+		Configuration conf = jc.getConfiguration();
+		long length = file.getLen();
+		FileSystem fs = path.getFileSystem(conf);
+		BlockLocation[] blkLocations = fs.getFileBlockLocations(file, 0, length);
+		boolean seeded = seedIds != null || seedTitles != null;
+		MultistreamIndex streams = MultistreamIndex.read(conf, index, seedIds,
+				seedTitles);
+		long[] offsets = streams.getStreams();
+		if (offsets.length == 0) {
+			LOG.warn("Empty index " + index + ", cutting plain splits");
+			return getBlockSplits(jc, file, splitSize);
+		}
+
+		// the streams to read: all of them, or those holding the seed pages
+		LongArrayList starts = new LongArrayList();
+		LongArrayList ends = new LongArrayList();
+		for (int i = 0; i < (seeded ? streams.getPageCount() : offsets.length); 
+				i++) {
+			long stream = seeded ? streams.getPageStream(i) : offsets[i];
+			if (starts.isEmpty() || starts.getLong(starts.size() - 1) != stream) {
+				int k = Arrays.binarySearch(offsets, stream);
+				starts.add(stream);
+				ends.add((k + 1 < offsets.length) ? offsets[k + 1] : length);
+			}
+		}
+
+		// group them by split size, the last split is merged if too small
+		List<Integer> firsts = new ArrayList<Integer>();
+		long bytes = 0;
+		for (int i = 0; i < starts.size(); i++) {
+			if (i == 0 || bytes >= splitSize) {
+				firsts.add(i);
+				bytes = 0;
+			}
+			bytes += ends.getLong(i) - starts.getLong(i);
+		}
+		if (firsts.size() > 1 
+				&& bytes < conf.getFloat(SPLIT_TAIL, DEFAULT_SPLIT_TAIL) * splitSize) {
+			firsts.remove(firsts.size() - 1);
+		}
+		firsts.add(starts.size());
+
+		int page = 0;
+		for (int g = 0; g + 1 < firsts.size(); g++) {
+			long[] s = Arrays.copyOfRange(starts.elements(), firsts.get(g), 
+					firsts.get(g + 1));
+			long[] e = Arrays.copyOfRange(ends.elements(), firsts.get(g), 
+					firsts.get(g + 1));
+			long end = e[e.length - 1];
+			long[] pageIds = null;
+			if (seeded) {
+				LongArrayList ids = new LongArrayList();
+				while (page < streams.getPageCount() 
+						&& streams.getPageStream(page) < end) {
+					ids.add(streams.getPageId(page++));
+				}
+				pageIds = ids.toLongArray();
+				Arrays.sort(pageIds);
+			}
+			splits.add(new StreamSplit(path, s, e, pageIds, 
+					SplitPlanner.hosts(blkLocations, s[0], end - s[0])));
+		}
+		LOG.info("Cut file " + path.getName() + " into " + splits.size() 
+				+ " splits of " + starts.size() + " streams");
+		return splits;
+	}
+
+	/**
+	 * Cut a seekable zstd file along its frames, as listed by its seek table:
+	 * each split starts at a frame, and the readers decompress the frames 
+	 * from there (see {@link ZstdFrameInputStream}). A zstd file without seek
+	 * table is not split
+	 */
+	public List<InputSplit> getFrameSplits(JobContext jc, FileStatus file,
+			long splitSize) throws IOException {
+		List<InputSplit> splits = new ArrayList<InputSplit>();
+		Path path = file.getPath();
+
+		Configuration conf = jc.getConfiguration();
+		long length = file.getLen();
+		FileSystem fs = path.getFileSystem(conf);
+		ZstdSeekTable frames;
+		try (FSDataInputStream in = fs.open(path)) {
+			frames = ZstdSeekTable.read(in, length);
+		}
+		if (frames == null || frames.getFrameCount() == 0) {
+			LOG.info("No seek table in " + path.getName() + ", reading it whole");
+			return getBlockSplits(jc, file, splitSize);
+		}
+		BlockLocation[] blkLocations = fs.getFileBlockLocations(file, 0, length);
+		long start = 0;
+		for (int i = 1; i < frames.getFrameCount(); i++) {
+			long frame = frames.getFrameStart(i);
+			if (frame - start >= splitSize) {
+				splits.add(makeSplit(path, start, frame - start, blkLocations));
+				start = frame;
+			}
+		}
+		splits.add(makeSplit(path, start, length - start, blkLocations));
+		mergeTail(conf, splits, splitSize, blkLocations);
+		LOG.info("Cut file " + path.getName() + " into " + splits.size() 
+				+ " splits of " + frames.getFrameCount() + " frames");
+		return splits;
+	}
+
+	/**
+	 * Compute the splits of an uncompressed file as in scan mode, except that 
+	 * a page still running one split size after a candidate boundary is cut
+	 * there, before one of its revisions (see {@link PageSplit}). To find the
+	 * header of the page, the split before the cut is read entirely.
+	 */
+	public List<InputSplit> getRevisionSplits(JobContext jc, FileStatus file,
+			long splitSize) throws IOException {
+		List<InputSplit> splits = new ArrayList<InputSplit>();
+		Path path = file.getPath();
+
+		LOG.info("Splitting file " + path.getName() + " at revisions");
+
+		Configuration conf = jc.getConfiguration();
+		long length = file.getLen();
+		FileSystem fs = path.getFileSystem(conf);
+		BlockLocation[] blkLocations = fs.getFileBlockLocations(file, 0, length);
+		float factor = conf.getFloat(KEY_SKIP_FACTOR, 1.2F);
+
+		long start = 0;
+		PageSplit context = null;
+		try (FSDataInputStream in = fs.open(path)) {
+			while (((double) (length - start)) / splitSize > factor) {
+				long candidate = start + splitSize;
+				long limit = Math.min(candidate + splitSize, length);
+				in.seek(candidate);
+				ByteMatcher matcher = new ByteMatcher(in, in);
+				long cut = -1;
+				if (matcher.readUntilMatch(END_PAGE_TAG, null, limit, null)) {
+					cut = matcher.getPos();
+					splits.add(makeSplit(path, start, cut - start, blkLocations, 
+							context, false));
+					start = cut;
+					context = null;
+					continue;
+				}
+
+				// the page is too big: cut it before its second revision from 
+				// the candidate boundary, the first one can then be carried over 
+				in.seek(candidate);
+				matcher = new ByteMatcher(in, in);
+				long previous = -1;
+				if (matcher.readUntilMatch(START_REVISION_TAG, null, limit, null)) {
+					previous = matcher.getPos() - START_REVISION.length;
+					if (matcher.readUntilMatch(START_REVISION_TAG, null, limit, null)) {
+						cut = matcher.getPos() - START_REVISION.length;
+					}
+				}
+				PageSplit next = (cut < 0) ? null 
+						: pageAt(in, path, start, candidate, limit, context, cut, previous);
+				if (next != null) {
+					splits.add(makeSplit(path, start, cut - start, blkLocations, 
+							context, true));
+					start = cut;
+					context = next;
+					continue;
+				}
+
+				// no room to cut the page, end the split with it
+				in.seek(candidate);
+				matcher = new ByteMatcher(in, in);
+				if (!matcher.readUntilMatch(END_PAGE_TAG, null, length, null)) {
+					break;
+				}
+				cut = matcher.getPos();
+				splits.add(makeSplit(path, start, cut - start, blkLocations, 
+						context, false));
+				start = cut;
+				context = null;
+			}
+		}
+		if (start < length) {
+			splits.add(makeSplit(path, start, length - start, blkLocations, 
+					context, false));
+		}
+		mergeTail(conf, splits, splitSize, blkLocations);
+		LOG.info("Cut file " + path.getName() + " into " + splits.size() 
+				+ " splits");
+		return splits;
+	}
+
+	/**
+	 * The context of the page running at the given offset, which is the last
+	 * page starting between from and the offset, or the given context if no
+	 * page starts there. Null if the page cannot be found
+	 * @param limit the header of the page must end before this offset
+	 * @param cut the start of the split to make in the page
+	 * @param previous offset of the revision before the cut
+	 */
+	private static PageSplit pageAt(FSDataInputStream in, Path path, long from,
+			long offset, long limit, PageSplit context, long cut, long previous)
+					throws IOException {
+		in.seek(from);
+		ByteMatcher matcher = new ByteMatcher(in, in);
+		long page = -1;
+		while (matcher.readUntilMatch(START_PAGE_TAG, null, offset, null)) {
+			page = matcher.getPos() - START_PAGE.length;
+		}
+		if (page < 0) {
+			return (context == null) ? null : new PageSplit(path, cut, 
+					context.getPageId(), context.getTitle(), 
+					context.getNamespace(), context.getRedirect(), previous);
+		}
+		in.seek(page);
+		matcher = new ByteMatcher(in, in);
+		DataOutputBuffer header = new DataOutputBuffer();
+		if (!matcher.readUntilMatch(START_REVISION_TAG, header, limit, null)) {
+			return null;
+		}
+		String s = new String(header.getData(), 0, header.getLength(), 
+				StandardCharsets.UTF_8);
+		String title = element(s, "title");
+		String ns = element(s, "ns");
+		String id = element(s, "id");
+		if (title == null || ns == null || id == null) {
+			LOG.warn("Invalid page header at offset " + page + " of " + path);
+			return null;
+		}
+		return new PageSplit(path, cut, Long.parseLong(id.trim()), title, 
+				Integer.parseInt(ns.trim()), redirect(s), previous);
+	}
+
+	/** The redirect element in the header of a page, or null */
+	private static String redirect(String header) {
+		int i = header.indexOf("<redirect");
+		if (i < 0) {
+			return null;
+		}
+		int j = header.indexOf("/>", i);
+		int k = header.indexOf(">", i);
+		if (j >= 0 && j + 1 == k) {
+			return header.substring(i, j + 2);
+		}
+		j = header.indexOf("</redirect>", i);
+		return (j < 0) ? null : header.substring(i, j + "</redirect>".length());
+	}
+
+	/** The content of the first element of the given name in the text */
+	private static String element(String text, String name) {
+		int i = text.indexOf("<" + name + ">");
+		int j = text.indexOf("</" + name + ">");
+		return (i < 0 || j < i) ? null : text.substring(i + name.length() + 2, j);
+	}
+
+	/** Rebuild the splits of the file from its cached plan */
+	private List<InputSplit> getCachedSplits(JobContext jc, FileStatus file, 
+			long[] plan) throws IOException {
+		List<InputSplit> splits = new ArrayList<InputSplit>(plan.length / 2);
+		Path path = file.getPath();
+		FileSystem fs = path.getFileSystem(jc.getConfiguration());
+		BlockLocation[] blkLocations = fs.getFileBlockLocations(file, 0, 
+				file.getLen());
+		for (int i = 0; i < plan.length; i += 2) {
+			splits.add(makeSplit(path, plan[i], plan[i + 1], blkLocations));
+		}
+		LOG.info("Loaded " + splits.size() + " cached splits of file " 
+				+ path.getName());
+		return splits;
+	}
+
+	/**
+	 * Cut the file into plain splits of the given size, without reading it.
+	 * This relies on the record readers to skip everything until the first
+	 * page starting in their split, and to read the last page till its end.
+	 * For a bzip2 file, the readers decompress the blocks starting in their
+	 * split (BYBLOCK mode)
+	 */
+	public List<InputSplit> getBlockSplits(JobContext jc, FileStatus file, 
+			long splitSize) throws IOException {
+		List<InputSplit> splits = new ArrayList<InputSplit>();
+		Path path = file.getPath();
+
+		Configuration conf = jc.getConfiguration();
+		configure(conf);
+
+		long length = file.getLen();
+		FileSystem fs = path.getFileSystem(conf);
+		BlockLocation[] blkLocations = fs.getFileBlockLocations(file, 0, length);
+		if ((length != 0) && isSplitable(jc, path)) {
+			long bytesRemaining = length;
+			float factor = conf.getFloat(KEY_SKIP_FACTOR, 1.2F);
+			while (((double) bytesRemaining)/splitSize > factor) {
+				splits.add(makeSplit(path, length - bytesRemaining, splitSize,
+						blkLocations));
+				bytesRemaining -= splitSize;
+			}
+			if (bytesRemaining != 0) {
+				splits.add(makeSplit(path, length - bytesRemaining, bytesRemaining,
+						blkLocations));
+			}
+			mergeTail(conf, splits, splitSize, blkLocations);
 		} else if (length != 0) {
 			splits.add(makeSplit(path, 0, length, blkLocations));
 		} else { 
 			//Create empty hosts array for zero length files
 			splits.add(makeSplit(path, 0, length, new String[0]));
 		}
+		LOG.info("Cut file " + path.getName() + " into " + splits.size() 
+				+ " splits");
 		return splits;
 	}
 
+	/**
+	 * The split size of the file. If a target number of bytes per task is set,
+	 * this is the number of compressed bytes that decompress to the target,
+	 * within the minimum and maximum split sizes. Otherwise this is computed
+	 * from the goal size and the block size, as in FileInputFormat
+	 */
+	protected long getSplitSize(JobContext jc, FileStatus file, long goalSize,
+			long minSize) throws IOException {
+		Configuration conf = jc.getConfiguration();
+		long taskBytes = conf.getLong(SPLIT_TASK_BYTES, 0);
+		if (taskBytes <= 0) {
+			return computeSplitSize(goalSize, minSize, file.getBlockSize());
+		}
+		configure(conf);
+		Path path = file.getPath();
+		double ratio = SplitPlanner.compressionRatio(path.getFileSystem(conf), 
+				file, compressionCodecs.getCodec(path), 
+				conf.getLong(SPLIT_SAMPLE_BYTES, DEFAULT_SPLIT_SAMPLE_BYTES));
+		long splitSize = (long) (taskBytes / ratio);
+		return Math.max(minSize, Math.min(getMaxSplitSize(jc), splitSize));
+	}
+
+	/** Merge the last split of the file into the one before if it is too
+	 * small to be worth a task */
+	private void mergeTail(Configuration conf, List<InputSplit> splits, 
+			long splitSize, BlockLocation[] blkLocations) throws IOException {
+		int n = splits.size();
+		if (n < 2) {
+			return;
+		}
+		FileSplit last = (FileSplit) splits.get(n - 1);
+		if (last.getLength() >= conf.getFloat(SPLIT_TAIL, DEFAULT_SPLIT_TAIL) 
+				* splitSize) {
+			return;
+		}
+		FileSplit prev = (FileSplit) splits.get(n - 2);
+		long start = prev.getStart();
+		splits.set(n - 2, makeSplit(prev.getPath(), start, 
+				last.getStart() + last.getLength() - start, blkLocations,
+				(prev instanceof PageSplit) ? (PageSplit) prev : null,
+				(last instanceof PageSplit) && ((PageSplit) last).endsInPage()));
+		splits.remove(n - 1);
+	}
+
+	/** Make a split starting in the page of the context if not null, and
+	 * ending inside a page or not */
+	private FileSplit makeSplit(Path path, long start, long size, 
+			BlockLocation[] blkLocations, PageSplit context, boolean endsInPage)
+					throws IOException {
+		if ((context == null || !context.startsInPage()) && !endsInPage) {
+			return makeSplit(path, start, size, blkLocations);
+		}
+		return new PageSplit(path, start, size, 
+				SplitPlanner.hosts(blkLocations, start, size), context, endsInPage);
+	}
+
+	/** Make a split on the hosts that store most of its bytes */
 	private FileSplit makeSplit(Path path, long start, long size, 
 			BlockLocation[] blkLocations) throws IOException {
-		String[] hosts = blkLocations[blkLocations.length-1].getHosts();
-		return makeSplit(path, start, size,hosts);
+		return makeSplit(path, start, size, 
+				SplitPlanner.hosts(blkLocations, start, size));
 	}
 
 	/**
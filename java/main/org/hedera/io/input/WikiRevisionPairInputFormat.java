@@ -1,17 +1,14 @@
 package org.hedera.io.input;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
-
-import com.twitter.elephantbird.util.TaskHeartbeatThread;
+import org.hedera.util.ByteParser;
 
 public class WikiRevisionPairInputFormat 
 		extends WikiRevisionInputFormat<LongWritable, Text> {
@@ -128,8 +125,6 @@ public class WikiRevisionPairInputFormat
 		//  3 - Matched both <revision> and </page> partially
 		private int lastMatchTag = -1;
 		
-		private TaskAttemptContext context;
-
 		private DataOutputBuffer pageHeader = new DataOutputBuffer();
 		private DataOutputBuffer keyBuf = new DataOutputBuffer();
 		private DataOutputBuffer rev1Buf = new DataOutputBuffer();
@@ -141,7 +136,6 @@ public class WikiRevisionPairInputFormat
 			super.initialize(input, tac);
 			revisionVisited = 0;
 			value = new Text();
-			this.context = tac;
 		}
 
 		@Override
@@ -162,9 +156,8 @@ public class WikiRevisionPairInputFormat
 				return STATE.STOP_TRUE;
 			}
 			else if (flag == 4) {
-				String pageId = new String(keyBuf.getData(), 0, keyBuf.getLength()
-						- END_ID.length);
-				key.set(Long.parseLong(pageId));	
+				key.set(ByteParser.parseLong(keyBuf.getData(), 0,
+						keyBuf.getLength() - END_ID.length));
 				keyBuf.reset();
 			}				
 			else if (flag == 2) {
@@ -195,46 +188,30 @@ public class WikiRevisionPairInputFormat
 			int i = 0;
 			while (true) {
 				if (pos[0] == pos[1]) {				
-					// We use a thread that pings back to the cluster every 5 minutes
-					// to avoid getting killed for slow read
-					TaskHeartbeatThread heartbeat = new TaskHeartbeatThread(context, 60 * 5000) {
-						@Override
-						protected void progress() {
-							LOG.info("Task " + context.getTaskAttemptID() 
-									+ " pings back...");
-						}
-					};
-
-					try {
-						heartbeat.start();
-						pos[1] = (compressed) ? ((InputStream)fsin).read(buf) :
-							((FSDataInputStream)fsin).read(buf);
-						pos[0] = 0;
-					} finally {
-						heartbeat.stop();
-					}
-
-					if (pos[1] == -1) {
-						flag = -1;
+					if (!fill()) {
 						return false;
 					}
 				} 
 				while (pos[0] < pos[1]) {
-					byte b = buf[pos[0]];
-					pos[0]++;
 					// ignore every character until reaching a new page
 					if (flag == 1 || flag == 7) {
-						if (b == START_PAGE[i]) {
-							i++;
-							if (i >= START_PAGE.length) {
-								flag = 2;
-								return true;
+						i = skipUntil(START_PAGE_SCANNER, i);
+						if (i >= START_PAGE.length) {
+							if (!pageInSplit()) {
+								flag = -1;
+								return false;
 							}
-						} else i = 0;
+							flag = 2;
+							return true;
+						}
+						continue;
 					}
 
+					byte b = buf[pos[0]];
+					pos[0]++;
+
 					// put everything between <page> tag and the first <id> tag into pageHeader
-					else if (flag == 2) {
+					if (flag == 2) {
 						if (b == START_ID[i]) {
 							i++;
 						} else i = 0;
@@ -1,29 +1,24 @@
 package org.hedera.io.input;
 
+import static org.hedera.io.input.WikiRevisionInputFormat.REVISION_BEGIN_TIME;
+import static org.hedera.io.input.WikiRevisionInputFormat.REVISION_END_TIME;
+import static org.hedera.io.input.WikiRevisionInputFormat.SKIP_NON_ARTICLES;
+import static org.hedera.io.input.WikiRevisionInputFormat.SKIP_TEXT_BY_LENGTH;
+import static org.hedera.io.input.WikiRevisionInputFormat.TEXT_VIEW;
+
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FSDataInputStream;
-import org.apache.hadoop.fs.FileSystem;
-import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.fs.Seekable;
 import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.compress.CodecPool;
-import org.apache.hadoop.io.compress.CompressionCodec;
-import org.apache.hadoop.io.compress.CompressionCodecFactory;
-import org.apache.hadoop.io.compress.CompressionInputStream;
-import org.apache.hadoop.io.compress.Decompressor;
-import org.apache.hadoop.io.compress.SplitCompressionInputStream;
-import org.apache.hadoop.io.compress.SplittableCompressionCodec;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.input.FileSplit;
-
-import static org.hedera.io.input.WikiRevisionInputFormat.SKIP_NON_ARTICLES;
-import static org.hedera.io.input.WikiRevisionInputFormat.REVISION_BEGIN_TIME;
-import static org.hedera.io.input.WikiRevisionInputFormat.REVISION_END_TIME;
+import org.hedera.util.TagScanner;
+import org.hedera.util.TimestampParser;
+import org.hedera.util.XmlEntities;
 
 public abstract class WikiRevisionReader<VALUEIN> extends 
 RecordReader<LongWritable, VALUEIN> {
@@ -37,21 +32,10 @@ RecordReader<LongWritable, VALUEIN> {
 		STOP_FALSE
 	}
 
-	/**
-	 * A global variable to maintain the state / position of pointers along the reivision files
-	 */
-
-	// mark the cursor of the input stream
-	protected long start;
-	protected long end;
-
 	// A flag that tells in which block the cursor is. Every implementation should
 	// play extremely high attention on maintain the accurateness of the flag value
 	protected byte flag;
 
-	// compression mode checking
-	protected boolean compressed = false;
-
 	// option to whether skip non-article pages
 	protected boolean skipNonArticles = true;
 	
@@ -59,18 +43,52 @@ RecordReader<LongWritable, VALUEIN> {
 	protected long minTime = 0l;
 	protected long maxTime = Long.MAX_VALUE;
 
-	// a direct buffer to improve the local IO performance
-	protected byte[] buf = new byte[134217728];
-	protected int[] pos = new int[2];
+	// option to load the texts as views of the read buffer
+	protected boolean textView = false;
+
+	// the fields of the revisions to read (see RevisionFields)
+	protected int fields = RevisionFields.ALL;
 
-	protected Seekable fsin;
+	// parses the timestamps of the revisions, caching the last day
+	protected final TimestampParser timeParser = new TimestampParser();
+
+	// the stream of the split, which fills the scan buffer. The buffer and
+	// its cursor (pos[0] is the next byte to read, pos[1] the end of the
+	// valid data) are shared with the stream
+	protected DumpStream stream;
+	protected byte[] buf;
+	protected int[] pos;
+
+	private TaskAttemptContext context;
 
 	protected LongWritable key = new LongWritable();
 	protected VALUEIN value;
 
 	protected DataOutputBuffer keyBuf = new DataOutputBuffer();		
 
+	// the page, or only the current revision, is skipped
 	protected boolean skipped = false;
+	protected boolean revisionSkipped = false;
+
+	// the predicates on the pages and revisions to read
+	protected RevisionFilter filter;
+
+	// the tags of the dump, found in the scan buffer
+	protected TagReader tags;
+
+	// The state machine of the reader as a table: for each flag, the next flag
+	// when seeing a given tag (0 means the tag is ignored in this state), and
+	// the buffer that receives the content in front of the expected tag
+	private static final int MAX_FLAGS = 64;
+	private final int[][] transitions = new int[MAX_FLAGS][DumpTags.COUNT];
+	private final DataOutputBuffer[] captures = new DataOutputBuffer[MAX_FLAGS];
+
+	// the only tag expected in a flag, -1 if there are several
+	private final int[] expected = new int[MAX_FLAGS];
+
+	protected WikiRevisionReader() {
+		Arrays.fill(expected, -1);
+	}
 
 	@Override
 	public void initialize(InputSplit input, TaskAttemptContext tac)
@@ -81,45 +99,54 @@ RecordReader<LongWritable, VALUEIN> {
 		setBlockSize(conf);
 
 		FileSplit split = (FileSplit) input;
-		start = split.getStart();
-		end = start + split.getLength();
-		Path file = split.getPath();
-
-		CompressionCodecFactory compressionCodecs = new CompressionCodecFactory(conf);
-		CompressionCodec codec = compressionCodecs.getCodec(file);
-		FileSystem fs = file.getFileSystem(conf);
-
-		CompressionInputStream cis = null;		
-
-		if (codec != null) { // file is compressed
-			compressed = true;
-			Decompressor decompressor = CodecPool.getDecompressor(codec);
-			if (codec instanceof SplittableCompressionCodec) {
-				SplittableCompressionCodec scodec = (SplittableCompressionCodec)codec;
-				SplitCompressionInputStream cin = scodec.createInputStream
-						(fs.open(file), decompressor, start, end, 
-								SplittableCompressionCodec.READ_MODE.BYBLOCK);
-				cis = cin;
-			} else {
-				// non-splittable compression input stream
-				// no seeking or offsetting is needed
-				assert start == 0;
-				CompressionInputStream cin = codec.createInputStream(fs.open(file), decompressor);
-				cis = cin;
-				if (start >= 1) cis.skip(start - 1);
-			}			 
-
-			fsin = cis;
-		} else { // file is uncompressed	
-			compressed = false;
-			fsin = fs.open(file);
-			fsin.seek(start);
+		context = tac;
+		if (stream != null) {
+			stream.close();
 		}
+		stream = new DumpStream(split, tac);
+		buf = stream.buffer();
+		pos = stream.cursor();
 		flag = 1;
-		pos[0] = pos[1] = 0;	
+		tags = new TagReader(buf, pos, new TagReader.Refill() {
+			@Override
+			public boolean fill() throws IOException {
+				return WikiRevisionReader.this.fill();
+			}
+		});
+		tags.setSkipText(conf.getBoolean(SKIP_TEXT_BY_LENGTH, false));
 		skipNonArticles = conf.getBoolean(SKIP_NON_ARTICLES, true);
 		minTime = conf.getLong(REVISION_BEGIN_TIME, 0);
 		maxTime = conf.getLong(REVISION_END_TIME, Long.MAX_VALUE);
+		textView = conf.getBoolean(TEXT_VIEW, false);
+		fields = RevisionFields.get(conf);
+		filter = new RevisionFilter(conf, true);
+		if (split instanceof StreamSplit 
+				&& ((StreamSplit) split).getPageIds() != null) {
+			filter.setPageIds(((StreamSplit) split).getPageIds());
+		}
+	}
+
+	/** Whether any of the given fields (see {@link RevisionFields}) is read */
+	protected final boolean reads(int field) {
+		return (fields & field) != 0;
+	}
+
+	/**
+	 * When the length of a revision is read without its text, call this as
+	 * the text starts: if the dump gives the length (&lt;text bytes="N"&gt;),
+	 * the text is not captured in the given flag anymore
+	 */
+	protected final void startText(int flag, DataOutputBuffer content) {
+		capture(flag, (tags.textBytes() < 0) ? content : null);
+	}
+
+	/** The length of the unescaped text just read: as given by the dump, or
+	 * else counted in the content captured, be it the text or what is
+	 * captured without it (see {@link #startText(int, DataOutputBuffer)}) */
+	protected final int textLength(DataOutputBuffer content) {
+		long bytes = tags.textBytes();
+		return (bytes >= 0) ? (int) bytes : XmlEntities.unescapedLength(
+				content.getData(), 0, content.getLength());
 	}
 
 	protected static void setBlockSize(Configuration conf) {
@@ -140,25 +167,33 @@ RecordReader<LongWritable, VALUEIN> {
 
 	@Override
 	public float getProgress() throws IOException, InterruptedException {
-		return (fsin.getPos() - start) / (float) (end - start);
+		return stream.getProgress();
 	}
 
 	@Override
 	public void close() throws IOException {
-		if (compressed) {
-			((CompressionInputStream)fsin).close();
-		} else {
-			((FSDataInputStream)fsin).close();
+		try {
+			filter.report(context);
+		} finally {
+			stream.close();
 		}
 	}
 
+	// The split ends at the first page that starts past its end, and not at
+	// its end offset: the last page is read till its end, even past the split
 	@Override	
 	public boolean nextKeyValue() throws IOException, InterruptedException {
-		if (fsin.getPos() < end) {
+		if (flag != -1) {
 			while (readUntilMatch()) {
 				STATE state = doWhenMatch();
-				if (state == STATE.STOP_TRUE) 
+				if (state == STATE.STOP_TRUE) {
+
+					// the carried revision is only read as a predecessor
+					if (stream.inCarriedRevision()) {
+						continue;
+					}
 					return true;
+				}
 				else if (state == STATE.STOP_FALSE)
 					return false;
 			}
@@ -169,6 +204,117 @@ RecordReader<LongWritable, VALUEIN> {
 	/** What to do when encountering one relevant tag */
 	protected abstract STATE doWhenMatch() throws IOException, InterruptedException;
 
-	/** What to do when reading till the next relevant tag */
-	protected abstract boolean readUntilMatch() throws IOException;
+	/**
+	 * What to do when reading till the next relevant tag. By default, this
+	 * runs the transition table of the reader (see {@link #on(int, int, int)})
+	 * over the tags of the dump. Return at every legit tag and inform the
+	 * program via the global flag.
+	 */
+	protected boolean readUntilMatch() throws IOException {
+		if (buf == null && pos.length != 2)
+			throw new IOException("Internal buffer corrupted.");
+		while (true) {
+			int state = state();
+			int tag = expected[state];
+			if (tag >= 0) {
+				if (!tags.readUntil(tag, captures[state])) {
+					flag = -1;
+					return false;
+				}
+			} else {
+				tag = tags.next();
+				if (tag < 0) {
+					flag = -1;
+					return false;
+				}
+			}
+			int next = transitions[state][tag];
+			if (next != 0) {
+				if (tag == DumpTags.PAGE_START && !pageInSplit()) {
+					flag = -1;
+					return false;
+				}
+				flag = (byte) next;
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * The state whose transitions apply at the current position. It is the 
+	 * flag itself by default, readers can override this to route the machine
+	 * through an extra state (e.g. to skip the rest of a page)
+	 */
+	protected int state() {
+		return flag;
+	}
+
+	/** Declare that the reader moves from flag to next when seeing the tag */
+	protected final void on(int flag, int tag, int next) {
+		transitions[flag][tag] = next;
+		int only = -1;
+		for (int t = 0; t < DumpTags.COUNT; t++) {
+			if (transitions[flag][t] != 0) {
+				if (only >= 0) {
+					only = -1;
+					break;
+				}
+				only = t;
+			}
+		}
+		expected[flag] = only;
+	}
+
+	/** Declare that in the given flag, everything until the next (single)
+	 * expected tag goes to the buffer. The tag itself is not copied */
+	protected final void capture(int flag, DataOutputBuffer buffer) {
+		captures[flag] = buffer;
+	}
+
+	/**
+	 * Jump over the rest of the current buffer until the end of the tag of
+	 * the given scanner, without looking at the bytes in between. 
+	 * @param matched number of tag bytes already matched at the end of the
+	 * previous buffer
+	 * @return the number of tag bytes matched so far. It equals the tag length
+	 * when the tag is found, and the cursor then points right after it;
+	 * otherwise the whole buffer is consumed
+	 */
+	protected final int skipUntil(TagScanner scanner, int matched) {
+		int r = scanner.scan(buf, pos[0], pos[1], matched);
+		if (r >= 0) {
+			pos[0] = r;
+			return scanner.getTag().length;
+		}
+		pos[0] = pos[1];
+		return -r - 1;
+	}
+
+	/**
+	 * Offset in the file of the byte at the given index of the buffer (see
+	 * {@link DumpStream#offsetOf(int)})
+	 */
+	protected final long offsetOf(int index) {
+		return stream.offsetOf(index);
+	}
+
+	/**
+	 * Whether the page whose start tag was just read belongs to this split
+	 * (see {@link DumpStream#pageInSplit()})
+	 */
+	protected final boolean pageInSplit() {
+		return stream.pageInSplit();
+	}
+
+	/** Read the next chunk of the stream into the buffer. Return false when
+	 * reaching EOF */
+	protected boolean fill() throws IOException {
+		if (!stream.fill()) {
+			flag = -1;
+			return false;
+		}
+		buf = stream.buffer();
+		tags.setBuffer(buf);
+		return true;
+	}
 }
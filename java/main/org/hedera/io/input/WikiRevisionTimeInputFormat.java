@@ -1,14 +1,12 @@
 package org.hedera.io.input;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.GnuParser;
 import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Options;
-import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
@@ -16,14 +14,11 @@ import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
-import org.apache.log4j.Logger;
+import org.hedera.util.ByteParser;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeConstants;
 import org.joda.time.MutableDateTime;
 
-import com.twitter.elephantbird.util.TaskHeartbeatThread;
-
-
 public class WikiRevisionTimeInputFormat extends 
 		WikiRevisionInputFormat<LongWritable, Text> {
 
@@ -102,15 +97,11 @@ public class WikiRevisionTimeInputFormat extends
 	// 8 - just passed the </revision>
 	// 9 - just passed the </page>
 	public static class RevisionReader extends WikiRevisionReader<Text> {
-		private static final Logger LOG = Logger.getLogger(RevisionReader.class); 		
-
 		private static final byte[] DUMMY_REV = ("<revision beginningofpage=\"true\">"
 				+ "<timestamp>1970-01-01T00:00:00Z</timestamp><text xml:space=\"preserve\">"
 				+ "</text></revision>\n")
 				.getBytes(StandardCharsets.UTF_8);
 
-		private TaskAttemptContext context;
-		
 		// indicating the flow condition within [flag = 8]
 		// -1 - Unmatched
 		//  1 - Matched <revision> tag partially
@@ -145,13 +136,12 @@ public class WikiRevisionTimeInputFormat extends
 				throws IOException, InterruptedException {
 			super.initialize(input, tac);
 			value = new Text();
-			this.context = tac;
 		}
 
 		@Override
 		public STATE doWhenMatch() throws IOException, InterruptedException {
 			if (flag == 9) {
-				key.set(fsin.getPos() - rev2Buf.getLength() - END_PAGE.length);						
+				key.set(stream.getPos() - rev2Buf.getLength() - END_PAGE.length);						
 				value.set(pageHeader.getData(), 0, pageHeader.getLength() - START_REVISION.length);
 				value.append(rev1Buf.getData(), 0, rev1Buf.getLength());
 				value.append(rev2Buf.getData(), 0, rev1Buf.getLength());
@@ -171,7 +161,7 @@ public class WikiRevisionTimeInputFormat extends
 				DateTime dt = roundup(ts);
 
 				if (curTs != null && dt.isAfter(curTs)) {
-					key.set(fsin.getPos() - tmpBuf.getLength() - rev2Buf.getLength());						
+					key.set(stream.getPos() - tmpBuf.getLength() - rev2Buf.getLength());						
 					value.set(pageHeader.getData(), 0, pageHeader.getLength() - START_REVISION.length);
 					value.append(rev1Buf.getData(), 0, rev1Buf.getLength());
 					value.append(rev2Buf.getData(), 0, rev1Buf.getLength());
@@ -195,8 +185,8 @@ public class WikiRevisionTimeInputFormat extends
 				}
 			}
 			else if (flag == 4) {
-				String pageId = new String(keyBuf.getData(), 0, keyBuf.getLength() - END_ID.length);
-				key.set(Long.parseLong(pageId));	
+				key.set(ByteParser.parseLong(keyBuf.getData(), 0,
+						keyBuf.getLength() - END_ID.length));
 				keyBuf.reset();
 			}
 			else if (flag == 2) {
@@ -275,46 +265,30 @@ public class WikiRevisionTimeInputFormat extends
 			int i = 0;
 			while (true) {
 				if (pos[0] == pos[1]) {				
-					// We use a thread that pings back to the cluster every 5 minutes
-					// to avoid getting killed for slow read
-					TaskHeartbeatThread heartbeat = new TaskHeartbeatThread(context, 60 * 5000) {
-						@Override
-						protected void progress() {
-							LOG.info("Task " + context.getTaskAttemptID() 
-									+ " pings back...");
-						}
-					};
-
-					try {
-						heartbeat.start();
-						pos[1] = (compressed) ? ((InputStream)fsin).read(buf) :
-							((FSDataInputStream)fsin).read(buf);
-						pos[0] = 0;
-					} finally {
-						heartbeat.stop();
-					}
-
-					if (pos[1] == -1) {
-						flag = -1;
+					if (!fill()) {
 						return false;
 					}
 				} 
 				while (pos[0] < pos[1]) {
-					byte b = buf[pos[0]];
-					pos[0]++;
 					// ignore every character until reaching a new page
 					if (flag == 1 || flag == 9) {
-						if (b == START_PAGE[i]) {
-							i++;
-							if (i >= START_PAGE.length) {
-								flag = 2;
-								return true;
+						i = skipUntil(START_PAGE_SCANNER, i);
+						if (i >= START_PAGE.length) {
+							if (!pageInSplit()) {
+								flag = -1;
+								return false;
 							}
-						} else i = 0;
+							flag = 2;
+							return true;
+						}
+						continue;
 					}
 
+					byte b = buf[pos[0]];
+					pos[0]++;
+
 					// put everything between <page> tag and the first <id> tag into pageHeader
-					else if (flag == 2) {
+					if (flag == 2) {
 						if (b == START_ID[i]) {
 							i++;
 						} else i = 0;
@@ -0,0 +1,345 @@
+package org.hedera.io.parquet;
+
+import static org.apache.parquet.filter2.predicate.FilterApi.binaryColumn;
+import static org.apache.parquet.filter2.predicate.FilterApi.booleanColumn;
+import static org.apache.parquet.filter2.predicate.FilterApi.eq;
+import static org.apache.parquet.filter2.predicate.FilterApi.gtEq;
+import static org.apache.parquet.filter2.predicate.FilterApi.intColumn;
+import static org.apache.parquet.filter2.predicate.FilterApi.longColumn;
+import static org.apache.parquet.filter2.predicate.FilterApi.lt;
+import static org.apache.parquet.filter2.predicate.FilterApi.or;
+import static org.apache.parquet.filter2.predicate.FilterApi.userDefined;
+import static org.hedera.io.input.WikiRevisionInputFormat.MINOR_ONLY;
+import static org.hedera.io.input.WikiRevisionInputFormat.REVISION_BEGIN_TIME;
+import static org.hedera.io.input.WikiRevisionInputFormat.REVISION_END_TIME;
+import static org.hedera.io.input.WikiRevisionInputFormat.SEED_FILE;
+import static org.hedera.io.input.WikiRevisionInputFormat.SKIP_NON_ARTICLES;
+import static org.hedera.io.input.WikiRevisionInputFormat.SKIP_USER_PATTERN;
+import static org.hedera.io.input.WikiRevisionInputFormat.TITLE_PATTERN;
+import static org.hedera.io.input.WikiRevisionInputFormat.TITLE_PREFIX;
+import static org.hedera.io.input.WikiRevisionInputFormat.USER_PATTERN;
+import static org.hedera.io.parquet.RevisionSchema.MINOR;
+import static org.hedera.io.parquet.RevisionSchema.NAMESPACE;
+import static org.hedera.io.parquet.RevisionSchema.PAGE_ID;
+import static org.hedera.io.parquet.RevisionSchema.SCHEMA;
+import static org.hedera.io.parquet.RevisionSchema.TIMESTAMP;
+import static org.hedera.io.parquet.RevisionSchema.TITLE;
+import static org.hedera.io.parquet.RevisionSchema.USER;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators.IntColumn;
+import org.apache.parquet.filter2.predicate.Operators.LongColumn;
+import org.apache.parquet.filter2.predicate.Statistics;
+import org.apache.parquet.filter2.predicate.UserDefinedPredicate;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.hadoop.ParquetInputFormat;
+import org.apache.parquet.hadoop.ParquetRecordReader;
+import org.hedera.io.FullRevision;
+import org.hedera.io.input.WikiRevisionInputFormat;
+import org.hedera.util.XmlEntities;
+
+/**
+ * Reads the revisions written by {@link RevisionParquetOutputFormat}, keyed
+ * by page id as with the input formats of the dumps. The options of these
+ * formats that select revisions (time range, namespaces, seed pages, title,
+ * contributor, minor edits) are pushed down to Parquet: the row groups
+ * whose statistics exclude them are not read at all, and the other
+ * revisions are filtered record by record. Only the columns of the
+ * requested fields are read.
+ *
+ * @author tuan
+ */
+public class RevisionParquetInputFormat
+		extends FileInputFormat<LongWritable, FullRevision> {
+
+	// Comma-separated columns to read (see RevisionSchema), all by default,
+	// as for the other readers. The page id and the columns of the filters
+	// are always read
+	public static final String FIELDS = WikiRevisionInputFormat.FIELDS;
+
+	// Comma-separated namespaces of the revisions to read, as for the other
+	// readers. Overrides WikiRevisionInputFormat.SKIP_NON_ARTICLES
+	public static final String NAMESPACES = WikiRevisionInputFormat.NAMESPACES;
+
+	// Range [min, max) of the page ids to read
+	public static final String MIN_PAGE_ID = "org.hedera.input.minpageid";
+	public static final String MAX_PAGE_ID = "org.hedera.input.maxpageid";
+
+	private final ParquetInputFormat<FullRevision> parquet =
+			new ParquetInputFormat<>(RevisionReadSupport.class);
+
+	@Override
+	public List<InputSplit> getSplits(JobContext context) throws IOException {
+		return parquet.getSplits(context);
+	}
+
+	@Override
+	public RecordReader<LongWritable, FullRevision> createRecordReader(
+			InputSplit split, TaskAttemptContext context) throws IOException,
+			InterruptedException {
+		FilterPredicate filter = getFilter(context.getConfiguration());
+		return new RevisionParquetReader(new ParquetRecordReader<FullRevision>(
+				new RevisionReadSupport(), (filter == null) ? FilterCompat.NOOP
+						: FilterCompat.get(filter)));
+	}
+
+	/** The columns to read, or null for all of them */
+	public static Set<String> getColumns(Configuration conf) {
+		String fields = conf.get(FIELDS);
+		if (fields == null) {
+			return null;
+		}
+		Set<String> columns = new HashSet<>();
+		for (String field : fields.split(",")) {
+			field = field.trim();
+			if (!field.isEmpty()) {
+				if (!SCHEMA.containsField(field)) {
+					throw new IllegalArgumentException("Unknown field " + field);
+				}
+				columns.add(field);
+			}
+		}
+		columns.add(PAGE_ID);
+		if (conf.get(REVISION_BEGIN_TIME) != null
+				|| conf.get(REVISION_END_TIME) != null) {
+			columns.add(TIMESTAMP);
+		}
+		if (conf.get(NAMESPACES) != null
+				|| conf.getBoolean(SKIP_NON_ARTICLES, true)) {
+			columns.add(NAMESPACE);
+		}
+		if (conf.get(TITLE_PREFIX) != null || conf.get(TITLE_PATTERN) != null) {
+			columns.add(TITLE);
+		}
+		if (conf.get(USER_PATTERN) != null
+				|| conf.get(SKIP_USER_PATTERN) != null) {
+			columns.add(USER);
+		}
+		if (conf.get(MINOR_ONLY) != null) {
+			columns.add(MINOR);
+		}
+		return columns;
+	}
+
+	/** The conjunction of the filters set in the configuration, or null if
+	 * none is */
+	public static FilterPredicate getFilter(Configuration conf)
+			throws IOException {
+		LongColumn pageId = longColumn(PAGE_ID);
+		LongColumn timestamp = longColumn(TIMESTAMP);
+		IntColumn namespace = intColumn(NAMESPACE);
+		FilterPredicate filter = null;
+
+		if (conf.get(REVISION_BEGIN_TIME) != null) {
+			filter = and(filter, gtEq(timestamp, conf.getLong(
+					REVISION_BEGIN_TIME, 0)));
+		}
+		if (conf.get(REVISION_END_TIME) != null) {
+			filter = and(filter, lt(timestamp, conf.getLong(
+					REVISION_END_TIME, Long.MAX_VALUE)));
+		}
+
+		String namespaces = conf.get(NAMESPACES);
+		if (namespaces != null) {
+			FilterPredicate any = null;
+			for (String ns : namespaces.split(",")) {
+				ns = ns.trim();
+				if (!ns.isEmpty()) {
+					FilterPredicate p = eq(namespace, Integer.parseInt(ns));
+					any = (any == null) ? p : or(any, p);
+				}
+			}
+			filter = and(filter, any);
+		} else if (conf.getBoolean(SKIP_NON_ARTICLES, true)) {
+			filter = and(filter, eq(namespace, 0));
+		}
+
+		if (conf.get(MIN_PAGE_ID) != null) {
+			filter = and(filter, gtEq(pageId, conf.getLong(MIN_PAGE_ID, 0)));
+		}
+		if (conf.get(MAX_PAGE_ID) != null) {
+			filter = and(filter, lt(pageId, conf.getLong(MAX_PAGE_ID,
+					Long.MAX_VALUE)));
+		}
+		Set<String> seeds = WikiRevisionInputFormat.readLines(conf, SEED_FILE);
+		if (seeds != null) {
+			long[] ids = new long[seeds.size()];
+			int i = 0;
+			for (String id : seeds) {
+				ids[i++] = Long.parseLong(id);
+			}
+			Arrays.sort(ids);
+			filter = and(filter, userDefined(pageId, new PageIdSet(ids)));
+		}
+
+		if (conf.get(TITLE_PREFIX) != null || conf.get(TITLE_PATTERN) != null) {
+			filter = and(filter, userDefined(binaryColumn(TITLE),
+					new StringMatch(conf.get(TITLE_PREFIX),
+							conf.get(TITLE_PATTERN), null)));
+		}
+		if (conf.get(USER_PATTERN) != null
+				|| conf.get(SKIP_USER_PATTERN) != null) {
+			filter = and(filter, userDefined(binaryColumn(USER),
+					new StringMatch(null, conf.get(USER_PATTERN),
+							conf.get(SKIP_USER_PATTERN))));
+		}
+		if (conf.get(MINOR_ONLY) != null) {
+			filter = and(filter, eq(booleanColumn(MINOR),
+					conf.getBoolean(MINOR_ONLY, true)));
+		}
+		return filter;
+	}
+
+	// and() of FilterApi does not take null operands
+	private static FilterPredicate and(FilterPredicate left,
+			FilterPredicate right) {
+		if (left == null) {
+			return right;
+		} else if (right == null) {
+			return left;
+		}
+		return FilterApi.and(left, right);
+	}
+
+	/** The seed pages, a row group is dropped if no seed falls in the range
+	 * of its page ids */
+	public static class PageIdSet extends UserDefinedPredicate<Long>
+			implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long[] ids;
+
+		public PageIdSet(long[] ids) {
+			this.ids = ids;
+		}
+
+		@Override
+		public boolean keep(Long value) {
+			return value != null && Arrays.binarySearch(ids, value) >= 0;
+		}
+
+		@Override
+		public boolean canDrop(Statistics<Long> statistics) {
+			int i = Arrays.binarySearch(ids, statistics.getMin());
+			if (i >= 0) {
+				return false;
+			}
+			i = -i - 1;
+			return i == ids.length || ids[i] > statistics.getMax();
+		}
+
+		@Override
+		public boolean inverseCanDrop(Statistics<Long> statistics) {
+			return false;
+		}
+	}
+
+	/** The titles or contributors that start with a prefix and match a
+	 * pattern, and do not match another one. As in RevisionFilter, a missing
+	 * value (anonymous contributor) fails the pattern but not the one to skip.
+	 * The statistics of a string column say nothing of a pattern, no row
+	 * group is dropped */
+	public static class StringMatch extends UserDefinedPredicate<Binary>
+			implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String prefix;
+		private final Pattern pattern;
+		private final Pattern skipPattern;
+
+		public StringMatch(String prefix, String pattern, String skipPattern) {
+			this.prefix = prefix;
+			this.pattern = (pattern == null) ? null : Pattern.compile(pattern);
+			this.skipPattern = (skipPattern == null) ? null
+					: Pattern.compile(skipPattern);
+		}
+
+		@Override
+		public boolean keep(Binary value) {
+			if (value == null) {
+				return prefix == null && pattern == null;
+			}
+			// the values are XML-escaped, as in the dumps
+			String s = XmlEntities.unescape(value.toStringUsingUTF8());
+			return (prefix == null || s.startsWith(prefix))
+					&& (pattern == null || pattern.matcher(s).matches())
+					&& (skipPattern == null || !skipPattern.matcher(s).matches());
+		}
+
+		@Override
+		public boolean canDrop(Statistics<Binary> statistics) {
+			return false;
+		}
+
+		@Override
+		public boolean inverseCanDrop(Statistics<Binary> statistics) {
+			return false;
+		}
+	}
+
+	private static class RevisionParquetReader
+			extends RecordReader<LongWritable, FullRevision> {
+
+		private final ParquetRecordReader<FullRevision> reader;
+		private final LongWritable key = new LongWritable();
+
+		private RevisionParquetReader(ParquetRecordReader<FullRevision> reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public void initialize(InputSplit split, TaskAttemptContext context)
+				throws IOException, InterruptedException {
+			reader.initialize(split, context);
+		}
+
+		@Override
+		public boolean nextKeyValue() throws IOException, InterruptedException {
+			if (!reader.nextKeyValue()) {
+				return false;
+			}
+			key.set(reader.getCurrentValue().getPageId());
+			return true;
+		}
+
+		@Override
+		public LongWritable getCurrentKey() {
+			return key;
+		}
+
+		@Override
+		public FullRevision getCurrentValue() throws IOException,
+				InterruptedException {
+			return reader.getCurrentValue();
+		}
+
+		@Override
+		public float getProgress() throws IOException, InterruptedException {
+			return reader.getProgress();
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package org.hedera.io.parquet;
+
+import org.apache.parquet.hadoop.ParquetOutputFormat;
+import org.hedera.io.FullRevision;
+
+/**
+ * Writes the revisions to Parquet files of {@link RevisionSchema}, one per
+ * task. The keys are ignored. For the row groups to be bounded by page id
+ * and timestamp, the revisions must come sorted by both, as from the
+ * reducers of {@link org.hedera.mapreduce.ExportParquetRevisions}.
+ *
+ * @author tuan
+ */
+public class RevisionParquetOutputFormat extends ParquetOutputFormat<FullRevision> {
+
+	public RevisionParquetOutputFormat() {
+		super(new RevisionWriteSupport());
+	}
+}
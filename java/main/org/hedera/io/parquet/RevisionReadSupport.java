@@ -0,0 +1,201 @@
+package org.hedera.io.parquet;
+
+import static org.hedera.io.parquet.RevisionSchema.COMMENT;
+import static org.hedera.io.parquet.RevisionSchema.LENGTH;
+import static org.hedera.io.parquet.RevisionSchema.MINOR;
+import static org.hedera.io.parquet.RevisionSchema.NAMESPACE;
+import static org.hedera.io.parquet.RevisionSchema.PAGE_ID;
+import static org.hedera.io.parquet.RevisionSchema.PARENT_ID;
+import static org.hedera.io.parquet.RevisionSchema.REVISION_ID;
+import static org.hedera.io.parquet.RevisionSchema.TEXT;
+import static org.hedera.io.parquet.RevisionSchema.TIMESTAMP;
+import static org.hedera.io.parquet.RevisionSchema.TITLE;
+import static org.hedera.io.parquet.RevisionSchema.USER;
+import static org.hedera.io.parquet.RevisionSchema.USER_ID;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.api.InitContext;
+import org.apache.parquet.hadoop.api.ReadSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.Converter;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.io.api.PrimitiveConverter;
+import org.apache.parquet.io.api.RecordMaterializer;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
+import org.hedera.io.FullRevision;
+
+/**
+ * Reads the records of {@link RevisionSchema} into one reused
+ * {@link FullRevision}. Only the columns returned by
+ * {@link RevisionParquetInputFormat#getColumns} are read, the other fields
+ * of the revisions are left empty.
+ *
+ * @author tuan
+ */
+public class RevisionReadSupport extends ReadSupport<FullRevision> {
+
+	@Override
+	public ReadContext init(InitContext context) {
+		MessageType fileSchema = context.getFileSchema();
+		Set<String> columns = RevisionParquetInputFormat.getColumns(
+				context.getConfiguration());
+		if (columns == null) {
+			return new ReadContext(fileSchema);
+		}
+		List<Type> fields = new ArrayList<>();
+		for (Type field : fileSchema.getFields()) {
+			if (columns.contains(field.getName())) {
+				fields.add(field);
+			}
+		}
+		return new ReadContext(new MessageType(fileSchema.getName(), fields));
+	}
+
+	@Override
+	public RecordMaterializer<FullRevision> prepareForRead(Configuration conf,
+			Map<String, String> keyValueMetaData, MessageType fileSchema,
+			ReadContext readContext) {
+		return new RevisionMaterializer(readContext.getRequestedSchema());
+	}
+
+	private static class RevisionMaterializer
+			extends RecordMaterializer<FullRevision> {
+
+		private final FullRevision value = new FullRevision();
+		private final GroupConverter root;
+
+		private RevisionMaterializer(MessageType schema) {
+			final Converter[] converters = new Converter[schema.getFieldCount()];
+			for (int i = 0; i < converters.length; i++) {
+				converters[i] = converter(schema.getFieldName(i));
+			}
+			root = new GroupConverter() {
+
+				@Override
+				public Converter getConverter(int fieldIndex) {
+					return converters[fieldIndex];
+				}
+
+				@Override
+				public void start() {
+					value.clear();
+					value.setMinor(false);
+					value.setUser(null);
+					value.setUserId(-1);
+					value.setComment(null);
+				}
+
+				@Override
+				public void end() {
+				}
+			};
+		}
+
+		private PrimitiveConverter converter(String field) {
+			switch (field) {
+			case PAGE_ID:
+				return new PrimitiveConverter() {
+					@Override
+					public void addLong(long v) {
+						value.setPageId(v);
+					}
+				};
+			case REVISION_ID:
+				return new PrimitiveConverter() {
+					@Override
+					public void addLong(long v) {
+						value.setRevisionId(v);
+					}
+				};
+			case PARENT_ID:
+				return new PrimitiveConverter() {
+					@Override
+					public void addLong(long v) {
+						value.setParentId(v);
+					}
+				};
+			case TIMESTAMP:
+				return new PrimitiveConverter() {
+					@Override
+					public void addLong(long v) {
+						value.setTimestamp(v);
+					}
+				};
+			case NAMESPACE:
+				return new PrimitiveConverter() {
+					@Override
+					public void addInt(int v) {
+						value.setNamespace(v);
+					}
+				};
+			case TITLE:
+				return new PrimitiveConverter() {
+					@Override
+					public void addBinary(Binary v) {
+						value.setPageTitle(v.toStringUsingUTF8());
+					}
+				};
+			case LENGTH:
+				return new PrimitiveConverter() {
+					@Override
+					public void addInt(int v) {
+						value.setLength(v);
+					}
+				};
+			case MINOR:
+				return new PrimitiveConverter() {
+					@Override
+					public void addBoolean(boolean v) {
+						value.setMinor(v);
+					}
+				};
+			case USER:
+				return new PrimitiveConverter() {
+					@Override
+					public void addBinary(Binary v) {
+						value.setUser(v.toStringUsingUTF8());
+					}
+				};
+			case USER_ID:
+				return new PrimitiveConverter() {
+					@Override
+					public void addLong(long v) {
+						value.setUserId(v);
+					}
+				};
+			case COMMENT:
+				return new PrimitiveConverter() {
+					@Override
+					public void addBinary(Binary v) {
+						value.setComment(v.toStringUsingUTF8());
+					}
+				};
+			case TEXT:
+				return new PrimitiveConverter() {
+					@Override
+					public void addBinary(Binary v) {
+						value.loadText(v.getBytesUnsafe(), 0, v.length());
+					}
+				};
+			default:
+				throw new IllegalArgumentException("Unknown column " + field);
+			}
+		}
+
+		@Override
+		public FullRevision getCurrentRecord() {
+			return value;
+		}
+
+		@Override
+		public GroupConverter getRootConverter() {
+			return root;
+		}
+	}
+}
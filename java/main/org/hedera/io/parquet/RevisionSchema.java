@@ -0,0 +1,49 @@
+package org.hedera.io.parquet;
+
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+
+/**
+ * Parquet schema of the revisions, one column per field of a
+ * {@link org.hedera.io.FullRevision}. The revisions are written sorted by
+ * page id then timestamp, so that the statistics of these columns bound
+ * each row group tightly. The contributor, comment and text are optional:
+ * anonymous contributors have no name (their id is -1), and a projection
+ * may leave the text out.
+ *
+ * @author tuan
+ */
+public final class RevisionSchema {
+
+	public static final String PAGE_ID = "page_id";
+	public static final String REVISION_ID = "rev_id";
+	public static final String PARENT_ID = "parent_id";
+	public static final String TIMESTAMP = "timestamp";
+	public static final String NAMESPACE = "namespace";
+	public static final String TITLE = "title";
+	public static final String LENGTH = "length";
+	public static final String MINOR = "minor";
+	public static final String USER = "user";
+	public static final String USER_ID = "user_id";
+	public static final String COMMENT = "comment";
+	public static final String TEXT = "text";
+
+	public static final MessageType SCHEMA = MessageTypeParser.parseMessageType(
+			"message revision {\n"
+			+ "  required int64 " + PAGE_ID + ";\n"
+			+ "  required int64 " + REVISION_ID + ";\n"
+			+ "  required int64 " + PARENT_ID + ";\n"
+			+ "  required int64 " + TIMESTAMP + " (TIMESTAMP_MILLIS);\n"
+			+ "  required int32 " + NAMESPACE + ";\n"
+			+ "  optional binary " + TITLE + " (UTF8);\n"
+			+ "  required int32 " + LENGTH + ";\n"
+			+ "  required boolean " + MINOR + ";\n"
+			+ "  optional binary " + USER + " (UTF8);\n"
+			+ "  required int64 " + USER_ID + ";\n"
+			+ "  optional binary " + COMMENT + " (UTF8);\n"
+			+ "  optional binary " + TEXT + ";\n"
+			+ "}");
+
+	private RevisionSchema() {
+	}
+}
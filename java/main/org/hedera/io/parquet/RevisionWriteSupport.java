@@ -0,0 +1,91 @@
+package org.hedera.io.parquet;
+
+import static org.hedera.io.parquet.RevisionSchema.COMMENT;
+import static org.hedera.io.parquet.RevisionSchema.LENGTH;
+import static org.hedera.io.parquet.RevisionSchema.MINOR;
+import static org.hedera.io.parquet.RevisionSchema.NAMESPACE;
+import static org.hedera.io.parquet.RevisionSchema.PAGE_ID;
+import static org.hedera.io.parquet.RevisionSchema.PARENT_ID;
+import static org.hedera.io.parquet.RevisionSchema.REVISION_ID;
+import static org.hedera.io.parquet.RevisionSchema.SCHEMA;
+import static org.hedera.io.parquet.RevisionSchema.TEXT;
+import static org.hedera.io.parquet.RevisionSchema.TIMESTAMP;
+import static org.hedera.io.parquet.RevisionSchema.TITLE;
+import static org.hedera.io.parquet.RevisionSchema.USER;
+import static org.hedera.io.parquet.RevisionSchema.USER_ID;
+
+import java.util.HashMap;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.hedera.io.FullRevision;
+
+/**
+ * Writes the revisions as records of {@link RevisionSchema}. The text is
+ * handed to Parquet without a copy, it must not change until the record is
+ * written, as is the case for the values of the input formats.
+ *
+ * @author tuan
+ */
+public class RevisionWriteSupport extends WriteSupport<FullRevision> {
+
+	private RecordConsumer consumer;
+
+	@Override
+	public WriteContext init(Configuration conf) {
+		return new WriteContext(SCHEMA, new HashMap<String, String>());
+	}
+
+	@Override
+	public void prepareForWrite(RecordConsumer recordConsumer) {
+		consumer = recordConsumer;
+	}
+
+	@Override
+	public void write(FullRevision rev) {
+		consumer.startMessage();
+		writeLong(PAGE_ID, 0, rev.getPageId());
+		writeLong(REVISION_ID, 1, rev.getRevisionId());
+		writeLong(PARENT_ID, 2, rev.getParentId());
+		writeLong(TIMESTAMP, 3, rev.getTimestamp());
+		writeInt(NAMESPACE, 4, rev.getNamespace());
+		writeString(TITLE, 5, rev.getPageTitle());
+		writeInt(LENGTH, 6, rev.getLength());
+		consumer.startField(MINOR, 7);
+		consumer.addBoolean(rev.isMinor());
+		consumer.endField(MINOR, 7);
+		writeString(USER, 8, rev.getUser());
+		writeLong(USER_ID, 9, rev.getUserId());
+		writeString(COMMENT, 10, rev.getComment());
+		if (rev.getTextBuffer() != null) {
+			consumer.startField(TEXT, 11);
+			consumer.addBinary(Binary.fromReusedByteArray(rev.getTextBuffer(),
+					rev.getTextOffset(), rev.getTextLength()));
+			consumer.endField(TEXT, 11);
+		}
+		consumer.endMessage();
+	}
+
+	private void writeLong(String field, int index, long value) {
+		consumer.startField(field, index);
+		consumer.addLong(value);
+		consumer.endField(field, index);
+	}
+
+	private void writeInt(String field, int index, int value) {
+		consumer.startField(field, index);
+		consumer.addInteger(value);
+		consumer.endField(field, index);
+	}
+
+	// a null value is a missing optional field
+	private void writeString(String field, int index, String value) {
+		if (value != null) {
+			consumer.startField(field, index);
+			consumer.addBinary(Binary.fromString(value));
+			consumer.endField(field, index);
+		}
+	}
+}
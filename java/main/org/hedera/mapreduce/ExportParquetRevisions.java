@@ -0,0 +1,111 @@
+package org.hedera.mapreduce;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+import org.apache.parquet.hadoop.ParquetOutputFormat;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.hedera.io.FullRevision;
+import org.hedera.io.binary.BinaryRevisionFullInputFormat;
+import org.hedera.io.input.WikiRevisionFullInputFormat;
+import org.hedera.io.input.WikiRevisionInputFormat;
+import org.hedera.io.parquet.RevisionParquetOutputFormat;
+
+import tl.lin.data.pair.PairOfLongs;
+import tuan.hadoop.conf.JobConfig;
+
+/**
+ * Exports the revisions to Parquet (see
+ * {@link org.hedera.io.parquet.RevisionSchema}), for the jobs that read a
+ * few fields of the revisions or a slice of them (see
+ * {@link org.hedera.io.parquet.RevisionParquetInputFormat}). The revisions
+ * are keyed by page id and timestamp, and partitioned by page id: each
+ * reducer writes its pages in order, with the revisions of a page in
+ * chronological order, so that the row groups have narrow ranges of page
+ * ids and timestamps.
+ *
+ * Arguments: input directory, output directory, number of reducers, and
+ * optionally "binary" to read binary revision files instead of the dumps.
+ *
+ * @author tuan
+ */
+public class ExportParquetRevisions extends JobConfig implements Tool {
+
+	private static final class MyMapper extends
+			Mapper<LongWritable, FullRevision, PairOfLongs, FullRevision> {
+
+		private final PairOfLongs keyOut = new PairOfLongs();
+
+		@Override
+		protected void map(LongWritable key, FullRevision value, Context context)
+				throws IOException, InterruptedException {
+			keyOut.set(value.getPageId(), value.getTimestamp());
+			context.write(keyOut, value);
+		}
+	}
+
+	private static final class MyReducer extends
+			Reducer<PairOfLongs, FullRevision, Void, FullRevision> {
+
+		@Override
+		protected void reduce(PairOfLongs key, Iterable<FullRevision> values,
+				Context context) throws IOException, InterruptedException {
+			for (FullRevision value : values) {
+				context.write(null, value);
+			}
+		}
+	}
+
+	private static final class PagePartitioner
+			extends Partitioner<PairOfLongs, FullRevision> {
+
+		@Override
+		public int getPartition(PairOfLongs key, FullRevision value,
+				int numReduceTasks) {
+			return (int) ((key.getLeftElement() & Long.MAX_VALUE) % numReduceTasks);
+		}
+	}
+
+	@Override
+	public int run(String[] args) throws Exception {
+		String inputDir = args[0];
+		String outputDir = args[1];
+		int reduceNo = Integer.parseInt(args[2]);
+		Class<? extends InputFormat> inputFormat = (args.length > 3
+				&& "binary".equals(args[3])) ? BinaryRevisionFullInputFormat.class
+				: WikiRevisionFullInputFormat.class;
+
+		setMapperSize("-Xmx2048m");
+
+		Job job = setup("Hedera: Export revisions to Parquet",
+				ExportParquetRevisions.class, inputDir, outputDir,
+				inputFormat, RevisionParquetOutputFormat.class,
+				PairOfLongs.class, FullRevision.class,
+				Void.class, FullRevision.class,
+				MyMapper.class, MyReducer.class, reduceNo);
+
+		job.setPartitionerClass(PagePartitioner.class);
+		// the texts are serialized as they are read, they need not be copied
+		job.getConfiguration().setBoolean(WikiRevisionInputFormat.TEXT_VIEW,
+				true);
+		ParquetOutputFormat.setCompression(job, CompressionCodecName.SNAPPY);
+
+		job.waitForCompletion(true);
+		return 0;
+	}
+
+	public static void main(String[] args) {
+		try {
+			ToolRunner.run(new ExportParquetRevisions(), args);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
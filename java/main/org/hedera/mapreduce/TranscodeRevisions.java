@@ -0,0 +1,57 @@
+package org.hedera.mapreduce;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+import org.hedera.io.FullRevision;
+import org.hedera.io.binary.BinaryRevisionOutputFormat;
+import org.hedera.io.input.WikiRevisionFullInputFormat;
+import org.hedera.io.input.WikiRevisionInputFormat;
+
+import tuan.hadoop.conf.JobConfig;
+
+/**
+ * Converts the XML dumps to binary revision files, once, so that the jobs
+ * read the revisions with the binary input formats (see
+ * {@link org.hedera.io.binary.BinaryRevisionInputFormat}) instead of
+ * parsing the dumps again. A map-only job: each task writes the revisions of
+ * its split, page by page, to one file.
+ *
+ * @author tuan
+ */
+public class TranscodeRevisions extends JobConfig implements Tool {
+
+	@Override
+	public int run(String[] args) throws Exception {
+		String inputDir = args[0];
+		String outputDir = args[1];
+
+		setMapperSize("-Xmx2048m");
+
+		Job job = setup("Hedera: Transcode revisions",
+				TranscodeRevisions.class, inputDir, outputDir,
+				WikiRevisionFullInputFormat.class,
+				BinaryRevisionOutputFormat.class,
+				LongWritable.class, FullRevision.class,
+				LongWritable.class, FullRevision.class,
+				Mapper.class, Reducer.class, 0);
+
+		// the texts are written as they are read, they need not be copied
+		job.getConfiguration().setBoolean(WikiRevisionInputFormat.TEXT_VIEW,
+				true);
+
+		job.waitForCompletion(true);
+		return 0;
+	}
+
+	public static void main(String[] args) {
+		try {
+			ToolRunner.run(new TranscodeRevisions(), args);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+}
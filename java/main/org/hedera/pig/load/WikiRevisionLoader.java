@@ -73,7 +73,9 @@ public class WikiRevisionLoader extends LoadFunc implements LoadMetadata {
 				String title = content.getPageTitle();
 				String comment = content.getComment();
 				int ns = content.getNamespace();
-				String text = new String(content.getText(), StandardCharsets.UTF_8);
+				String text = new String(content.getTextBuffer(),
+						content.getTextOffset(), content.getTextLength(),
+						StandardCharsets.UTF_8);
 
 				return tuples.newTupleNoCopy(Arrays.asList(
 						pageId, title, ns, revId, parentId, 
@@ -88,6 +90,8 @@ public class WikiRevisionLoader extends LoadFunc implements LoadMetadata {
 	@Override
 	public void setLocation(String loc, Job job) throws IOException {
 		setInputPaths(job, loc);
+		// the text is decoded right away, it need not be copied first
+		job.getConfiguration().setBoolean(WikiRevisionInputFormat.TEXT_VIEW, true);
 	}
 
 	@Override
@@ -0,0 +1,51 @@
+package org.hedera.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The next bytes of a stream, up to a given length: used to hand one
+ * compressed stream or frame of a file to a decompressor, so that it does
+ * not read on into the next one. Closing this stream does not close the
+ * underlying stream.
+ *
+ * @author tuan
+ */
+public class BoundedInputStream extends InputStream {
+	private final InputStream in;
+	private long remaining;
+
+	public BoundedInputStream(InputStream in, long length) {
+		this.in = in;
+		this.remaining = length;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (remaining <= 0) {
+			return -1;
+		}
+		int b = in.read();
+		if (b >= 0) {
+			remaining--;
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (remaining <= 0) {
+			return -1;
+		}
+		int n = in.read(b, off, (int) Math.min(len, remaining));
+		if (n > 0) {
+			remaining -= n;
+		}
+		return n;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return (int) Math.min(in.available(), remaining);
+	}
+}
@@ -0,0 +1,67 @@
+package org.hedera.util;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A JVM-wide pool of the scan buffers used by the record readers. A reader
+ * takes a buffer when it is initialized and gives it back when it is closed,
+ * so that the readers opened one after another in the same JVM (e.g. the
+ * splits of a Pig loader, or a reused task JVM) do not each allocate their
+ * own buffer.
+ *
+ * Idle buffers are only softly referenced: under memory pressure, the GC can
+ * reclaim them.
+ *
+ * @author tuan
+ */
+public final class BufferPool {
+
+	/** Default size of one scan buffer: 4 MB */
+	public static final int DEFAULT_SIZE = 4 << 20;
+
+	// maximum number of idle buffers kept for one size
+	private static final int MAX_IDLE = 4;
+
+	private static final Map<Integer, ArrayDeque<SoftReference<byte[]>>> IDLE =
+			new HashMap<>();
+
+	private BufferPool() {
+	}
+
+	/** Get a buffer of exactly the given size, from the pool if possible */
+	public static byte[] acquire(int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Invalid buffer size: " + size);
+		}
+		synchronized (IDLE) {
+			ArrayDeque<SoftReference<byte[]>> idle = IDLE.get(size);
+			while (idle != null && !idle.isEmpty()) {
+				byte[] buf = idle.pop().get();
+				if (buf != null) {
+					return buf;
+				}
+			}
+		}
+		return new byte[size];
+	}
+
+	/** Give a buffer back to the pool. The caller must not use it anymore */
+	public static void release(byte[] buf) {
+		if (buf == null) {
+			return;
+		}
+		synchronized (IDLE) {
+			ArrayDeque<SoftReference<byte[]>> idle = IDLE.get(buf.length);
+			if (idle == null) {
+				idle = new ArrayDeque<>();
+				IDLE.put(buf.length, idle);
+			}
+			if (idle.size() < MAX_IDLE) {
+				idle.push(new SoftReference<>(buf));
+			}
+		}
+	}
+}
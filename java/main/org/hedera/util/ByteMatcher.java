@@ -22,14 +22,45 @@ import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.util.Progressable;
 import org.apache.hadoop.fs.Seekable;
 
-import com.twitter.elephantbird.util.TaskHeartbeatThread;
-
+/**
+ * Finds a pattern in a stream, remembering where the last unmatched byte
+ * was. The stream is read by blocks into an internal buffer, and the
+ * positions of single bytes are derived from the position of the stream
+ * before and after each block:
+ * - as long as the stream advances by as many positions as bytes are read
+ * (an uncompressed file), each byte gets its own position;
+ * - otherwise (a compressed file, whose position only moves at the start of
+ * a compressed block), all bytes of the block share the position reported
+ * after the block was read. As a compressed stream in BYBLOCK mode never
+ * returns bytes of two blocks in one read, this is the position that reading
+ * the bytes one at a time would have reported.
+ *
+ * Since the stream is read ahead, it must not be used directly once it is
+ * given to the matcher: use {@link #getPos()} and {@link #skip(long)}.
+ */
 public class ByteMatcher {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
 	private final InputStream in;
 	private final Seekable pos;
 	private long lastPos;
 	private long currentPos;
 	private long bytes;
+
+	private final byte[] buf = new byte[BUFFER_SIZE];
+
+	// the buffered bytes are buf[head..count)
+	private int head;
+	private int count;
+
+	// position of the stream before and after the buffered block
+	private long blockStart;
+	private long blockEnd;
+
+	// whether the stream position counts the bytes read
+	private boolean exact = true;
+
 	public ByteMatcher(InputStream in, Seekable pos) throws IOException {
 		this.in = in;
 		this.pos = pos;
@@ -39,72 +70,152 @@ public class ByteMatcher {
 	}
 	public ByteMatcher(SeekableInputStream is) throws IOException {
 		this(is, is);
+		this.exact = (is.getSplitCompressionInputStream() == null);
 	}
 	public long getReadBytes() {
 		return this.bytes;
 	}
 	public long getPos() throws IOException {
-		return this.pos.getPos();
+		if (head == count) {
+			return this.pos.getPos();
+		}
+		return (head == 0) ? blockStart : posAfter(head - 1);
 	}
 	public long getLastUnmatchPos() { return this.lastPos; }
 
 	public void skip(long len) throws IOException {
-		this.in.skip(len);
+		int n = (int) Math.min(len, count - head);
+		head += n;
+		if (len > n) {
+			this.in.skip(len - n);
+		}
 		this.bytes += len;
 	}
 
+	/** Position of the stream right after the given buffered byte */
+	private long posAfter(int i) {
+		return exact ? blockStart + i + 1 : blockEnd;
+	}
+
+	/** Index of the first buffered byte from head whose position reaches
+	 * the given offset, or count if none */
+	private int firstAt(long offset) {
+		if (exact) {
+			long i = offset - blockStart - 1;
+			return (int) Math.max(head, Math.min(count, i));
+		}
+		return (blockEnd >= offset) ? head : count;
+	}
+
+	private boolean fill() throws IOException {
+		blockStart = this.pos.getPos();
+		int n;
+		do {
+			n = this.in.read(buf, 0, buf.length);
+		} while (n == 0);
+		head = 0;
+		count = Math.max(n, 0);
+		blockEnd = this.pos.getPos();
+		if (blockEnd - blockStart != count) {
+			exact = false;
+		}
+		return n > 0;
+	}
+
+	/** Update the last unmatched positions with the last two unmatched bytes
+	 * of the block (prev is -1 if it was read in a former block) */
+	private void unmatched(int last, int prev) {
+		long p = posAfter(last);
+		if (p != this.currentPos) {
+			long q = (prev >= 0) ? posAfter(prev) : this.currentPos;
+			this.lastPos = (q != p) ? q : this.currentPos;
+			this.currentPos = p;
+		}
+	}
+
 	/**
 	 * Tuan (22.05.2014) - change the visibility of this method to public for being able to read from other packages
 	 */
 	public boolean readUntilMatch(String textPat, DataOutputBuffer outBufOrNull, long end,
 			final Progressable context) throws IOException {
 		byte[] match = textPat.getBytes("UTF-8");
+		byte first = match[0];
 		int i = 0;
 		while (true) {
-			int b;
-			
-			// We use a thread that pings back to the cluster every 5 minutes
-			// to avoid getting killed for slow read
-			if (context != null) {
-				TaskHeartbeatThread heartbeat = new TaskHeartbeatThread(context, 60 * 5000) {
-					@Override
-					protected void progress() {}
-				};
-
-				try {
-					heartbeat.start();
-					b = this.in.read();
-				} finally {
-					heartbeat.stop();
+			if (head == count) {
+				// end of file:
+				if (!fill()) {
+					System.err.println("eof 1");
+					return false;
+				}
+				if (context != null) {
+					context.progress();
 				}
-			} else b = this.in.read();
-			
-
-			// end of file:
-			if (b == -1) {
-				System.err.println("eof 1");
-				return false;
 			}
-			++this.bytes;    //! TODO: count up later in batch
-			// save to buffer:
-			if (outBufOrNull != null)
-				outBufOrNull.write(b);
-
-			// check if we're matching:
-			if (b == match[i]) {
-				i++;
-				if (i >= match.length)
-					return true;
-			} else {
-				i = 0;
-				if ( this.currentPos != this.getPos() ) {
-					this.lastPos = this.currentPos;
-					this.currentPos = this.getPos();
+			int from = head;
+			int stop = firstAt(end);
+			int k = head;
+			// the last two unmatched bytes of the block
+			int last = -1;
+			int prev = -1;
+			boolean found = false;
+			boolean passed = false;
+			while (k < count) {
+				if (i == 0) {
+					// skip to the next candidate, the bytes skipped are unmatched
+					int skipped = k;
+					int limit = Math.min(count, stop);
+					while (k < limit && buf[k] != first) {
+						k++;
+					}
+					if (k > skipped) {
+						prev = (k - 1 > skipped) ? k - 2 : last;
+						last = k - 1;
+					}
+					if (k == count) {
+						break;
+					}
+					// see if we've passed the stop point:
+					if (k >= stop && buf[k] != first) {
+						prev = last;
+						last = k++;
+						passed = true;
+						break;
+					}
+				}
+				// check if we're matching:
+				if (buf[k] == match[i]) {
+					k++;
+					if (++i >= match.length) {
+						found = true;
+						break;
+					}
+				} else {
+					// the byte is unmatched, but may start another match
+					prev = last;
+					last = k;
+					i = 0;
+					if (buf[k] != first) {
+						if (k++ >= stop) {
+							passed = true;
+							break;
+						}
+					}
 				}
 			}
-			// see if we've passed the stop point:
-			if (i == 0 && this.pos.getPos() >= end) {
-				// System.err.println("eof 2: end=" + end);
+			if (last >= 0) {
+				unmatched(last, prev);
+			}
+			// save to buffer:
+			if (outBufOrNull != null) {
+				outBufOrNull.write(buf, from, k - from);
+			}
+			this.bytes += k - from;
+			head = k;
+			if (found) {
+				return true;
+			}
+			if (passed) {
 				return false;
 			}
 		}
@@ -0,0 +1,52 @@
+package org.hedera.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses the decimal numbers of the dumps (ids, namespaces) directly from
+ * the bytes buffered by the readers, without decoding them to a String
+ * first. The range must hold the number only, with an optional minus sign,
+ * as Long.parseLong() expects: anything else throws a
+ * NumberFormatException.
+ *
+ * @author tuan
+ */
+public final class ByteParser {
+
+	// more digits may overflow a long, they are left to Long.parseLong()
+	private static final int MAX_LONG_DIGITS = 18;
+	private static final int MAX_INT_DIGITS = 9;
+
+	private ByteParser() {
+	}
+
+	public static long parseLong(byte[] b, int off, int len) {
+		int i = off;
+		int end = off + len;
+		boolean negative = (len > 1 && b[i] == '-');
+		if (negative) {
+			i++;
+		}
+		if (i == end || end - i > MAX_LONG_DIGITS) {
+			return Long.parseLong(new String(b, off, len, StandardCharsets.UTF_8));
+		}
+		long value = 0;
+		for (; i < end; i++) {
+			int d = b[i] - '0';
+			if (d < 0 || d > 9) {
+				throw new NumberFormatException("For input string: \""
+						+ new String(b, off, len, StandardCharsets.UTF_8) + "\"");
+			}
+			value = 10 * value + d;
+		}
+		return negative ? -value : value;
+	}
+
+	public static int parseInt(byte[] b, int off, int len) {
+		int digits = (len > 1 && b[off] == '-') ? len - 1 : len;
+		if (digits > MAX_INT_DIGITS) {
+			return Integer.parseInt(new String(b, off, len, StandardCharsets.UTF_8));
+		}
+		return (int) parseLong(b, off, len);
+	}
+}
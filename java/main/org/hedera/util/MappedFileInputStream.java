@@ -0,0 +1,154 @@
+package org.hedera.util;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.hadoop.fs.PositionedReadable;
+import org.apache.hadoop.fs.Seekable;
+
+/**
+ * Reads a local file through memory-mapped windows of a fixed size, so that
+ * the pages of the file are served by the page cache of the OS without a
+ * read system call nor an intermediate buffer: a read copies the bytes
+ * straight from the mapping. This pays off on repeated runs over the local
+ * copies of the dumps, whose pages stay in the cache.
+ *
+ * A read never spans two windows. The windows are unmapped by the GC once
+ * they are not referenced anymore. As the stream is seekable and positioned
+ * readable, it can be wrapped in an FSDataInputStream and read by the
+ * codecs as any file of a Hadoop file system.
+ *
+ * @author tuan
+ */
+public final class MappedFileInputStream extends InputStream
+		implements Seekable, PositionedReadable {
+
+	/** Default size of the mapped windows: 256 MB */
+	public static final int DEFAULT_WINDOW = 1 << 28;
+
+	private final FileChannel channel;
+	private final long length;
+	private final int window;
+
+	// the window holding the position, and its offset in the file
+	private MappedByteBuffer map;
+	private long mapStart;
+
+	private long pos;
+
+	public MappedFileInputStream(File file, int window) throws IOException {
+		if (window <= 0) {
+			throw new IllegalArgumentException("Invalid window size: " + window);
+		}
+		this.channel = new RandomAccessFile(file, "r").getChannel();
+		this.length = channel.size();
+		this.window = window;
+	}
+
+	/** Map the window holding the position, and move to the position in it */
+	private ByteBuffer map(long p) throws IOException {
+		if (map == null || p < mapStart || p >= mapStart + map.capacity()) {
+			mapStart = p - p % window;
+			map = channel.map(FileChannel.MapMode.READ_ONLY, mapStart,
+					Math.min(window, length - mapStart));
+		}
+		map.position((int) (p - mapStart));
+		return map;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (pos >= length) {
+			return -1;
+		}
+		ByteBuffer m = map(pos);
+		int n = Math.min(len, m.remaining());
+		m.get(b, off, n);
+		pos += n;
+		return n;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (pos >= length) {
+			return -1;
+		}
+		return map(pos++).get() & 0xff;
+	}
+
+	@Override
+	public long skip(long n) {
+		long skipped = Math.max(0, Math.min(n, length - pos));
+		pos += skipped;
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(0, length - pos));
+	}
+
+	@Override
+	public long getPos() {
+		return pos;
+	}
+
+	@Override
+	public void seek(long p) throws IOException {
+		if (p < 0 || p > length) {
+			throw new EOFException("Cannot seek to " + p + " in a file of "
+					+ length + " bytes");
+		}
+		pos = p;
+	}
+
+	@Override
+	public boolean seekToNewSource(long targetPos) {
+		return false;
+	}
+
+	// the positioned reads (e.g. of a seek table) are few, they do not move
+	// the window
+	@Override
+	public int read(long position, byte[] b, int off, int len)
+			throws IOException {
+		if (position >= length) {
+			return -1;
+		}
+		return channel.read(ByteBuffer.wrap(b, off, len), position);
+	}
+
+	@Override
+	public void readFully(long position, byte[] b, int off, int len)
+			throws IOException {
+		int n = 0;
+		while (n < len) {
+			int r = read(position + n, b, off + n, len - n);
+			if (r < 0) {
+				throw new EOFException("Reached the end of the file at "
+						+ (position + n));
+			}
+			n += r;
+		}
+	}
+
+	@Override
+	public void readFully(long position, byte[] b) throws IOException {
+		readFully(position, b, 0, b.length);
+	}
+
+	@Override
+	public void close() throws IOException {
+		map = null;
+		channel.close();
+	}
+}
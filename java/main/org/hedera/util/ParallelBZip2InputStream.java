@@ -0,0 +1,352 @@
+package org.hedera.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.hadoop.fs.Seekable;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.Decompressor;
+
+/**
+ * Decompresses a split of a bzip2 file on several cores.
+ *
+ * The blocks of a bzip2 stream are compressed independently of each other,
+ * and each starts with a 48-bit magic number (not aligned on bytes). This
+ * stream scans the compressed bytes for the magic numbers, turns each block
+ * into a bzip2 stream of its own (a stream header, the bits of the block,
+ * and an end-of-stream marker with the CRC of the block), and decodes these
+ * streams concurrently on a pool of threads with the codec of the file. The
+ * decoded blocks are returned in the order of the file.
+ *
+ * The split is made of the blocks whose magic number starts in it, as with
+ * the BYBLOCK mode of Hadoop. Blocks are still decoded past the end of the
+ * split, one at a time, for the reader to finish its last page. A read never
+ * spans two blocks, and the position is that of the magic number of the
+ * block holding the bytes last read: a byte belongs to the split if and only
+ * if the position after reading it is before the end of the split.
+ *
+ * This stream cannot seek.
+ *
+ * @author tuan
+ */
+public final class ParallelBZip2InputStream extends InputStream implements Seekable {
+
+	private static final long BLOCK_MAGIC = 0x314159265359L;
+	private static final long END_MAGIC = 0x177245385090L;
+	private static final long MAGIC_MASK = 0xFFFFFFFFFFFFL;
+	private static final int MAGIC_BITS = 48;
+	private static final int CRC_BITS = 32;
+
+	// the decoder allocates its tables from the block size of the header, the
+	// largest one fits all the blocks
+	private static final byte[] STREAM_HEADER = {'B', 'Z', 'h', '9'};
+
+	private static final int WINDOW_SIZE = 1 << 20;
+
+	private static final class Block {
+		final long offset;
+		final Future<byte[]> data;
+
+		Block(long offset, Future<byte[]> data) {
+			this.offset = offset;
+			this.data = data;
+		}
+	}
+
+	private final InputStream in;
+	private final CompressionCodec codec;
+	private final ExecutorService workers;
+	private final int depth;
+	private final long end;
+
+	// the compressed bytes being scanned: window[0] is at offset base
+	// of the file, scanned bytes out of limit ones have been shifted in bits
+	private byte[] window = new byte[WINDOW_SIZE];
+	private long base;
+	private int limit;
+	private int scanned;
+	private long bits;
+	private boolean drained;
+
+	// bit offset of the magic number of the block being scanned, -1 if none.
+	// Blocks starting before firstBit belong to the previous split
+	private long blockStart = -1;
+	private final long firstBit;
+
+	private final ArrayDeque<Block> pending = new ArrayDeque<>();
+	private long lastOffset = -1;
+	private boolean scannedAll;
+
+	private byte[] current;
+	private int index;
+	private long pos;
+
+	/**
+	 * @param in the compressed file, which must be {@link Seekable}
+	 * @param codec the codec decoding the blocks
+	 * @param threads the number of blocks decoded at once
+	 */
+	public ParallelBZip2InputStream(InputStream in, CompressionCodec codec,
+			long start, long end, int threads) throws IOException {
+		if (!(in instanceof Seekable)) {
+			throw new IOException("The bzip2 input is not seekable");
+		}
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Invalid number of threads: "
+					+ threads);
+		}
+		((Seekable) in).seek(start);
+		this.in = in;
+		this.codec = codec;
+		this.end = end;
+		this.base = start;
+		this.firstBit = start << 3;
+		this.pos = start;
+		this.depth = 2 * threads;
+		workers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "bzip2-decoder");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		while (current == null || index == current.length) {
+			if (!nextBlock()) {
+				return -1;
+			}
+		}
+		int n = Math.min(len, current.length - index);
+		System.arraycopy(current, index, b, off, n);
+		index += n;
+		return n;
+	}
+
+	@Override
+	public int read() throws IOException {
+		while (current == null || index == current.length) {
+			if (!nextBlock()) {
+				return -1;
+			}
+		}
+		return current[index++] & 0xff;
+	}
+
+	@Override
+	public long getPos() {
+		return pos;
+	}
+
+	@Override
+	public void seek(long p) throws IOException {
+		throw new IOException("Cannot seek a bzip2 split");
+	}
+
+	@Override
+	public boolean seekToNewSource(long p) {
+		return false;
+	}
+
+	@Override
+	public void close() throws IOException {
+		workers.shutdownNow();
+		pending.clear();
+		current = null;
+		in.close();
+	}
+
+	/** Queue the next blocks for decoding and move to the first queued one */
+	private boolean nextBlock() throws IOException {
+
+		// past the end of the split, only the block being read is decoded
+		while (!scannedAll && pending.size() < depth
+				&& (pending.isEmpty() || lastOffset < end)) {
+			final byte[] stream = nextStream();
+			if (stream == null) {
+				scannedAll = true;
+				break;
+			}
+			Future<byte[]> data = workers.submit(new Callable<byte[]>() {
+				@Override
+				public byte[] call() throws IOException {
+					return decode(stream);
+				}
+			});
+			pending.add(new Block(lastOffset, data));
+		}
+		Block block = pending.poll();
+		if (block == null) {
+			return false;
+		}
+		try {
+			current = block.data.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while decoding bzip2");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw (cause instanceof IOException) ? (IOException) cause
+					: new IOException("Cannot decode the bzip2 block at "
+					+ block.offset, cause);
+		}
+		index = 0;
+		pos = block.offset;
+		return true;
+	}
+
+	private byte[] decode(byte[] stream) throws IOException {
+		Decompressor decompressor = CodecPool.getDecompressor(codec);
+		try {
+			InputStream in = codec.createInputStream(
+					new ByteArrayInputStream(stream), decompressor);
+			byte[] out = new byte[Math.max(4 * stream.length, 1 << 16)];
+			int n = 0;
+			int r;
+			while ((r = in.read(out, n, out.length - n)) != -1) {
+				n += r;
+				if (n == out.length) {
+					out = Arrays.copyOf(out, 2 * out.length);
+				}
+			}
+			return Arrays.copyOf(out, n);
+		} finally {
+			CodecPool.returnDecompressor(decompressor);
+		}
+	}
+
+	/**
+	 * Scan the file up to the end of the next block of the split, and return
+	 * it as a bzip2 stream of its own. Its offset is then in lastOffset.
+	 * Returns null at the end of the file
+	 */
+	private byte[] nextStream() throws IOException {
+		while (true) {
+			if (scanned == limit && !fill()) {
+				if (blockStart >= 0) {
+					throw new IOException("Truncated bzip2 block at "
+							+ (blockStart >>> 3));
+				}
+				return null;
+			}
+			bits = (bits << 8) | (window[scanned++] & 0xff);
+			long scanEnd = (base + scanned) << 3;
+			for (int shift = 7; shift >= 0; shift--) {
+				long magic = (bits >>> shift) & MAGIC_MASK;
+				if (magic != BLOCK_MAGIC && magic != END_MAGIC) {
+					continue;
+				}
+				long at = scanEnd - shift - MAGIC_BITS;
+				if (at < firstBit) {
+					continue;
+				}
+				byte[] stream = null;
+				if (blockStart >= 0) {
+					stream = wrap(blockStart, at);
+					lastOffset = blockStart >>> 3;
+				}
+				blockStart = (magic == BLOCK_MAGIC) ? at : -1;
+				if (stream != null) {
+					return stream;
+				}
+			}
+		}
+	}
+
+	/** Read more of the file into the window, keeping the block being
+	 * scanned */
+	private boolean fill() throws IOException {
+		if (drained) {
+			return false;
+		}
+		int keep = (blockStart >= 0) ? (int) ((blockStart >>> 3) - base)
+				: scanned;
+		if (limit == window.length) {
+			if (keep > 0) {
+				System.arraycopy(window, keep, window, 0, limit - keep);
+				base += keep;
+				limit -= keep;
+				scanned -= keep;
+			} else {
+				window = Arrays.copyOf(window, 2 * window.length);
+			}
+		}
+		int n = in.read(window, limit, window.length - limit);
+		if (n < 0) {
+			drained = true;
+			return false;
+		}
+		limit += n;
+		return true;
+	}
+
+	/** The bits [from, to) of the file, scanned in the window, as a bzip2
+	 * stream */
+	private byte[] wrap(long from, long to) {
+		long rel = from - (base << 3);
+		long length = to - from;
+		int bytes = (int) ((length + 7) >>> 3);
+		byte[] out = new byte[STREAM_HEADER.length
+		                      + (int) ((length + MAGIC_BITS + CRC_BITS + 7) >>> 3)];
+		System.arraycopy(STREAM_HEADER, 0, out, 0, STREAM_HEADER.length);
+
+		int i = (int) (rel >>> 3);
+		int shift = (int) (rel & 7);
+		if (shift == 0) {
+			System.arraycopy(window, i, out, STREAM_HEADER.length, bytes);
+		} else {
+			for (int k = 0; k < bytes; k++, i++) {
+				out[STREAM_HEADER.length + k] = (byte) ((window[i] << shift)
+						| ((window[i + 1] & 0xff) >>> (8 - shift)));
+			}
+		}
+
+		// the block is followed by the end-of-stream marker and the CRC of the
+		// stream, which is that of its only block (right after the magic)
+		long bit = (STREAM_HEADER.length << 3) + length;
+		bit = putBits(out, bit, END_MAGIC, MAGIC_BITS);
+		putBits(out, bit, getBits(rel + MAGIC_BITS, CRC_BITS), CRC_BITS);
+		return out;
+	}
+
+	private long getBits(long rel, int count) {
+		long value = 0;
+		for (int k = 0; k < count; k++, rel++) {
+			int b = (window[(int) (rel >>> 3)] >>> (7 - (int) (rel & 7))) & 1;
+			value = (value << 1) | b;
+		}
+		return value;
+	}
+
+	/** Write the bits at the given offset of the stream, clearing the bits
+	 * left from the copy of the block. Returns the offset after them */
+	private static long putBits(byte[] out, long bit, long value, int count) {
+		for (int k = count - 1; k >= 0; k--, bit++) {
+			int i = (int) (bit >>> 3);
+			int mask = 0x80 >>> (int) (bit & 7);
+			if (((value >>> k) & 1) != 0) {
+				out[i] |= mask;
+			} else {
+				out[i] &= ~mask;
+			}
+		}
+		return bit;
+	}
+}
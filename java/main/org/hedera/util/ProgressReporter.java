@@ -0,0 +1,92 @@
+package org.hedera.util;
+
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.util.Progressable;
+
+/**
+ * One background thread per task that keeps the task alive and reports how
+ * far in its input the record reader is. It is started when the reader is
+ * initialized and stopped when the reader is closed.
+ *
+ * The reader pokes the reporter on every read of the input, which only costs
+ * a few volatile writes. Every period, the thread pings the framework if the
+ * reader made some progress since the last ping, or if it is blocked in a
+ * read (so that a slow file system does not get the task killed). A reader
+ * stuck elsewhere gets no ping, and the framework can time it out as usual.
+ *
+ * The reporter is itself a {@link Progressable}, and can be handed to code
+ * that expects one (e.g. {@link ByteMatcher}).
+ *
+ * @author tuan
+ */
+public final class ProgressReporter implements Progressable {
+
+	private static final long PERIOD = 60 * 1000;
+
+	private final TaskAttemptContext context;
+	private final Thread thread;
+
+	private volatile boolean running;
+	private volatile boolean reading;
+	private volatile long pokes;
+	private volatile long offset = -1;
+
+	public ProgressReporter(TaskAttemptContext tac) {
+		this.context = tac;
+		thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				long reported = 0;
+				while (running) {
+					try {
+						Thread.sleep(PERIOD);
+					} catch (InterruptedException e) {
+						break;
+					}
+					long p = pokes;
+					if (p != reported || reading) {
+						reported = p;
+						report();
+					}
+				}
+			}
+		}, "progress-reporter-" + tac.getTaskAttemptID());
+		thread.setDaemon(true);
+	}
+
+	private void report() {
+		context.progress();
+		long o = offset;
+		if (o >= 0) {
+			context.setStatus("Reading input at byte offset " + o);
+		}
+	}
+
+	public void start() {
+		running = true;
+		thread.start();
+	}
+
+	public void stop() {
+		running = false;
+		thread.interrupt();
+	}
+
+	/** The reader is about to read the input, which may block */
+	public void beginRead() {
+		reading = true;
+	}
+
+	/** The reader got some bytes, and is now at the given offset of the
+	 * input file */
+	public void endRead(long offset) {
+		this.offset = offset;
+		reading = false;
+		pokes++;
+	}
+
+	@Override
+	public void progress() {
+		pokes++;
+	}
+}
@@ -0,0 +1,285 @@
+package org.hedera.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.hadoop.fs.Seekable;
+
+/**
+ * Reads a (typically decompressing) stream ahead on a background thread, so
+ * that the record reader parses one buffer while the next ones are being
+ * decompressed.
+ *
+ * The producer thread makes exactly the reads the reader would have made on
+ * the stream, one read of a whole buffer each, into a ring of buffers drawn
+ * from the {@link BufferPool}. Each buffer also records the position of the
+ * stream after its read. The reads on this stream are served from the
+ * oldest buffer, and the position then reported is the one the stream had
+ * after it: the reader sees the same bytes at the same positions as when
+ * reading the stream directly (this matters for the compressed streams,
+ * whose position only moves at the boundaries of the compressed blocks).
+ * {@link #exchange(byte[])} hands a whole buffer over without copying it.
+ *
+ * The producer stops once the position passes a limit (the end of the
+ * split): the reader only reads on to finish its last page, which is then
+ * read from the stream directly rather than decompressed ahead for nothing.
+ * The end of the stream, or the error that the producer got, is handed over
+ * after the last buffer. Closing this stream stops the producer, even if it
+ * is ahead of the reader, then closes the underlying stream.
+ *
+ * This stream cannot seek.
+ *
+ * @author tuan
+ */
+public final class ReadAheadInputStream extends InputStream implements Seekable {
+
+	// length of the chunk put by the producer when it stops at the limit
+	private static final int STOPPED = -2;
+
+	private static final class Chunk {
+		byte[] data;
+		int length;
+		long end;
+		IOException error;
+
+		Chunk(byte[] data) {
+			this.data = data;
+		}
+	}
+
+	private final InputStream in;
+	private final Seekable seekable;
+	private final int size;
+	private final long limit;
+
+	private final BlockingQueue<Chunk> free;
+	private final BlockingQueue<Chunk> full;
+	private final Chunk[] chunks;
+	private final Thread producer;
+
+	private volatile boolean closed;
+	private long pos;
+	private boolean eof;
+
+	// the producer stopped at the limit, the stream is read directly
+	private boolean direct;
+
+	// the chunk being read, and the next byte to read in it
+	private Chunk current;
+	private int offset;
+
+	// length of the buffer handed over by the last exchange
+	private int exchanged;
+
+	/**
+	 * Start reading the stream ahead
+	 * @param pos the position of the stream (usually the stream itself)
+	 * @param size the size of the buffers read at once
+	 * @param depth how many buffers can be read ahead
+	 * @param limit the position after which the stream is not read ahead
+	 * anymore
+	 */
+	public ReadAheadInputStream(InputStream in, Seekable pos, int size,
+			int depth, long limit) throws IOException {
+		if (depth <= 0) {
+			throw new IllegalArgumentException("Invalid read-ahead depth: " + depth);
+		}
+		this.in = in;
+		this.seekable = pos;
+		this.size = size;
+		this.limit = limit;
+		this.pos = pos.getPos();
+		free = new ArrayBlockingQueue<>(depth);
+		full = new ArrayBlockingQueue<>(depth + 1);
+		chunks = new Chunk[depth];
+		for (int i = 0; i < depth; i++) {
+			chunks[i] = new Chunk(BufferPool.acquire(size));
+			free.add(chunks[i]);
+		}
+		producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				produce();
+			}
+		}, "read-ahead");
+		producer.setDaemon(true);
+		producer.start();
+	}
+
+	private void produce() {
+		try {
+			while (!closed) {
+				Chunk c = free.take();
+				try {
+					c.length = in.read(c.data, 0, size);
+					c.end = seekable.getPos();
+				} catch (IOException e) {
+					c.length = -1;
+					c.error = e;
+				}
+				full.put(c);
+				if (c.length < 0) {
+					return;
+				}
+				if (c.end > limit) {
+					Chunk stop = new Chunk(null);
+					stop.length = STOPPED;
+					full.put(stop);
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			// closed
+		}
+	}
+
+	// make sure that the current chunk has bytes left to read. Return false
+	// at EOF, or when the stream is to be read directly
+	private boolean advance() throws IOException {
+		if (current != null && offset < current.length) {
+			return true;
+		}
+		if (eof || direct) {
+			return false;
+		}
+		if (current != null) {
+			free.add(current);
+			current = null;
+		}
+		Chunk c;
+		try {
+			c = full.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reading ahead");
+		}
+		if (c.length == STOPPED) {
+			direct = true;
+			return false;
+		}
+		if (c.length < 0) {
+			eof = true;
+			if (c.error != null) {
+				throw c.error;
+			}
+			return false;
+		}
+		current = c;
+		offset = 0;
+		pos = c.end;
+		return true;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!advance()) {
+			return (direct) ? readDirect(b, off, len) : -1;
+		}
+		int n = Math.min(len, current.length - offset);
+		System.arraycopy(current.data, offset, b, off, n);
+		offset += n;
+		return n;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!advance()) {
+			if (!direct) {
+				return -1;
+			}
+			int b = in.read();
+			pos = seekable.getPos();
+			return b;
+		}
+		return current.data[offset++] & 0xff;
+	}
+
+	private int readDirect(byte[] b, int off, int len) throws IOException {
+		int n = in.read(b, off, len);
+		pos = seekable.getPos();
+		return n;
+	}
+
+	/**
+	 * Hand the next buffer over without copying it: the returned array holds
+	 * the bytes read, from its start ({@link #exchangedLength()} of them), and
+	 * the given one takes its place in the ring. The caller must not use the
+	 * given array anymore, and gives the returned one back at the next
+	 * exchange (or to the {@link BufferPool} after closing this stream)
+	 * @param spare an array of the size given at construction
+	 * @return the array of the next buffer, or null at EOF
+	 */
+	public byte[] exchange(byte[] spare) throws IOException {
+		if (spare.length != size) {
+			throw new IllegalArgumentException("Buffer of size " + spare.length
+					+ " instead of " + size);
+		}
+		// the rest of a buffer partly read already
+		if (current != null && offset > 0 && offset < current.length) {
+			int n = current.length - offset;
+			System.arraycopy(current.data, offset, spare, 0, n);
+			offset = current.length;
+			exchanged = n;
+			return spare;
+		}
+		if (!advance()) {
+			if (!direct) {
+				exchanged = 0;
+				return null;
+			}
+			exchanged = readDirect(spare, 0, size);
+			return (exchanged < 0) ? null : spare;
+		}
+		byte[] data = current.data;
+		current.data = spare;
+		exchanged = current.length;
+		offset = current.length;
+		return data;
+	}
+
+	/** Number of bytes in the buffer handed over by the last exchange */
+	public int exchangedLength() {
+		return exchanged;
+	}
+
+	@Override
+	public long getPos() {
+		return pos;
+	}
+
+	@Override
+	public void seek(long p) throws IOException {
+		throw new IOException("Cannot seek a read-ahead stream");
+	}
+
+	@Override
+	public boolean seekToNewSource(long p) {
+		return false;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		producer.interrupt();
+		try {
+			producer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (!producer.isAlive()) {
+			for (Chunk c : chunks) {
+				BufferPool.release(c.data);
+			}
+		}
+		in.close();
+	}
+}
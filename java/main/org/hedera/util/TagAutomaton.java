@@ -0,0 +1,201 @@
+package org.hedera.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * A compiled multi-pattern matcher (Aho-Corasick) for a fixed set of tags.
+ * The goto and failure functions are folded into one dense transition table
+ * at construction time, so that matching costs exactly one table lookup per
+ * byte, without any branching on the patterns. To keep the table small (and
+ * in the cache), bytes are first mapped to equivalence classes: all bytes
+ * that occur in none of the tags share the class 0.
+ *
+ * When all tags start with the same byte (as XML tags all start with '&lt;'),
+ * the matcher jumps from the root state directly to the next occurrence of
+ * that byte.
+ *
+ * The automaton itself is immutable and can be shared between threads. The
+ * matching state lives in a {@link Matcher}, which can be fed with
+ * consecutive buffers of a stream: a tag straddling two buffers is still
+ * recognized.
+ *
+ * @author tuan
+ */
+public final class TagAutomaton {
+
+	private final byte[][] tags;
+
+	// equivalence class of each byte value
+	private final int[] classes = new int[256];
+	private final int numClasses;
+
+	// transitions: delta[state * numClasses + class] = next state
+	private final int[] delta;
+
+	// id of the tag recognized when entering a state, or -1
+	private final int[] output;
+
+	// the byte all tags start with, if any
+	private final boolean commonFirst;
+	private final byte first;
+
+	public TagAutomaton(byte[]... tags) {
+		if (tags.length == 0) {
+			throw new IllegalArgumentException("No tags to match");
+		}
+		this.tags = new byte[tags.length][];
+
+		int n = 1;
+		for (int t = 0; t < tags.length; t++) {
+			if (tags[t] == null || tags[t].length == 0) {
+				throw new IllegalArgumentException("Empty tag " + t);
+			}
+			this.tags[t] = tags[t].clone();
+			for (byte b : tags[t]) {
+				if (classes[b & 0xff] == 0) {
+					classes[b & 0xff] = n++;
+				}
+			}
+		}
+		numClasses = n;
+
+		boolean same = true;
+		for (byte[] tag : tags) {
+			same &= (tag[0] == tags[0][0]);
+		}
+		commonFirst = same;
+		first = tags[0][0];
+
+		// build the trie (goto function). Missing transitions are -1
+		int maxStates = 1;
+		for (byte[] tag : tags) {
+			maxStates += tag.length;
+		}
+		int[] go = new int[maxStates * numClasses];
+		Arrays.fill(go, -1);
+		int[] out = new int[maxStates];
+		Arrays.fill(out, -1);
+		int states = 1;
+		for (int t = 0; t < tags.length; t++) {
+			int s = 0;
+			for (byte b : tags[t]) {
+				int c = classes[b & 0xff];
+				if (go[s * numClasses + c] < 0) {
+					go[s * numClasses + c] = states++;
+				}
+				s = go[s * numClasses + c];
+			}
+			if (out[s] < 0) {
+				out[s] = t;
+			}
+		}
+
+		// breadth-first traversal to compute the failure links and to fold
+		// them into the transitions
+		int[] fail = new int[states];
+		Deque<Integer> queue = new ArrayDeque<>();
+		for (int c = 0; c < numClasses; c++) {
+			int s = go[c];
+			if (s < 0) {
+				go[c] = 0;
+			} else {
+				fail[s] = 0;
+				queue.add(s);
+			}
+		}
+		while (!queue.isEmpty()) {
+			int r = queue.poll();
+			if (out[r] < 0) {
+				out[r] = out[fail[r]];
+			}
+			for (int c = 0; c < numClasses; c++) {
+				int s = go[r * numClasses + c];
+				if (s < 0) {
+					go[r * numClasses + c] = go[fail[r] * numClasses + c];
+				} else {
+					fail[s] = go[fail[r] * numClasses + c];
+					queue.add(s);
+				}
+			}
+		}
+
+		delta = Arrays.copyOf(go, states * numClasses);
+		output = Arrays.copyOf(out, states);
+	}
+
+	/** Number of tags this automaton recognizes */
+	public int size() {
+		return tags.length;
+	}
+
+	/** The bytes of the tag with the given id */
+	public byte[] tag(int id) {
+		return tags[id];
+	}
+
+	public Matcher matcher() {
+		return new Matcher();
+	}
+
+	/**
+	 * The matching state of the automaton over one stream. Not thread-safe.
+	 */
+	public final class Matcher {
+
+		private int state;
+		private int tag = -1;
+
+		private Matcher() {
+		}
+
+		/**
+		 * Run the automaton over the buffer range [from, to) until a tag is
+		 * recognized.
+		 * @return the position right after the end of the recognized tag
+		 * (whose id is then given by {@link #tag()}), or -1 if the range has been
+		 * consumed without recognizing any tag. In the latter case, a tag
+		 * started at the end of the range can still be completed by the
+		 * next buffer.
+		 */
+		public int find(byte[] buf, int from, int to) {
+			final int[] delta = TagAutomaton.this.delta;
+			final int[] classes = TagAutomaton.this.classes;
+			final int[] output = TagAutomaton.this.output;
+			final int k = numClasses;
+			int s = state;
+			int i = from;
+			while (i < to) {
+				if (s == 0 && commonFirst) {
+
+					// nothing matched so far, jump to the next possible tag
+					i = TagScanner.indexOf(buf, i, to, first);
+					if (i < 0) {
+						break;
+					}
+				}
+				s = delta[s * k + classes[buf[i++] & 0xff]];
+				int t = output[s];
+				if (t >= 0) {
+					state = 0;
+					tag = t;
+					return i;
+				}
+			}
+			state = s;
+			return -1;
+		}
+
+		/** Id of the last recognized tag */
+		public int tag() {
+			return tag;
+		}
+
+		/** Forget about any partially matched tag */
+		public void reset() {
+			state = 0;
+			tag = -1;
+		}
+	}
+}
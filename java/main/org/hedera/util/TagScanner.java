@@ -0,0 +1,132 @@
+package org.hedera.util;
+
+/**
+ * A pre-compiled searcher for one fixed tag (e.g. &lt;page&gt; or
+ * &lt;/revision&gt;) inside a byte buffer. It is used by the readers in the
+ * states where everything is ignored until a given tag shows up: instead of
+ * feeding the bytes one by one to the tag matcher, the scanner jumps over
+ * the buffer using a bad-character shift table (Boyer-Moore-Horspool), so
+ * that most of the bytes are never even compared.
+ *
+ * A match can straddle two consecutive buffers of the stream. The scanner
+ * keeps no state by itself, the caller carries the number of tag bytes
+ * already matched at the end of the previous buffer, and passes it to the
+ * next call
+ *
+ * @author tuan
+ */
+public final class TagScanner {
+
+	private final byte[] tag;
+	private final int[] shift;
+
+	// KMP failure function, only used to resume a match across buffers
+	private final int[] border;
+
+	public TagScanner(byte[] tag) {
+		if (tag == null || tag.length == 0) {
+			throw new IllegalArgumentException("Empty tag");
+		}
+		this.tag = tag.clone();
+		int m = tag.length;
+		shift = new int[256];
+		for (int c = 0; c < 256; c++) {
+			shift[c] = m;
+		}
+		for (int k = 0; k < m - 1; k++) {
+			shift[tag[k] & 0xff] = m - 1 - k;
+		}
+		border = new int[m + 1];
+		border[0] = -1;
+		for (int k = 0, b = -1; k < m; k++) {
+			while (b >= 0 && tag[k] != tag[b]) {
+				b = border[b];
+			}
+			border[k + 1] = ++b;
+		}
+	}
+
+	public byte[] getTag() {
+		return tag;
+	}
+
+	/**
+	 * Search for the tag in the buffer range [from, to)
+	 *
+	 * @param matched the number of tag bytes that were already matched at
+	 * the very end of the previous buffer (0 if none)
+	 * @return the position right after the end of the tag when found.
+	 * Otherwise, a negative value -(k + 1), where k is the length of the
+	 * longest tag prefix the range ends with; pass k as <code>matched</code>
+	 * when scanning the next buffer.
+	 */
+	public int scan(byte[] buf, int from, int to, int matched) {
+		int p = from;
+		int m = tag.length;
+
+		// first finish the match started in the previous buffer
+		while (matched > 0 && p < to) {
+			if (buf[p] == tag[matched]) {
+				matched++;
+				p++;
+				if (matched == m) {
+					return p;
+				}
+			} else {
+				matched = border[matched];
+			}
+		}
+		if (matched > 0) {
+			return -(matched + 1);
+		}
+
+		int last = m - 1;
+		byte lastByte = tag[last];
+		int i = p + last;
+		while (i < to) {
+			byte b = buf[i];
+			if (b == lastByte) {
+				int j = last - 1;
+				int k = i - 1;
+				while (j >= 0 && buf[k] == tag[j]) {
+					j--;
+					k--;
+				}
+				if (j < 0) {
+					return i + 1;
+				}
+			}
+			i += shift[b & 0xff];
+		}
+
+		// no full match: check whether the range ends with a tag prefix
+		int k = Math.min(last, to - p);
+		for (; k > 0; k--) {
+			if (endsWith(buf, to, k)) {
+				return -(k + 1);
+			}
+		}
+		return -1;
+	}
+
+	private boolean endsWith(byte[] buf, int to, int k) {
+		int off = to - k;
+		for (int j = 0; j < k; j++) {
+			if (buf[off + j] != tag[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Returns the position of the first occurrence of b in the buffer
+	 * range [from, to), or -1 if there is none */
+	public static int indexOf(byte[] buf, int from, int to, byte b) {
+		for (int i = from; i < to; i++) {
+			if (buf[i] == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,52 @@
+package org.hedera.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket that caps the rate of some quantity (bytes read, records
+ * emitted...) to a given number of units per second. The bucket holds at
+ * most one second worth of units, so short bursts are absorbed without
+ * waiting. Taking more units than available is allowed: the caller then
+ * waits until the debt is paid back.
+ *
+ * Not thread-safe, each reader owns its throttle.
+ *
+ * @author tuan
+ */
+public final class Throttle {
+
+	// units per nanosecond
+	private final double rate;
+	private final double capacity;
+
+	private double tokens;
+	private long last;
+
+	public Throttle(double unitsPerSecond) {
+		if (unitsPerSecond <= 0) {
+			throw new IllegalArgumentException("Invalid rate: " + unitsPerSecond);
+		}
+		rate = unitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+		capacity = Math.max(unitsPerSecond, 1d);
+		tokens = capacity;
+		last = System.nanoTime();
+	}
+
+	/**
+	 * Take the given number of units out of the bucket, waiting as long as
+	 * needed to stay under the rate
+	 * @return the time spent waiting, in milliseconds
+	 */
+	public long acquire(long units) throws InterruptedException {
+		long now = System.nanoTime();
+		tokens = Math.min(capacity, tokens + (now - last) * rate);
+		last = now;
+		tokens -= units;
+		if (tokens >= 0) {
+			return 0;
+		}
+		long wait = (long) Math.ceil(-tokens / rate);
+		TimeUnit.NANOSECONDS.sleep(wait);
+		return TimeUnit.NANOSECONDS.toMillis(wait);
+	}
+}
@@ -0,0 +1,116 @@
+package org.hedera.util;
+
+import java.nio.charset.StandardCharsets;
+
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+
+/**
+ * Parses the timestamps of the dumps (yyyy-MM-ddTHH:mm:ssZ, in UTC) to
+ * milliseconds directly from the buffered bytes. The fields are read at
+ * their fixed offsets, and the epoch of the day is cached, since the
+ * consecutive revisions of a page often share it, and the pages of a
+ * dump share much of their history. Any other layout (an offset instead of
+ * Z, a fraction of second) or an invalid date goes to Joda, as the readers
+ * did before.
+ *
+ * The parser keeps the last day, it is not thread-safe: each reader has
+ * its own.
+ *
+ * @author tuan
+ */
+public final class TimestampParser {
+
+	private static final DateTimeFormatter FALLBACK =
+			ISODateTimeFormat.dateTimeNoMillis();
+
+	private static final long DAY_MILLIS = 24L * 3600 * 1000;
+	private static final int LENGTH = 20;
+	private static final int DATE_LENGTH = 10;
+
+	private static final int[] MONTH_DAYS = {31, 28, 31, 30, 31, 30, 31, 31,
+		30, 31, 30, 31};
+
+	// yyyy-MM-dd of the cached day, and its epoch in milliseconds
+	private final byte[] day = new byte[DATE_LENGTH];
+	private boolean cached;
+	private long dayMillis;
+
+	public long parse(byte[] b, int off, int len) {
+		if (len != LENGTH || b[off + 4] != '-' || b[off + 7] != '-'
+				|| b[off + 10] != 'T' || b[off + 13] != ':'
+				|| b[off + 16] != ':' || b[off + 19] != 'Z') {
+			return fallback(b, off, len);
+		}
+		if (!sameDay(b, off)) {
+			int year = digits(b, off, 4);
+			int month = digits(b, off + 5, 2);
+			int dayOfMonth = digits(b, off + 8, 2);
+			if (year < 0 || month < 1 || month > 12 || dayOfMonth < 1
+					|| dayOfMonth > daysInMonth(year, month)) {
+				return fallback(b, off, len);
+			}
+			System.arraycopy(b, off, day, 0, DATE_LENGTH);
+			cached = true;
+			dayMillis = epochDay(year, month, dayOfMonth) * DAY_MILLIS;
+		}
+		int hour = digits(b, off + 11, 2);
+		int minute = digits(b, off + 14, 2);
+		int second = digits(b, off + 17, 2);
+		if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0
+				|| second > 59) {
+			return fallback(b, off, len);
+		}
+		return dayMillis + ((hour * 60 + minute) * 60 + second) * 1000L;
+	}
+
+	private boolean sameDay(byte[] b, int off) {
+		if (!cached) {
+			return false;
+		}
+		for (int i = DATE_LENGTH - 1; i >= 0; i--) {
+			if (b[off + i] != day[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long fallback(byte[] b, int off, int len) {
+		return FALLBACK.parseMillis(new String(b, off, len,
+				StandardCharsets.UTF_8));
+	}
+
+	// the value of n digits, -1 if one is not a digit
+	private static int digits(byte[] b, int off, int n) {
+		int value = 0;
+		for (int i = off; i < off + n; i++) {
+			int d = b[i] - '0';
+			if (d < 0 || d > 9) {
+				return -1;
+			}
+			value = 10 * value + d;
+		}
+		return value;
+	}
+
+	private static int daysInMonth(int year, int month) {
+		if (month == 2 && (year % 4 == 0 && (year % 100 != 0
+				|| year % 400 == 0))) {
+			return 29;
+		}
+		return MONTH_DAYS[month - 1];
+	}
+
+	// days since 1970-01-01 of a date of the proleptic Gregorian calendar
+	static long epochDay(int year, int month, int dayOfMonth) {
+		int y = (month <= 2) ? year - 1 : year;
+		int era = ((y >= 0) ? y : y - 399) / 400;
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5
+				+ dayOfMonth - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+				+ dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
+}
@@ -0,0 +1,160 @@
+package org.hedera.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The entities of the XML content of the dumps (&amp;lt;, &amp;gt;,
+ * &amp;amp;, &amp;quot;, &amp;apos; and the character references), to
+ * unescape the short values (titles, user names) or get the length of the
+ * unescaped content without decoding it.
+ *
+ * @author tuan
+ */
+public final class XmlEntities {
+
+	private static final String[] NAMES = {"lt", "gt", "amp", "quot", "apos"};
+	private static final String[] CHARS = {"<", ">", "&", "\"", "'"};
+
+	private static final byte[][] NAME_BYTES = new byte[NAMES.length][];
+	static {
+		for (int k = 0; k < NAMES.length; k++) {
+			NAME_BYTES[k] = NAMES[k].getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	// no entity of the dumps is longer, &#x10FFFF; included
+	private static final int MAX_LENGTH = 10;
+
+	private XmlEntities() {
+	}
+
+	/** The value once unescaped. An '&amp;' that starts no known entity is
+	 * kept as it is */
+	public static String unescape(String s) {
+		int amp = s.indexOf('&');
+		if (amp < 0) {
+			return s;
+		}
+		StringBuilder sb = new StringBuilder(s.length());
+		sb.append(s, 0, amp);
+		int i = amp;
+		while (i < s.length()) {
+			char c = s.charAt(i);
+			int semi = (c == '&') ? s.indexOf(';', i + 1) : -1;
+			String decoded = (semi < 0 || semi - i > MAX_LENGTH) ? null
+					: decode(s.substring(i + 1, semi));
+			if (decoded == null) {
+				sb.append(c);
+				i++;
+			} else {
+				sb.append(decoded);
+				i = semi + 1;
+			}
+		}
+		return sb.toString();
+	}
+
+	// the characters of the entity of the given name, null if unknown
+	private static String decode(String name) {
+		if (name.startsWith("#")) {
+			boolean hex = name.length() > 1
+					&& (name.charAt(1) == 'x' || name.charAt(1) == 'X');
+			try {
+				int cp = Integer.parseInt(name.substring(hex ? 2 : 1),
+						hex ? 16 : 10);
+				return Character.isValidCodePoint(cp)
+						? new String(Character.toChars(cp)) : null;
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+		for (int k = 0; k < NAMES.length; k++) {
+			if (name.equals(NAMES[k])) {
+				return CHARS[k];
+			}
+		}
+		return null;
+	}
+
+	/** Length in bytes of the UTF-8 content once unescaped. An '&amp;' that
+	 * starts no known entity is counted as it is */
+	public static int unescapedLength(byte[] b, int off, int len) {
+		int end = off + len;
+		int n = 0;
+		int i = off;
+		while (i < end) {
+			if (b[i] != '&') {
+				n++;
+				i++;
+				continue;
+			}
+			int semi = -1;
+			for (int j = i + 1; j < end && j <= i + MAX_LENGTH; j++) {
+				if (b[j] == ';') {
+					semi = j;
+					break;
+				}
+			}
+			int decoded = (semi < 0) ? -1 : decodedLength(b, i + 1, semi);
+			if (decoded < 0) {
+				n++;
+				i++;
+			} else {
+				n += decoded;
+				i = semi + 1;
+			}
+		}
+		return n;
+	}
+
+	// length in UTF-8 of the entity whose name is b[from..to), -1 if unknown
+	private static int decodedLength(byte[] b, int from, int to) {
+		if (from < to && b[from] == '#') {
+			return codePointLength(b, from + 1, to);
+		}
+		for (byte[] name : NAME_BYTES) {
+			if (name.length == to - from && matches(b, from, name)) {
+				return 1;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean matches(byte[] b, int from, byte[] name) {
+		for (int k = 0; k < name.length; k++) {
+			if (b[from + k] != name[k]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// &#NNN; or &#xHHH;
+	private static int codePointLength(byte[] b, int from, int to) {
+		int radix = 10;
+		if (from < to && (b[from] == 'x' || b[from] == 'X')) {
+			radix = 16;
+			from++;
+		}
+		if (from == to) {
+			return -1;
+		}
+		int cp = 0;
+		for (int k = from; k < to; k++) {
+			int d = Character.digit(b[k], radix);
+			if (d < 0) {
+				return -1;
+			}
+			cp = cp * radix + d;
+			if (cp > Character.MAX_CODE_POINT) {
+				return -1;
+			}
+		}
+		if (cp < 0x80) {
+			return 1;
+		} else if (cp < 0x800) {
+			return 2;
+		}
+		return (cp < 0x10000) ? 3 : 4;
+	}
+}
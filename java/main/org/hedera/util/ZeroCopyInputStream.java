@@ -0,0 +1,108 @@
+package org.hedera.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.ReadOption;
+import org.apache.hadoop.fs.Seekable;
+import org.apache.hadoop.io.ByteBufferPool;
+import org.apache.hadoop.io.ElasticByteBufferPool;
+
+/**
+ * Reads a file through the zero-copy interface of HDFS: the blocks that are
+ * cached by HDFS, or all the local replicas when the checksums are skipped,
+ * are memory-mapped, and a read copies the bytes straight from the mapping
+ * into the buffer of the caller, without a read system call nor the buffers
+ * of the client. The other blocks, and the files of other file systems, are
+ * read into pooled direct buffers.
+ *
+ * The position is that of the next byte to read, as for the file stream.
+ *
+ * @author tuan
+ */
+public final class ZeroCopyInputStream extends InputStream implements Seekable {
+
+	// the direct buffers of the reads that cannot be mapped, shared by all
+	// the readers of the JVM
+	private static final ByteBufferPool POOL = new ElasticByteBufferPool();
+
+	private final FSDataInputStream in;
+	private final int maxLength;
+	private final EnumSet<ReadOption> options;
+
+	// the mapped or read bytes not consumed yet, to release when consumed
+	private ByteBuffer current;
+
+	/**
+	 * @param maxLength the maximum number of bytes mapped or read at once
+	 * @param skipChecksums whether the checksums are not verified, so that
+	 * the replicas not cached by HDFS can be mapped too
+	 */
+	public ZeroCopyInputStream(FSDataInputStream in, int maxLength,
+			boolean skipChecksums) {
+		this.in = in;
+		this.maxLength = maxLength;
+		this.options = skipChecksums ? EnumSet.of(ReadOption.SKIP_CHECKSUMS)
+				: EnumSet.noneOf(ReadOption.class);
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if ((current == null || !current.hasRemaining()) && !next()) {
+			return -1;
+		}
+		int n = Math.min(len, current.remaining());
+		current.get(b, off, n);
+		return n;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if ((current == null || !current.hasRemaining()) && !next()) {
+			return -1;
+		}
+		return current.get() & 0xff;
+	}
+
+	private boolean next() throws IOException {
+		release();
+		current = in.read(POOL, maxLength, options);
+		return current != null;
+	}
+
+	private void release() {
+		if (current != null) {
+			in.releaseBuffer(current);
+			current = null;
+		}
+	}
+
+	@Override
+	public long getPos() throws IOException {
+		return in.getPos() - ((current == null) ? 0 : current.remaining());
+	}
+
+	@Override
+	public void seek(long pos) throws IOException {
+		release();
+		in.seek(pos);
+	}
+
+	@Override
+	public boolean seekToNewSource(long targetPos) throws IOException {
+		release();
+		return in.seekToNewSource(targetPos);
+	}
+
+	@Override
+	public void close() throws IOException {
+		release();
+		in.close();
+	}
+}
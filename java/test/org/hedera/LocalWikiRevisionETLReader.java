@@ -1,12 +1,14 @@
 package org.hedera;
 
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
 import org.apache.hadoop.io.DataOutputBuffer;
 import org.hedera.io.CloneableObject;
 import org.hedera.io.etl.ETLExtractor;
+import org.hedera.util.BufferPool;
+import org.hedera.util.MappedFileInputStream;
 
 
 /** The local variant of WikiRevisionETLReader for testing purposes */
@@ -45,7 +47,7 @@ public abstract class LocalWikiRevisionETLReader<
 	private static final float DEFAULT_LOWER_THRESHOLD = 0.01f;
 	private static final float DEFAULT_UPPER_THRESHOLD = 0.1f;
 
-	private FileInputStream fis;
+	private MappedFileInputStream fis;
 
 	public static enum Ack {
 		PASSED_TO_NEXT_TAG,
@@ -78,7 +80,7 @@ public abstract class LocalWikiRevisionETLReader<
 	private byte flag;
 
 	// a direct buffer to improve the local IO performance
-	private byte[] buf = new byte[134217728];
+	private byte[] buf;
 	private int[] pos = new int[2];
 			
 	protected abstract META initializeMeta();
@@ -105,8 +107,11 @@ public abstract class LocalWikiRevisionETLReader<
 	 * the extractor, and instantiate the meta object (curMeta)
 	 */
 	public void initialize() throws IOException {	
-		fis = new FileInputStream(INPUT);
+		fis = new MappedFileInputStream(new File(INPUT), 
+				MappedFileInputStream.DEFAULT_WINDOW);
 		flag = 1;
+		BufferPool.release(buf);
+		buf = BufferPool.acquire(BufferPool.DEFAULT_SIZE);
 		pos[0] = pos[1] = 0;
 		meta = null;
 		initializeOutput();
@@ -390,6 +395,11 @@ public abstract class LocalWikiRevisionETLReader<
 	}
 
 	public void close() throws IOException {
-		fis.close();
+		try {
+			fis.close();
+		} finally {
+			BufferPool.release(buf);
+			buf = null;
+		}
 	}
 }
@@ -0,0 +1,98 @@
+package org.hedera;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.apache.hadoop.fs.PositionedReadable;
+import org.apache.hadoop.fs.Seekable;
+
+/**
+ * The in-memory files and the helpers shared by the tests of the streams
+ *
+ * @author tuan
+ */
+final class StreamFixtures {
+
+	private StreamFixtures() {
+	}
+
+	/** A file in memory, as a seekable stream of Hadoop */
+	static class SeekableBytes extends ByteArrayInputStream
+			implements Seekable, PositionedReadable {
+
+		SeekableBytes(byte[] bytes) {
+			super(bytes);
+		}
+
+		@Override
+		public void seek(long p) {
+			pos = (int) p;
+		}
+
+		@Override
+		public long getPos() {
+			return pos;
+		}
+
+		@Override
+		public boolean seekToNewSource(long p) {
+			return false;
+		}
+
+		@Override
+		public int read(long p, byte[] b, int off, int len) {
+			if (p >= count) {
+				return -1;
+			}
+			int n = Math.min(len, count - (int) p);
+			System.arraycopy(buf, (int) p, b, off, n);
+			return n;
+		}
+
+		@Override
+		public void readFully(long p, byte[] b, int off, int len)
+				throws IOException {
+			if (read(p, b, off, len) < len) {
+				throw new EOFException();
+			}
+		}
+
+		@Override
+		public void readFully(long p, byte[] b) throws IOException {
+			readFully(p, b, 0, b.length);
+		}
+	}
+
+	/** Random words and page tags, about the given number of bytes */
+	static byte[] text(int size) {
+		String[] words = {"<page>", "foo", "bar", "baz", "qux", "[[Link|anchor]]",
+				"</page>\n"};
+		Random random = new Random(42);
+		StringBuilder sb = new StringBuilder();
+		while (sb.length() < size) {
+			sb.append(words[random.nextInt(words.length)]).append(' ')
+			.append(random.nextInt(100000)).append(' ');
+		}
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/** Read the bytes of the split, that is the bytes read while the position
+	 * is before its end, then close the stream */
+	static <T extends InputStream & Seekable> void readSplit(T in, long end,
+			OutputStream out) throws IOException {
+		try {
+			byte[] buf = new byte[4096];
+			int n;
+			while ((n = in.read(buf)) != -1 && in.getPos() < end) {
+				out.write(buf, 0, n);
+			}
+		} finally {
+			in.close();
+		}
+	}
+}
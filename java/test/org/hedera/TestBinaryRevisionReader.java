@@ -0,0 +1,319 @@
+package org.hedera;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.hedera.StreamFixtures.SeekableBytes;
+import org.hedera.io.FullRevision;
+import org.hedera.io.RevisionHeader;
+import org.hedera.io.binary.BinaryRevisionDiffInputFormat;
+import org.hedera.io.binary.BinaryRevisionReader;
+import org.hedera.io.binary.BinaryRevisionWriter;
+import org.hedera.io.input.WikiRevisionInputFormat;
+import org.hedera.util.XmlEntities;
+import org.junit.Test;
+
+import difflib.Delta;
+import difflib.Delta.TYPE;
+
+public class TestBinaryRevisionReader {
+
+	private static List<FullRevision> revisions() {
+		Random random = new Random(42);
+		List<FullRevision> revs = new ArrayList<>();
+		long revId = 1000;
+		for (long page = 1; page <= 50; page++) {
+			long parent = 0;
+			long time = 1000000000000L + page * 1000;
+			StringBuilder content = new StringBuilder();
+			for (int i = random.nextInt(30); i >= 0; i--) {
+				FullRevision rev = new FullRevision();
+				rev.setPageId(page);
+				rev.setNamespace((int) (page % 3));
+				rev.setPageTitle("Page " + page);
+				rev.setRevisionId(revId += 1 + random.nextInt(1000));
+				rev.setParentId(parent);
+				rev.setTimestamp(time += 1000 * random.nextInt(100000));
+				rev.setMinor(random.nextBoolean());
+				// an edit of the previous text
+				int at = random.nextInt(content.length() + 1);
+				content.delete(at, Math.min(content.length(), at + random.nextInt(20)));
+				content.insert(at, "edit &amp; " + revId
+						+ (random.nextBoolean() ? "\n" : " "));
+				byte[] text = content.toString().getBytes(StandardCharsets.UTF_8);
+				// the length is that of the unescaped text
+				int len = (i == 3) ? 0 : text.length;
+				rev.loadText(text, 0, len);
+				rev.setLength(XmlEntities.unescapedLength(text, 0, len));
+				if (random.nextBoolean()) {
+					int user = random.nextInt(5);
+					rev.setUser("User " + user);
+					rev.setUserId(user);
+				}
+				rev.setComment(random.nextBoolean() ? null : "edit " + i);
+				revs.add(rev);
+				parent = revId;
+			}
+		}
+		return revs;
+	}
+
+	private static byte[] write(List<FullRevision> revs, CompressionCodec codec,
+			int blockSize, int keyframes) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (BinaryRevisionWriter writer = new BinaryRevisionWriter(out, codec,
+				blockSize, keyframes)) {
+			for (FullRevision rev : revs) {
+				writer.append(rev);
+			}
+		}
+		return out.toByteArray();
+	}
+
+	private static <V extends RevisionHeader> void readSplit(byte[] file,
+			long start, long end, BinaryRevisionReader<V> reader, List<V> out,
+			Class<V> type) throws Exception {
+		reader.initialize(new Configuration(), new FSDataInputStream(
+				new SeekableBytes(file)), start, end);
+		while (reader.nextKeyValue()) {
+			V copy = type.newInstance();
+			if (copy instanceof FullRevision) {
+				FullRevision v = (FullRevision) reader.getCurrentValue();
+				FullRevision c = (FullRevision) copy;
+				c.clone(v);
+				c.loadText(v.getText(), 0, v.getTextLength());
+				c.setUser(v.getUser());
+				c.setUserId(v.getUserId());
+				c.setComment(v.getComment());
+			} else {
+				copy.clone(reader.getCurrentValue());
+			}
+			copy.setMinor(reader.getCurrentValue().isMinor());
+			assertEquals(copy.getPageId(), reader.getCurrentKey().get());
+			out.add(copy);
+		}
+		reader.close();
+	}
+
+	@Test
+	public void testSplits() throws Exception {
+		List<FullRevision> revs = revisions();
+		for (CompressionCodec codec : new CompressionCodec[] {null,
+				new DefaultCodec()}) {
+			for (int keyframes : new int[] {0, 1, 4}) {
+				byte[] file = write(revs, codec, 1000, keyframes);
+				for (int splits : new int[] {1, 3, 17, 200}) {
+					long size = file.length / splits + 1;
+					List<FullRevision> read = new ArrayList<>();
+					for (long start = 0; start < file.length; start += size) {
+						readSplit(file, start, Math.min(start + size, file.length),
+								new BinaryRevisionReader<FullRevision>(
+										new FullRevision(), true, true),
+								read, FullRevision.class);
+					}
+					assertRevisions(revs, read);
+				}
+			}
+		}
+	}
+
+	private static void assertRevisions(List<FullRevision> expectedRevs,
+			List<FullRevision> read) {
+		assertEquals(expectedRevs.size(), read.size());
+		for (int i = 0; i < expectedRevs.size(); i++) {
+			FullRevision expected = expectedRevs.get(i);
+			FullRevision actual = read.get(i);
+			assertEquals(expected.toString(), actual.toString());
+			assertEquals(expected.getParentId(), actual.getParentId());
+			assertEquals(expected.isMinor(), actual.isMinor());
+			assertArrayEquals(expected.getText(), actual.getText());
+			assertEquals(expected.getUser(), actual.getUser());
+			assertEquals(expected.getUserId(), actual.getUserId());
+			assertEquals(expected.getComment(), actual.getComment());
+		}
+	}
+
+	@Test
+	public void testHeaders() throws Exception {
+		List<FullRevision> revs = revisions();
+		byte[] file = write(revs, new DefaultCodec(), 1 << 20, 8);
+		List<RevisionHeader> read = new ArrayList<>();
+		readSplit(file, 0, file.length, new BinaryRevisionReader<RevisionHeader>(
+				new RevisionHeader(), false, false), read, RevisionHeader.class);
+		assertEquals(revs.size(), read.size());
+		for (int i = 0; i < revs.size(); i++) {
+			assertEquals(revs.get(i).toString(), read.get(i).toString());
+			assertEquals(revs.get(i).isMinor(), read.get(i).isMinor());
+		}
+
+		// the texts are not read for a header-only revision
+		BinaryRevisionReader<FullRevision> reader =
+				new BinaryRevisionReader<FullRevision>(new FullRevision(),
+						false, false);
+		reader.initialize(new Configuration(), new FSDataInputStream(
+				new SeekableBytes(file)), 0, file.length);
+		reader.nextKeyValue();
+		assertNull(reader.getCurrentValue().getText());
+		assertNull(reader.getCurrentValue().getComment());
+		reader.close();
+	}
+
+	@Test
+	public void testTextView() throws Exception {
+		List<FullRevision> revs = revisions();
+		byte[] file = write(revs, new DefaultCodec(), 1000, 4);
+		Configuration conf = new Configuration();
+		conf.setBoolean(WikiRevisionInputFormat.TEXT_VIEW, true);
+		BinaryRevisionReader<FullRevision> reader =
+				new BinaryRevisionReader<FullRevision>(new FullRevision(),
+						true, true);
+		reader.initialize(conf, new FSDataInputStream(
+				new SeekableBytes(file)), 0, file.length);
+
+		// the views are written again as they are read
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int i = 0;
+		try (BinaryRevisionWriter writer = new BinaryRevisionWriter(out, null,
+				1000, 4)) {
+			while (reader.nextKeyValue()) {
+				FullRevision v = reader.getCurrentValue();
+				assertArrayEquals(revs.get(i++).getText(), v.copyText());
+				writer.append(v);
+			}
+		}
+		reader.close();
+		assertEquals(revs.size(), i);
+
+		byte[] copy = out.toByteArray();
+		List<FullRevision> read = new ArrayList<>();
+		readSplit(copy, 0, copy.length, new BinaryRevisionReader<FullRevision>(
+				new FullRevision(), true, true), read, FullRevision.class);
+		assertRevisions(revs, read);
+	}
+
+	@Test
+	public void testFilter() throws Exception {
+		List<FullRevision> revs = revisions();
+		byte[] file = write(revs, new DefaultCodec(), 1000, 4);
+		Configuration conf = new Configuration();
+		conf.set(WikiRevisionInputFormat.NAMESPACES, "1, 2");
+		conf.set(WikiRevisionInputFormat.TITLE_PATTERN, "Page [1-3].*");
+		conf.set(WikiRevisionInputFormat.USER_PATTERN, "User [0-2]");
+		conf.setBoolean(WikiRevisionInputFormat.MINOR_ONLY, false);
+		List<FullRevision> expected = new ArrayList<>();
+		for (FullRevision rev : revs) {
+			if (rev.getNamespace() != 0 && rev.getPageTitle().matches("Page [1-3].*")
+					&& rev.getUser() != null && rev.getUser().matches("User [0-2]")
+					&& !rev.isMinor()) {
+				expected.add(rev);
+			}
+		}
+		assertFalse(expected.isEmpty());
+
+		BinaryRevisionReader<FullRevision> reader =
+				new BinaryRevisionReader<FullRevision>(new FullRevision(),
+						true, true);
+		reader.initialize(conf, new FSDataInputStream(new SeekableBytes(file)),
+				0, file.length);
+		int i = 0;
+		while (reader.nextKeyValue()) {
+			FullRevision v = reader.getCurrentValue();
+			assertEquals(expected.get(i).toString(), v.toString());
+			assertArrayEquals(expected.get(i++).getText(), v.getText());
+		}
+		reader.close();
+		assertEquals(expected.size(), i);
+	}
+
+	private static final String[] TEXTS =
+		{"a\nb\nc\n", "a\nB\nc\n", "a\nB\nc\nd\n", "B\nc\nd\n"};
+
+	// the revisions of a page with the given texts
+	private static List<FullRevision> pageRevisions(String[] texts) {
+		List<FullRevision> revs = new ArrayList<>();
+		for (int i = 0; i < texts.length; i++) {
+			FullRevision rev = new FullRevision();
+			rev.setPageId(1);
+			rev.setPageTitle("Page");
+			rev.setRevisionId(i + 1);
+			rev.setParentId(i);
+			byte[] text = texts[i].getBytes(StandardCharsets.UTF_8);
+			rev.loadText(text, 0, text.length);
+			revs.add(rev);
+		}
+		return revs;
+	}
+
+	@Test
+	public void testDiffs() throws Exception {
+		List<FullRevision> revs = pageRevisions(TEXTS);
+		// type, then position and lines of the original and revised chunks
+		Object[][] expected = {
+				{TYPE.INSERT, 0, Arrays.asList(), 0, Arrays.asList("a", "b", "c")},
+				{TYPE.CHANGE, 2, Arrays.asList("b"), 2, Arrays.asList("B")},
+				{TYPE.INSERT, 6, Arrays.asList(), 6, Arrays.asList("d")},
+				{TYPE.DELETE, 0, Arrays.asList("a"), 0, Arrays.asList()}};
+		for (int keyframes : new int[] {0, 2}) {
+			byte[] file = write(revs, null, 1 << 20, keyframes);
+			BinaryRevisionDiffInputFormat.DiffReader reader =
+					new BinaryRevisionDiffInputFormat.DiffReader();
+			reader.initialize(new Configuration(), new FSDataInputStream(
+					new SeekableBytes(file)), 0, file.length);
+			for (Object[] diff : expected) {
+				assertTrue(reader.nextKeyValue());
+				List<Delta> deltas = reader.getCurrentValue().getDiffs();
+				assertEquals(1, deltas.size());
+				Delta d = deltas.get(0);
+				assertEquals(diff[0], d.getType());
+				assertEquals(diff[1], d.getOriginal().getPosition());
+				assertEquals(diff[2], d.getOriginal().getLines());
+				assertEquals(diff[3], d.getRevised().getPosition());
+				assertEquals(diff[4], d.getRevised().getLines());
+			}
+			assertFalse(reader.nextKeyValue());
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testFilteredDiffs() throws Exception {
+		// the minor edits in between are not emitted, but still diffed against
+		List<FullRevision> revs = pageRevisions(TEXTS);
+		revs.get(1).setMinor(true);
+		revs.get(2).setMinor(true);
+		Configuration conf = new Configuration();
+		conf.setBoolean(WikiRevisionInputFormat.MINOR_ONLY, false);
+		for (int blockSize : new int[] {1 << 20, 1}) {
+			byte[] file = write(revs, null, blockSize, 2);
+			BinaryRevisionDiffInputFormat.DiffReader reader =
+					new BinaryRevisionDiffInputFormat.DiffReader();
+			reader.initialize(conf, new FSDataInputStream(
+					new SeekableBytes(file)), 0, file.length);
+			assertTrue(reader.nextKeyValue());
+			assertEquals(1, reader.getCurrentValue().getRevisionId());
+			assertTrue(reader.nextKeyValue());
+			assertEquals(4, reader.getCurrentValue().getRevisionId());
+			List<Delta> deltas = reader.getCurrentValue().getDiffs();
+			assertEquals(1, deltas.size());
+			assertEquals(TYPE.DELETE, deltas.get(0).getType());
+			assertEquals(Arrays.asList("a"), deltas.get(0).getOriginal().getLines());
+			assertFalse(reader.nextKeyValue());
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package org.hedera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.hadoop.fs.Seekable;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.hedera.util.ByteMatcher;
+import org.junit.Test;
+
+public class TestByteMatcher {
+
+	/** An in-memory stream that knows its position */
+	private static class Input extends ByteArrayInputStream implements Seekable {
+		Input(String s) {
+			super(s.getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public long getPos() {
+			return pos;
+		}
+
+		@Override
+		public void seek(long p) {
+			pos = (int) p;
+		}
+
+		@Override
+		public boolean seekToNewSource(long p) {
+			return false;
+		}
+	}
+
+	@Test
+	public void testMatch() throws IOException {
+		Input in = new Input("ab</pa</page>cd</page>");
+		ByteMatcher m = new ByteMatcher(in, in);
+		DataOutputBuffer out = new DataOutputBuffer();
+		assertTrue(m.readUntilMatch("</page>", out, 100, null));
+		assertEquals("ab</pa</page>", new String(out.getData(), 0,
+				out.getLength(), StandardCharsets.UTF_8));
+		assertEquals(13, m.getPos());
+		// the last unmatched byte is the '<' that broke the partial match,
+		// the one before it 'b'
+		assertEquals(2, m.getLastUnmatchPos());
+
+		assertTrue(m.readUntilMatch("</page>", null, 100, null));
+		assertEquals(22, m.getPos());
+		assertEquals(14, m.getLastUnmatchPos());
+		assertEquals(22, m.getReadBytes());
+		assertFalse(m.readUntilMatch("</page>", null, 100, null));
+	}
+
+	@Test
+	public void testOverlap() throws IOException {
+		Input in = new Input("<</page>");
+		ByteMatcher m = new ByteMatcher(in, in);
+		assertTrue(m.readUntilMatch("</page>", null, 100, null));
+		assertEquals(8, m.getPos());
+	}
+
+	@Test
+	public void testStop() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			sb.append('x');
+		}
+		sb.append("</page>");
+		Input in = new Input(sb.toString());
+		ByteMatcher m = new ByteMatcher(in, in);
+
+		// stop at the first unmatched byte past the end
+		assertFalse(m.readUntilMatch("</page>", null, 70000, null));
+		assertEquals(70000, m.getPos());
+		assertTrue(m.readUntilMatch("</page>", null, 200000, null));
+		assertEquals(100007, m.getPos());
+		assertEquals(99999, m.getLastUnmatchPos());
+	}
+}
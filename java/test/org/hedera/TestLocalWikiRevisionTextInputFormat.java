@@ -8,6 +8,7 @@ import java.nio.charset.StandardCharsets;
 import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
+import org.hedera.util.BufferPool;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -54,7 +55,7 @@ public class TestLocalWikiRevisionTextInputFormat {
 	private final LongWritable key = new LongWritable();
 	private final Text value = new Text();
 
-	private byte[] buf = new byte[134217728];
+	private byte[] buf;
 	private int[] pos = new int[2];
 
 	FileInputStream fis;
@@ -66,6 +67,7 @@ public class TestLocalWikiRevisionTextInputFormat {
 	@Before
 	public void initialize() throws FileNotFoundException {
 		fis = new FileInputStream(INPUT);
+		buf = BufferPool.acquire(BufferPool.DEFAULT_SIZE);
 		flag = 1;
 
 	}
@@ -222,6 +224,7 @@ public class TestLocalWikiRevisionTextInputFormat {
 	@After
 	public void finish() throws IOException {
 		fis.close();
+		BufferPool.release(buf);
 	}
 	
 	@Test
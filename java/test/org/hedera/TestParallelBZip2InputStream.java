@@ -0,0 +1,43 @@
+package org.hedera;
+
+import static org.hedera.StreamFixtures.readSplit;
+import static org.hedera.StreamFixtures.text;
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.compress.BZip2Codec;
+import org.hedera.StreamFixtures.SeekableBytes;
+import org.hedera.util.ParallelBZip2InputStream;
+import org.junit.Test;
+
+public class TestParallelBZip2InputStream {
+
+	@Test
+	public void testSplits() throws IOException {
+		BZip2Codec codec = new BZip2Codec();
+		codec.setConf(new Configuration());
+
+		// several blocks of 900k
+		byte[] data = text(3 << 20);
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = codec.createOutputStream(compressed)) {
+			out.write(data);
+		}
+		byte[] file = compressed.toByteArray();
+
+		for (int splits : new int[] {1, 2, 5, 40}) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			long size = file.length / splits + 1;
+			for (long start = 0; start < file.length; start += size) {
+				long end = Math.min(start + size, file.length);
+				readSplit(new ParallelBZip2InputStream(new SeekableBytes(file),
+						codec, start, end, 3), end, out);
+			}
+			assertArrayEquals(data, out.toByteArray());
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package org.hedera;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.hedera.StreamFixtures.SeekableBytes;
+import org.hedera.util.ReadAheadInputStream;
+import org.junit.Test;
+
+public class TestReadAheadInputStream {
+
+	private static class CountingBytes extends SeekableBytes {
+
+		// number of reads made on the stream
+		int reads;
+
+		CountingBytes(byte[] bytes) {
+			super(bytes);
+		}
+
+		@Override
+		public synchronized int read(byte[] b, int off, int len) {
+			reads++;
+			return super.read(b, off, len);
+		}
+	}
+
+	private static byte[] bytes(int n) {
+		byte[] b = new byte[n];
+		new Random(42).nextBytes(b);
+		return b;
+	}
+
+	@Test
+	public void testRead() throws IOException {
+		byte[] data = bytes(10000);
+		CountingBytes in = new CountingBytes(data);
+		ReadAheadInputStream ra = new ReadAheadInputStream(in, in, 1024, 3,
+				Long.MAX_VALUE);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] b = new byte[100];
+		out.write(ra.read());
+		int n;
+		while ((n = ra.read(b, 1, 77)) != -1) {
+			out.write(b, 1, n);
+		}
+		assertEquals(-1, ra.read());
+		assertEquals(data.length, ra.getPos());
+		ra.close();
+		assertArrayEquals(data, out.toByteArray());
+	}
+
+	@Test
+	public void testExchange() throws IOException {
+		byte[] data = bytes(10000);
+		CountingBytes in = new CountingBytes(data);
+		ReadAheadInputStream ra = new ReadAheadInputStream(in, in, 1024, 2,
+				2500);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buf = new byte[1024];
+		byte[] next;
+		while ((next = ra.exchange(buf)) != null) {
+			out.write(next, 0, ra.exchangedLength());
+			assertEquals(Math.min(out.size(), data.length), ra.getPos());
+			buf = next;
+		}
+		assertNull(ra.exchange(buf));
+		ra.close();
+		assertArrayEquals(data, out.toByteArray());
+
+		// past the limit, the buffers are only read when asked for
+		in = new CountingBytes(data);
+		ra = new ReadAheadInputStream(in, in, 1024, 4, 2500);
+		ra.exchange(new byte[1024]);
+		try {
+			Thread.sleep(200);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		assertEquals(3, in.reads);
+		ra.close();
+	}
+}
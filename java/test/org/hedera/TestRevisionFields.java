@@ -0,0 +1,76 @@
+package org.hedera;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.hedera.io.FullRevision;
+import org.hedera.io.input.RevisionFields;
+import org.hedera.io.input.WikiRevisionInputFormat;
+import org.junit.Test;
+
+public class TestRevisionFields {
+
+	@Test
+	public void testParse() {
+		assertEquals(RevisionFields.REVISION_ID | RevisionFields.TIMESTAMP,
+				RevisionFields.parse(" rev_id,timestamp ,"));
+		assertEquals(RevisionFields.ALL, RevisionFields.parse("page_id, rev_id, "
+				+ "parent_id, timestamp, namespace, title, length, minor, user, "
+				+ "user_id, comment, text"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownField() {
+		RevisionFields.parse("rev_id,contributor");
+	}
+
+	@Test
+	public void testGet() {
+		Configuration conf = new Configuration();
+		assertEquals(RevisionFields.ALL, RevisionFields.get(conf));
+		conf.set(WikiRevisionInputFormat.FIELDS, "title");
+		assertEquals(RevisionFields.PAGE_ID | RevisionFields.TITLE,
+				RevisionFields.get(conf));
+		conf.setLong(WikiRevisionInputFormat.REVISION_END_TIME, 1000L);
+		assertEquals(RevisionFields.PAGE_ID | RevisionFields.TITLE
+				| RevisionFields.TIMESTAMP, RevisionFields.get(conf));
+	}
+
+	@Test
+	public void testWriteProjected() throws IOException {
+		// the fields not read are null, and are written as such
+		FullRevision rev = new FullRevision();
+		rev.setPageId(12);
+		rev.setRevisionId(34);
+		rev.setLength(5);
+		DataOutputBuffer out = new DataOutputBuffer();
+		rev.write(out);
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(out.getData(), out.getLength());
+		FullRevision read = new FullRevision();
+		read.readFields(in);
+		assertEquals(rev.toString(), read.toString());
+		assertNull(read.getPageTitle());
+		assertNull(read.getText());
+		assertEquals(5, read.getLength());
+
+		byte[] text = "text".getBytes();
+		rev.setPageTitle("Title");
+		rev.loadText(text, 0, text.length);
+		out.reset();
+		rev.write(out);
+		in.reset(out.getData(), out.getLength());
+		read.readFields(in);
+		assertEquals("Title", read.getPageTitle());
+		assertArrayEquals(text, read.getText());
+		// the length of the revision is kept apart from that of its text
+		assertEquals(5, read.getLength());
+		assertEquals(text.length, read.getTextLength());
+	}
+}
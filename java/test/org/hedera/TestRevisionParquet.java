@@ -0,0 +1,203 @@
+package org.hedera;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.filter2.predicate.Statistics;
+import org.apache.parquet.hadoop.api.InitContext;
+import org.apache.parquet.hadoop.api.ReadSupport.ReadContext;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.io.api.PrimitiveConverter;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.io.api.RecordMaterializer;
+import org.apache.parquet.schema.MessageType;
+import org.hedera.io.FullRevision;
+import org.hedera.io.input.WikiRevisionInputFormat;
+import org.hedera.io.parquet.RevisionParquetInputFormat;
+import org.hedera.io.parquet.RevisionReadSupport;
+import org.hedera.io.parquet.RevisionSchema;
+import org.hedera.io.parquet.RevisionWriteSupport;
+import org.junit.Test;
+
+public class TestRevisionParquet {
+
+	/** Hands the records written to the converters of a reader, leaving out
+	 * the columns it does not request, as the column readers do */
+	private static class Pipe extends RecordConsumer {
+
+		private final MessageType schema;
+		private final GroupConverter root;
+		private PrimitiveConverter field;
+
+		Pipe(MessageType schema, GroupConverter root) {
+			this.schema = schema;
+			this.root = root;
+		}
+
+		@Override
+		public void startMessage() {
+			root.start();
+		}
+
+		@Override
+		public void endMessage() {
+			root.end();
+		}
+
+		@Override
+		public void startField(String name, int index) {
+			field = schema.containsField(name) ? (PrimitiveConverter)
+					root.getConverter(schema.getFieldIndex(name)) : null;
+		}
+
+		@Override
+		public void endField(String name, int index) {
+			field = null;
+		}
+
+		@Override
+		public void startGroup() {
+		}
+
+		@Override
+		public void endGroup() {
+		}
+
+		@Override
+		public void addInteger(int value) {
+			if (field != null) {
+				field.addInt(value);
+			}
+		}
+
+		@Override
+		public void addLong(long value) {
+			if (field != null) {
+				field.addLong(value);
+			}
+		}
+
+		@Override
+		public void addBoolean(boolean value) {
+			if (field != null) {
+				field.addBoolean(value);
+			}
+		}
+
+		@Override
+		public void addBinary(Binary value) {
+			if (field != null) {
+				field.addBinary(value);
+			}
+		}
+
+		@Override
+		public void addFloat(float value) {
+		}
+
+		@Override
+		public void addDouble(double value) {
+		}
+	}
+
+	private static FullRevision revision() {
+		FullRevision rev = new FullRevision();
+		rev.setPageId(12);
+		rev.setNamespace(0);
+		rev.setPageTitle("Page");
+		rev.setRevisionId(100);
+		rev.setParentId(99);
+		rev.setTimestamp(1000000000000L);
+		rev.setMinor(true);
+		rev.setComment("edit");
+		byte[] text = "some text".getBytes(StandardCharsets.UTF_8);
+		rev.loadText(text, 0, text.length);
+		return rev;
+	}
+
+	private static FullRevision roundTrip(Configuration conf, FullRevision rev) {
+		RevisionReadSupport readSupport = new RevisionReadSupport();
+		ReadContext context = readSupport.init(new InitContext(conf,
+				new HashMap<String, Set<String>>(), RevisionSchema.SCHEMA));
+		RecordMaterializer<FullRevision> materializer =
+				readSupport.prepareForRead(conf, new HashMap<String, String>(),
+						RevisionSchema.SCHEMA, context);
+		RevisionWriteSupport writeSupport = new RevisionWriteSupport();
+		writeSupport.init(conf);
+		writeSupport.prepareForWrite(new Pipe(context.getRequestedSchema(),
+				materializer.getRootConverter()));
+		writeSupport.write(rev);
+		return materializer.getCurrentRecord();
+	}
+
+	@Test
+	public void testRoundTrip() {
+		FullRevision rev = revision();
+		FullRevision read = roundTrip(new Configuration(), rev);
+		assertEquals(rev.toString(), read.toString());
+		assertEquals(rev.getParentId(), read.getParentId());
+		assertTrue(read.isMinor());
+		assertNull(read.getUser());
+		assertEquals(-1, read.getUserId());
+		assertEquals("edit", read.getComment());
+		assertArrayEquals(rev.getText(), read.getText());
+	}
+
+	@Test
+	public void testProjection() {
+		Configuration conf = new Configuration();
+		conf.set(RevisionParquetInputFormat.FIELDS, "rev_id, timestamp");
+		conf.setBoolean(WikiRevisionInputFormat.SKIP_NON_ARTICLES, false);
+		FullRevision rev = revision();
+		FullRevision read = roundTrip(conf, rev);
+		// the page id is always read, as the key
+		assertEquals(12, read.getPageId());
+		assertEquals(100, read.getRevisionId());
+		assertEquals(rev.getTimestamp(), read.getTimestamp());
+		assertEquals(0, read.getParentId());
+		assertNull(read.getPageTitle());
+		assertNull(read.getComment());
+		assertNull(read.getText());
+	}
+
+	@Test
+	public void testPageIdSet() {
+		RevisionParquetInputFormat.PageIdSet seeds =
+				new RevisionParquetInputFormat.PageIdSet(new long[] {5, 10, 20});
+		assertTrue(seeds.keep(10L));
+		assertFalse(seeds.keep(11L));
+		assertTrue(seeds.canDrop(new Statistics<Long>(11L, 19L)));
+		assertTrue(seeds.canDrop(new Statistics<Long>(21L, 100L)));
+		assertTrue(seeds.canDrop(new Statistics<Long>(1L, 4L)));
+		assertFalse(seeds.canDrop(new Statistics<Long>(11L, 20L)));
+		assertFalse(seeds.canDrop(new Statistics<Long>(5L, 5L)));
+	}
+
+	@Test
+	public void testStringMatch() {
+		RevisionParquetInputFormat.StringMatch users =
+				new RevisionParquetInputFormat.StringMatch(null, "User .*",
+						".*[Bb]ot");
+		assertTrue(users.keep(Binary.fromString("User A")));
+		assertFalse(users.keep(Binary.fromString("User Bot")));
+		assertFalse(users.keep(Binary.fromString("Other")));
+		// an anonymous contributor
+		assertFalse(users.keep(null));
+		assertTrue(new RevisionParquetInputFormat.StringMatch(null, null,
+				".*[Bb]ot").keep(null));
+		assertTrue(new RevisionParquetInputFormat.StringMatch("Pa", null, null)
+				.keep(Binary.fromString("Page")));
+		// the values are XML-escaped as in the dumps, and matched unescaped
+		assertTrue(new RevisionParquetInputFormat.StringMatch("AT&T", "AT&T <A>",
+				null).keep(Binary.fromString("AT&amp;T &lt;&#x41;&gt;")));
+	}
+}
@@ -0,0 +1,35 @@
+package org.hedera;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.BlockLocation;
+import org.hedera.io.input.SplitPlanner;
+import org.junit.Test;
+
+public class TestSplitPlanner {
+
+	private static BlockLocation block(long offset, long length, String... hosts) {
+		return new BlockLocation(hosts, hosts, offset, length);
+	}
+
+	@Test
+	public void testHosts() throws IOException {
+		BlockLocation[] blocks = {
+				block(0, 100, "a"),
+				block(100, 100, "c"),
+				block(200, 100, "b", "e")
+		};
+
+		// most of the split is in the first block, not the last one
+		assertArrayEquals(new String[] {"a"},
+				SplitPlanner.hosts(blocks, 10, 110));
+
+		// c stores 100 bytes of the split, a 80, b and e 30
+		assertArrayEquals(new String[] {"c", "a"},
+				SplitPlanner.hosts(blocks, 20, 210));
+
+		assertArrayEquals(new String[0], SplitPlanner.hosts(blocks, 300, 10));
+	}
+}
@@ -0,0 +1,205 @@
+package org.hedera;
+
+import static org.hedera.io.input.DumpTags.CONTRIBUTOR_END;
+import static org.hedera.io.input.DumpTags.CONTRIBUTOR_START;
+import static org.hedera.io.input.DumpTags.ID_END;
+import static org.hedera.io.input.DumpTags.ID_START;
+import static org.hedera.io.input.DumpTags.MINOR;
+import static org.hedera.io.input.DumpTags.PAGE_END;
+import static org.hedera.io.input.DumpTags.PAGE_START;
+import static org.hedera.io.input.DumpTags.REVISION_END;
+import static org.hedera.io.input.DumpTags.REVISION_START;
+import static org.hedera.io.input.DumpTags.SHA1_START;
+import static org.hedera.io.input.DumpTags.TEXT_END;
+import static org.hedera.io.input.DumpTags.TEXT_START;
+import static org.hedera.io.input.DumpTags.TIMESTAMP_END;
+import static org.hedera.io.input.DumpTags.TIMESTAMP_START;
+import static org.hedera.io.input.DumpTags.TITLE_END;
+import static org.hedera.io.input.DumpTags.TITLE_START;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.hedera.io.input.TagReader;
+import org.hedera.util.TagAutomaton;
+import org.junit.Test;
+
+public class TestTagReader {
+
+	private static final String PAGE = "<page>\n"
+			+ "    <title>Foo &lt;bar&gt;</title>\n"
+			+ "    <revision>\n"
+			+ "      <id>42</id>\n"
+			+ "      <timestamp>2004-01-01T00:00:00Z</timestamp>\n"
+			+ "      <contributor deleted=\"deleted\" />\n"
+			+ "      <minor/>\n"
+			+ "      <text xml:space=\"preserve\" bytes=\"5\">hello</text>\n"
+			+ "    </revision>\n"
+			+ "    <revision>\n"
+			+ "      <id>43</id>\n"
+			+ "      <text xml:space=\"preserve\" />\n"
+			+ "    </revision>\n"
+			+ "  </page>";
+
+	/** A reader fed with the input in chunks of the given size */
+	private static TagReader reader(String s, final int chunk) {
+		final byte[] input = s.getBytes(StandardCharsets.UTF_8);
+		final byte[] buf = new byte[chunk];
+		final int[] pos = new int[2];
+		final int[] offset = new int[1];
+		return new TagReader(buf, pos, new TagReader.Refill() {
+			@Override
+			public boolean fill() throws IOException {
+				int n = Math.min(chunk, input.length - offset[0]);
+				if (n <= 0) {
+					return false;
+				}
+				System.arraycopy(input, offset[0], buf, 0, n);
+				offset[0] += n;
+				pos[0] = 0;
+				pos[1] = n;
+				return true;
+			}
+		});
+	}
+
+	private static String string(DataOutputBuffer b) {
+		return new String(b.getData(), 0, b.getLength(), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testAutomaton() {
+		TagAutomaton a = new TagAutomaton("<id>".getBytes(),
+				"</id>".getBytes(), "<ids>".getBytes());
+		byte[] input = "x</i<ids><id>".getBytes();
+		TagAutomaton.Matcher m = a.matcher();
+		List<Integer> found = new ArrayList<>();
+		for (int i = 0; i < input.length; i++) {
+			if (m.find(input, i, i + 1) > 0) {
+				found.add(m.tag());
+			}
+		}
+		assertEquals(2, found.size());
+		assertEquals(2, (int) found.get(0));
+		assertEquals(0, (int) found.get(1));
+	}
+
+	@Test
+	public void testTags() throws IOException {
+		for (int chunk = 1; chunk <= PAGE.length(); chunk++) {
+			TagReader tags = reader(PAGE, chunk);
+			assertEquals(PAGE_START, tags.next());
+			assertEquals(TITLE_START, tags.next());
+			assertEquals(TITLE_END, tags.next());
+			assertEquals(REVISION_START, tags.next());
+			assertEquals(ID_START, tags.next());
+			assertEquals(ID_END, tags.next());
+			assertEquals(TIMESTAMP_START, tags.next());
+			assertEquals(TIMESTAMP_END, tags.next());
+			assertEquals(CONTRIBUTOR_START, tags.next());
+			assertEquals(CONTRIBUTOR_END, tags.next());
+			assertEquals(MINOR, tags.next());
+			assertEquals(TEXT_START, tags.next());
+			assertEquals(" xml:space=\"preserve\" bytes=\"5\"",
+					string(tags.attributes()));
+			assertEquals(TEXT_END, tags.next());
+			assertEquals(REVISION_END, tags.next());
+		}
+	}
+
+	@Test
+	public void testReadUntil() throws IOException {
+		DataOutputBuffer sink = new DataOutputBuffer();
+		for (int chunk = 1; chunk <= PAGE.length(); chunk++) {
+			TagReader tags = reader(PAGE, chunk);
+			assertTrue(tags.readUntil(TITLE_START, null));
+			sink.reset();
+			assertTrue(tags.readUntil(TITLE_END, sink));
+			assertEquals("Foo &lt;bar&gt;", string(sink));
+
+			assertTrue(tags.readUntil(TEXT_START, null));
+			sink.reset();
+			assertTrue(tags.readUntil(TEXT_END, sink));
+			assertEquals("hello", string(sink));
+
+			// the text of the second revision is closed in place
+			assertTrue(tags.readUntil(TEXT_START, null));
+			sink.reset();
+			assertTrue(tags.readUntil(TEXT_END, sink));
+			assertEquals(0, sink.getLength());
+			assertEquals(REVISION_END, tags.next());
+			assertEquals(PAGE_END, tags.next());
+			assertFalse(tags.readUntil(PAGE_START, null));
+			assertEquals(-1, tags.next());
+		}
+	}
+
+	private static String revision(int id, String text, int bytes) {
+		return "<revision><id>" + id + "</id><text xml:space=\"preserve\""
+				+ ((bytes < 0) ? "" : " bytes=\"" + bytes + "\"") + ">" + text
+				+ "</text><sha1>x</sha1></revision>\n";
+	}
+
+	// read the revision ids, jumping over the texts
+	private static List<String> ids(TagReader tags) throws IOException {
+		tags.setSkipText(true);
+		DataOutputBuffer sink = new DataOutputBuffer();
+		List<String> ids = new ArrayList<>();
+		while (tags.readUntil(ID_START, null)) {
+			sink.reset();
+			assertTrue(tags.readUntil(ID_END, sink));
+			ids.add(string(sink));
+			assertTrue(tags.readUntil(TEXT_START, null));
+			assertTrue(tags.readUntil(TEXT_END, null));
+			assertEquals(SHA1_START, tags.next());
+		}
+		return ids;
+	}
+
+	@Test
+	public void testSkipText() throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			text.append("a &lt;b&gt; c &amp; ");
+		}
+		// the bytes attribute counts the unescaped text
+		String page = "<page>" + revision(1, text.toString(), 1000)
+				+ revision(2, "&quot;x&quot;", 3)
+				+ revision(3, "y", -1)
+				+ revision(4, "", 0)
+				+ revision(5, text.toString(), 1999) + "</page>";
+		for (int chunk = 1; chunk <= page.length(); chunk++) {
+			assertEquals(5, ids(reader(page, chunk)).size());
+		}
+
+		// a length larger than the text is caught while still in the buffer
+		page = "<page>" + revision(1, "ab", 40) + revision(2, "cd", -1)
+				+ "</page>";
+		assertEquals(2, ids(reader(page, page.length())).size());
+	}
+
+	@Test
+	public void testSkipTextTooFar() throws IOException {
+		// the length goes past the closing tag, into the markup of the later
+		// revisions or the next buffers: the text is scanned again
+		StringBuilder page = new StringBuilder("<page>");
+		page.append(revision(1, "ab", 400));
+		for (int i = 0; i < 40; i++) {
+			page.append(revision(i + 2, "cd", 2));
+		}
+		String s = page.append("</page>").toString();
+		List<String> expected = new ArrayList<>();
+		for (int i = 1; i <= 41; i++) {
+			expected.add(Integer.toString(i));
+		}
+		for (int chunk = 1; chunk <= s.length(); chunk++) {
+			assertEquals(expected, ids(reader(s, chunk)));
+		}
+	}
+}
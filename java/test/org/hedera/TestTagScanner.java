@@ -0,0 +1,92 @@
+package org.hedera;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.hedera.util.TagScanner;
+import org.junit.Test;
+
+public class TestTagScanner {
+
+	private static byte[] bytes(String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/** Feed the input to the scanner in chunks of the given size, and return
+	 * the position right after the first occurrence of the tag */
+	private static int scanInChunks(TagScanner scanner, byte[] input, int chunk) {
+		int matched = 0;
+		for (int from = 0; from < input.length; from += chunk) {
+			int to = Math.min(from + chunk, input.length);
+			int r = scanner.scan(input, from, to, matched);
+			if (r >= 0) {
+				return r;
+			}
+			matched = -r - 1;
+		}
+		return -1;
+	}
+
+	private static int naive(byte[] tag, byte[] input) {
+		outer:
+		for (int i = 0; i + tag.length <= input.length; i++) {
+			for (int j = 0; j < tag.length; j++) {
+				if (input[i + j] != tag[j]) continue outer;
+			}
+			return i + tag.length;
+		}
+		return -1;
+	}
+
+	@Test
+	public void testSingleBuffer() {
+		TagScanner scanner = new TagScanner(bytes("</revision>"));
+		byte[] input = bytes("<text>abc</text>\n  </revision>\n<revision>");
+		assertEquals(naive(scanner.getTag(), input),
+				scanner.scan(input, 0, input.length, 0));
+		byte[] none = bytes("<text>abc</text>\n  </revisio");
+		assertEquals(-("</revisio".length() + 1),
+				scanner.scan(none, 0, none.length, 0));
+	}
+
+	@Test
+	public void testStraddlingBuffers() {
+		TagScanner scanner = new TagScanner(bytes("<page>"));
+		byte[] input = bytes("<siteinfo></siteinfo>\n  <pag <page>\n    <title>");
+		int expected = naive(scanner.getTag(), input);
+		for (int chunk = 1; chunk <= input.length; chunk++) {
+			assertEquals(expected, scanInChunks(scanner, input, chunk));
+		}
+	}
+
+	@Test
+	public void testSelfOverlappingTag() {
+		TagScanner scanner = new TagScanner(bytes("abab"));
+		byte[] input = bytes("xxabaababab");
+		int expected = naive(scanner.getTag(), input);
+		for (int chunk = 1; chunk <= input.length; chunk++) {
+			assertEquals(expected, scanInChunks(scanner, input, chunk));
+		}
+	}
+
+	@Test
+	public void testRandom() {
+		Random r = new Random(42);
+		byte[] alphabet = bytes("<>/pagex");
+		TagScanner scanner = new TagScanner(bytes("</page>"));
+		for (int n = 0; n < 2000; n++) {
+			byte[] input = new byte[r.nextInt(64)];
+			for (int i = 0; i < input.length; i++) {
+				input[i] = alphabet[r.nextInt(alphabet.length)];
+			}
+			if (input.length > 7 && r.nextBoolean()) {
+				System.arraycopy(scanner.getTag(), 0, input, 
+						r.nextInt(input.length - 7), 7);
+			}
+			int expected = naive(scanner.getTag(), input);
+			assertEquals(expected, scanInChunks(scanner, input, 1 + r.nextInt(16)));
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package org.hedera;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.hedera.util.ByteParser;
+import org.hedera.util.TimestampParser;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+import org.junit.Test;
+
+public class TestTimestampParser {
+
+	private static final DateTimeFormatter JODA =
+			ISODateTimeFormat.dateTimeNoMillis();
+
+	private static long parse(TimestampParser parser, String s) {
+		byte[] b = ("<" + s + ">").getBytes(StandardCharsets.UTF_8);
+		return parser.parse(b, 1, b.length - 2);
+	}
+
+	@Test
+	public void testJoda() {
+		TimestampParser parser = new TimestampParser();
+		DateTimeFormatter printer = JODA.withZoneUTC();
+		Random random = new Random(42);
+		long time = 0;
+		for (int i = 0; i < 100000; i++) {
+			// runs of close timestamps, with jumps across years
+			time = (i % 100 == 0) ? (long) (random.nextDouble() * 8e12)
+					- 1000000000000L : time + random.nextInt(100000000);
+			time -= time % 1000;
+			String s = printer.print(time);
+			assertEquals(s, time, parse(parser, s));
+		}
+	}
+
+	@Test
+	public void testFallback() {
+		TimestampParser parser = new TimestampParser();
+		String[] layouts = {"2004-02-29T23:59:59Z", "2004-02-29T23:59:59+01:00"};
+		for (String s : layouts) {
+			assertEquals(s, JODA.parseMillis(s), parse(parser, s));
+		}
+		for (String s : new String[] {"2003-02-29T00:00:00Z",
+				"2003-01-01T24:00:00Z", "2003-01-0xT00:00:00Z"}) {
+			try {
+				parse(parser, s);
+				fail(s);
+			} catch (IllegalArgumentException e) {
+				// as Joda
+			}
+		}
+	}
+
+	@Test
+	public void testNumbers() {
+		byte[] b = "x1234567890123456789x-42x".getBytes(StandardCharsets.UTF_8);
+		assertEquals(1234567890123456789L, ByteParser.parseLong(b, 1, 19));
+		assertEquals(12345, ByteParser.parseLong(b, 1, 5));
+		assertEquals(-42, ByteParser.parseInt(b, 21, 3));
+		assertEquals(0, ByteParser.parseInt("0".getBytes(), 0, 1));
+		for (int[] range : new int[][] {{0, 3}, {21, 1}, {1, 0}}) {
+			try {
+				ByteParser.parseLong(b, range[0], range[1]);
+				fail();
+			} catch (NumberFormatException e) {
+				// as Long.parseLong()
+			}
+		}
+	}
+}
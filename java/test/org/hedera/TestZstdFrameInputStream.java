@@ -0,0 +1,59 @@
+package org.hedera;
+
+import static org.hedera.StreamFixtures.readSplit;
+import static org.hedera.StreamFixtures.text;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.hedera.StreamFixtures.SeekableBytes;
+import org.hedera.io.compress.ZstdCodec;
+import org.hedera.io.compress.ZstdFrameInputStream;
+import org.hedera.io.compress.ZstdSeekTable;
+import org.junit.Test;
+
+public class TestZstdFrameInputStream {
+
+	@Test
+	public void testSplits() throws IOException {
+		Configuration conf = new Configuration();
+		conf.setInt(ZstdCodec.ZSTD_FRAME_SIZE, 100000);
+		ZstdCodec codec = new ZstdCodec();
+		codec.setConf(conf);
+
+		byte[] data = text(1 << 20);
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = codec.createOutputStream(compressed)) {
+			out.write(data);
+		}
+		byte[] file = compressed.toByteArray();
+		ZstdSeekTable table = ZstdSeekTable.read(new FSDataInputStream(
+				new SeekableBytes(file)), file.length);
+		assertEquals((data.length + 99999) / 100000, table.getFrameCount());
+
+		for (int splits : new int[] {1, 2, 5, 40}) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			long size = file.length / splits + 1;
+			for (long start = 0; start < file.length; start += size) {
+				long end = Math.min(start + size, file.length);
+				readSplit(new ZstdFrameInputStream(new FSDataInputStream(
+						new SeekableBytes(file)), codec, table, start), end, out);
+			}
+			assertArrayEquals(data, out.toByteArray());
+		}
+	}
+
+	@Test
+	public void testNoSeekTable() throws IOException {
+		byte[] file = Arrays.copyOf(text(1000), 1000);
+		assertNull(ZstdSeekTable.read(new FSDataInputStream(
+				new SeekableBytes(file)), file.length));
+	}
+}